@@ -0,0 +1,162 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.UserManagerApplication;
+import com.github.user_manager.aspect.InstrumentationMode;
+import com.github.user_manager.aspect.InstrumentationProperties;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.repository.UsersRepository;
+import com.github.user_manager.service.UserBatchService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent HTTP clients reading {@code GET /users} pages through a 10-connection pool: Tomcat's platform
+ * thread pool, virtual threads without a limit, and virtual threads behind the {@code ConcurrencyLimitAspect}.
+ * <p>
+ * Embedded H2 answers in microseconds, so the pool would never be the bottleneck; every statement is delayed
+ * by {@code roundTripMillis} to stand in for a database over the network. Clients honour the one-second
+ * {@code Retry-After} of a 503 as real ones would. {@code ok} and {@code rejected} count 200 and 503 answers
+ * per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class BackpressureBenchmark {
+
+    public enum Threading {
+        PLATFORM,
+        VIRTUAL,
+        VIRTUAL_LIMITED
+    }
+
+    private static final int USER_COUNT = 1_000;
+
+    @Param({"PLATFORM", "VIRTUAL", "VIRTUAL_LIMITED"})
+    private Threading threading;
+
+    @Param("10")
+    private long roundTripMillis;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private int[] userIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Responses {
+        public long ok;
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagerApplication.class)
+                .initializers(application -> application.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof HikariDataSource pool ? delayed(pool, roundTripMillis) : bean;
+                    }
+                }))
+                .run("--server.port=0",
+                        "--spring.profiles.active=benchmark",
+                        "--spring.datasource.hikari.maximum-pool-size=10",
+                        "--spring.threads.virtual.enabled=" + (threading != Threading.PLATFORM),
+                        "--user-manager.concurrency-limit.enabled=" + (threading == Threading.VIRTUAL_LIMITED));
+        context.getBean(InstrumentationProperties.class).setMode(InstrumentationMode.OFF);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + context.getEnvironment().getProperty("server.servlet.context-path", "");
+
+        context.getBean(UserBatchService.class).createUsers(BenchmarkData.users(USER_COUNT, true));
+        userIds = context.getBean(UsersRepository.class).findByIdGreaterThanOrderByIdAsc(0, Limit.of(USER_COUNT))
+                .stream().mapToInt(Users::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(20)
+    public int getUsersPage20(Responses responses) throws IOException, InterruptedException {
+        return getUsersPage(responses);
+    }
+
+    @Benchmark
+    @Threads(100)
+    public int getUsersPage100(Responses responses) throws IOException, InterruptedException {
+        return getUsersPage(responses);
+    }
+
+    private int getUsersPage(Responses responses) throws IOException, InterruptedException {
+        int after = userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users?limit=100&after=" + after))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 200) {
+            responses.ok++;
+        } else if (status == 503) {
+            responses.rejected++;
+            Thread.sleep(1_000);
+        }
+        return status;
+    }
+
+    /**
+     * {@code pool} with every statement execution delayed by {@code millis}.
+     */
+    private static DataSource delayed(DataSource pool, long millis) {
+        return proxy(DataSource.class, pool, (method, result) -> method.getName().equals("getConnection")
+                ? proxy(Connection.class, result, (connectionMethod, statement) -> statement instanceof PreparedStatement
+                        ? proxy(PreparedStatement.class, statement, null, millis)
+                        : statement, 0)
+                : result, 0);
+    }
+
+    private interface ResultMapper {
+        Object map(Method method, Object result);
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, ResultMapper mapper, long delayMillis) {
+        return type.cast(Proxy.newProxyInstance(BackpressureBenchmark.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (delayMillis > 0 && method.getName().startsWith("execute")) {
+                        Thread.sleep(delayMillis);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    return mapper == null ? result : mapper.map(method, result);
+                }));
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic fixtures shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final String[] TEAMS = {"marketing", "backend", "frontend", "platform", "sales"};
+    private static final String[] UNITS = {"customer value", "engineering", "operations"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Detached users with profiles; {@code withIds} mimics rows read back from the database.
+     */
+    static List<Users> users(int count, boolean withIds) {
+        List<Users> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            users.add(user(i, withIds));
+        }
+        return users;
+    }
+
+    static Users user(int i, boolean withIds) {
+        UserProfiles profile = new UserProfiles();
+        profile.setUnit(UNITS[i % UNITS.length]);
+        profile.setTeam(TEAMS[i % TEAMS.length]);
+        profile.setPhoneNumber(String.valueOf(9_000_000_000L + i));
+
+        Users user = new Users();
+        user.setFirstName("first" + i);
+        user.setLastName("last" + i);
+        user.setUserProfiles(profile);
+
+        if (withIds) {
+            user.setId(i);
+            profile.setId(i);
+            profile.setCreatedAt(new Timestamp(1_766_577_944_817L + i));
+        }
+        return user;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.entity.Users;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the Lombok {@code @Data} methods on entities; {@code toString} is what payload logging pays
+ * and {@code equals/hashCode} walk into the nested profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMethodsBenchmark {
+
+    private Users user;
+    private Users equalUser;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkData.user(1, true);
+        equalUser = BenchmarkData.user(1, true);
+    }
+
+    @Benchmark
+    public int hashCodeWithProfile() {
+        return user.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsWithProfile() {
+        return user.equals(equalUser);
+    }
+
+    @Benchmark
+    public String toStringWithProfile() {
+        return user.toString();
+    }
+}
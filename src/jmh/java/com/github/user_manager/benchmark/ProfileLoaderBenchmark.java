@@ -0,0 +1,82 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.UserManagerApplication;
+import com.github.user_manager.aspect.InstrumentationMode;
+import com.github.user_manager.aspect.InstrumentationProperties;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.loader.ProfileLoader;
+import com.github.user_manager.repository.UserProfilesRepository;
+import com.github.user_manager.service.UserBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent profile lookups by id: one read-only transaction per lookup versus the {@link ProfileLoader}
+ * with the given batching window ({@code 0ms} only coalesces identical ids). Ids are drawn from a small hot set,
+ * so the loader both coalesces and batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class ProfileLoaderBenchmark {
+
+    private static final int USER_COUNT = 1_000;
+    private static final int HOT_PROFILES = 100;
+
+    @Param({"0ms", "2ms"})
+    private String window;
+
+    private ConfigurableApplicationContext context;
+    private ProfileLoader profileLoader;
+    private UserProfilesRepository userProfilesRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private int[] profileIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagerApplication.class)
+                .run("--spring.profiles.active=benchmark", "--user-manager.profile-loader.window=" + window);
+        context.getBean(InstrumentationProperties.class).setMode(InstrumentationMode.OFF);
+        profileLoader = context.getBean(ProfileLoader.class);
+        userProfilesRepository = context.getBean(UserProfilesRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        context.getBean(UserBatchService.class).createUsers(BenchmarkData.users(USER_COUNT, false));
+        profileIds = userProfilesRepository.findAll().stream()
+                .mapToInt(UserProfiles::getId)
+                .limit(HOT_PROFILES)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<UserProfiles> transactionPerLookup() {
+        int id = nextId();
+        return readOnlyTransaction.execute(status -> userProfilesRepository.findWithUserById(id));
+    }
+
+    @Benchmark
+    public Optional<UserProfiles> loader() {
+        return profileLoader.load(nextId());
+    }
+
+    private int nextId() {
+        return profileIds[ThreadLocalRandom.current().nextInt(profileIds.length)];
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.entity.Users;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encode/decode of user lists with nested profiles, as done for {@code GET /users} and
+ * {@code POST /users:batch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private JsonMapper jsonMapper;
+    private JavaType userListType;
+    private List<Users> users;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        userListType = jsonMapper.getTypeFactory().constructCollectionType(List.class, Users.class);
+        users = BenchmarkData.users(size, true);
+        encoded = jsonMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return jsonMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public List<Users> decode() {
+        return jsonMapper.readValue(encoded, userListType);
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.UserManagerApplication;
+import com.github.user_manager.aspect.InstrumentationMode;
+import com.github.user_manager.aspect.InstrumentationProperties;
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.ProfileView;
+import com.github.user_manager.dto.UserView;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.repository.UsersRepository;
+import com.github.user_manager.service.UserBatchService;
+import com.github.user_manager.service.UserManagerService;
+import com.github.user_manager.service.UserProfilesService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.AopTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service calls through the Spring proxy (aspect applied in the given mode) versus the same calls on the
+ * unproxied target, plus plain repository round-trips, against an embedded H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int USER_COUNT = 1_000;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"OFF", "METRICS", "FULL"})
+    private InstrumentationMode mode;
+
+    private ConfigurableApplicationContext context;
+    private UserManagerService proxiedUserService;
+    private UserManagerService targetUserService;
+    private UserProfilesService proxiedProfilesService;
+    private UserProfilesService targetProfilesService;
+    private UsersRepository usersRepository;
+    private int userId;
+    private int profileId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagerApplication.class)
+                .run("--spring.profiles.active=benchmark");
+
+        context.getBean(InstrumentationProperties.class).setMode(mode);
+        proxiedUserService = context.getBean(UserManagerService.class);
+        targetUserService = AopTestUtils.getUltimateTargetObject(proxiedUserService);
+        proxiedProfilesService = context.getBean(UserProfilesService.class);
+        targetProfilesService = AopTestUtils.getUltimateTargetObject(proxiedProfilesService);
+        usersRepository = context.getBean(UsersRepository.class);
+
+        context.getBean(UserBatchService.class).createUsers(BenchmarkData.users(USER_COUNT, false));
+        Users user = usersRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(1)).getFirst();
+        userId = user.getId();
+        profileId = user.getUserProfiles().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPage<UserView> getUsersProxied() {
+        return proxiedUserService.getUsers(PAGE_SIZE, null, null);
+    }
+
+    @Benchmark
+    public CursorPage<UserView> getUsersTarget() {
+        return targetUserService.getUsers(PAGE_SIZE, null, null);
+    }
+
+    @Benchmark
+    public UserProfiles getProfileByIdProxied() {
+        return proxiedProfilesService.getProfileById(profileId);
+    }
+
+    @Benchmark
+    public UserProfiles getProfileByIdTarget() {
+        return targetProfilesService.getProfileById(profileId);
+    }
+
+    @Benchmark
+    public List<ProfileView> getAllProfilesTarget() {
+        return targetProfilesService.getAllProfiles(null);
+    }
+
+    /**
+     * The entity page {@code getUsers} used to load, for comparison with the view query.
+     */
+    @Benchmark
+    public List<Users> repositoryFindEntityPage() {
+        return usersRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(PAGE_SIZE + 1));
+    }
+
+    @Benchmark
+    public Users repositoryFindWithProfileById() {
+        return usersRepository.findWithProfileById(userId).orElseThrow();
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.UserManagerApplication;
+import com.github.user_manager.aspect.InstrumentationMode;
+import com.github.user_manager.aspect.InstrumentationProperties;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.repository.UsersRepository;
+import com.github.user_manager.service.UserBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and latency distribution of the MVC/JPA stack versus the WebFlux/R2DBC variant under 64
+ * concurrent clients, over HTTP against an embedded H2 database. Both stacks get a 10-connection pool.
+ * <p>
+ * {@code REACTIVE} needs the reactive classes on the classpath: {@code mvn -Pbenchmark,reactive verify
+ * -Djmh.args="StackBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class StackBenchmark {
+
+    public enum Stack {
+        MVC,
+        REACTIVE
+    }
+
+    private static final int USER_COUNT = 1_000;
+
+    @Param({"MVC", "REACTIVE"})
+    private Stack stack;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final AtomicLong created = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private String baseUrl;
+    private int[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        List<String> args = new ArrayList<>(List.of("--server.port=0"));
+        if (stack == Stack.REACTIVE) {
+            args.add("--spring.profiles.active=benchmark,reactive");
+            args.add("--spring.r2dbc.url=r2dbc:h2:mem:///user_db?options=DB_CLOSE_DELAY=-1");
+        } else {
+            args.add("--spring.profiles.active=benchmark");
+        }
+        context = new SpringApplicationBuilder(UserManagerApplication.class).run(args.toArray(String[]::new));
+        context.getBean(InstrumentationProperties.class).setMode(InstrumentationMode.OFF);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String basePath = context.getEnvironment().getProperty("server.servlet.context-path",
+                context.getEnvironment().getProperty("spring.webflux.base-path", ""));
+        baseUrl = "http://localhost:" + port + basePath;
+
+        context.getBean(UserBatchService.class).createUsers(BenchmarkData.users(USER_COUNT, false));
+        userIds = context.getBean(UsersRepository.class).findByIdGreaterThanOrderByIdAsc(0, Limit.of(USER_COUNT))
+                .stream().mapToInt(Users::getId).toArray();
+
+        int status = send(get("/users/" + userIds[0]));
+        if (status != 200) {
+            context.close();
+            throw new IllegalStateException("GET /users/{id} answered " + status + " on " + stack
+                    + (stack == Stack.REACTIVE ? "; build with -Preactive" : ""));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getUserById() throws IOException, InterruptedException {
+        int id = userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+        return send(get("/users/" + id));
+    }
+
+    @Benchmark
+    public int getUsersPage() throws IOException, InterruptedException {
+        int after = userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+        return send(get("/users?limit=100&after=" + after));
+    }
+
+    @Benchmark
+    public int getProfiles() throws IOException, InterruptedException {
+        return send(get("/profiles?fields=id,team"));
+    }
+
+    @Benchmark
+    public int createUser() throws IOException, InterruptedException {
+        Users user = BenchmarkData.user((int) created.incrementAndGet(), false);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(user)))
+                .build());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
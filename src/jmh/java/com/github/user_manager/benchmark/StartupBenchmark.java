@@ -0,0 +1,133 @@
+package com.github.user_manager.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from process launch to the first answered {@code GET /users}, per startup mode, with and without the
+ * warm-up runner. Each measurement starts a fresh process against the PostgreSQL database of the
+ * {@code postgres} profile and counts until readiness is {@code UP} and the first request has returned, which
+ * is what a load balancer waits for. The packaged jar has no embedded database to fall back on.
+ * <p>
+ * Needs the artifacts of {@code ./mvnw -Paot package} in {@code target/fast-startup}; {@code NATIVE} also
+ * needs {@code ./mvnw -Paot,native native:compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    public enum StartupMode {
+        JVM,
+        AOT,
+        AOT_CDS,
+        NATIVE
+    }
+
+    private static final Path FAST_STARTUP = Path.of("target", "fast-startup");
+    private static final Path NATIVE_EXECUTABLE = Path.of("target", "user-manager");
+    private static final int PORT = 18080;
+    private static final String BASE_URL = "http://localhost:" + PORT + "/user-manager/v1";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    @Param({"JVM", "AOT", "AOT_CDS", "NATIVE"})
+    private StartupMode mode;
+
+    @Param({"false", "true"})
+    private boolean warmUp;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    private Process process;
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws IOException, InterruptedException {
+        process = new ProcessBuilder(command())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (status("/actuator/health/readiness") != 200) {
+            if (!process.isAlive() || System.nanoTime() > deadline) {
+                throw new IllegalStateException(mode + " did not become ready");
+            }
+            Thread.sleep(5);
+        }
+        return status("/users?limit=100");
+    }
+
+    private int status(String path) throws InterruptedException {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + path)).GET().build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1; // Not listening yet.
+        }
+    }
+
+    private List<String> command() throws IOException {
+        List<String> command = new ArrayList<>();
+        if (mode == StartupMode.NATIVE) {
+            requireFile(NATIVE_EXECUTABLE, "./mvnw -Paot,native native:compile");
+            command.add(NATIVE_EXECUTABLE.toString());
+        } else {
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            if (mode == StartupMode.AOT_CDS) {
+                Path archive = FAST_STARTUP.resolve("application.jsa");
+                requireFile(archive, "./mvnw -Paot package");
+                command.add("-XX:SharedArchiveFile=" + archive);
+            }
+            if (mode != StartupMode.JVM) {
+                command.add("-Dspring.aot.enabled=true");
+            }
+            command.add("-jar");
+            command.add(applicationJar().toString());
+        }
+        command.addAll(List.of(
+                "--server.port=" + PORT,
+                "--user-manager.warm-up.enabled=" + warmUp));
+        return command;
+    }
+
+    private static Path applicationJar() throws IOException {
+        requireFile(FAST_STARTUP, "./mvnw -Paot package");
+        try (Stream<Path> files = Files.list(FAST_STARTUP)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in " + FAST_STARTUP));
+        }
+    }
+
+    private static void requireFile(Path file, String build) {
+        if (!Files.exists(file)) {
+            throw new IllegalStateException(file + " is missing, build it with " + build);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.UserManagerApplication;
+import com.github.user_manager.aspect.InstrumentationMode;
+import com.github.user_manager.aspect.InstrumentationProperties;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.repository.UsersJdbcRepository;
+import com.github.user_manager.repository.UsersRepository;
+import com.github.user_manager.service.UserBatchService;
+import com.github.user_manager.service.UserManagerService;
+import com.github.user_manager.service.UserProfilesService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PUT} service paths: the single {@code UPDATE ... RETURNING} statement versus the JPA read-modify-write
+ * (select with join, dirty check, one update per table). {@code If-Match: *} always matches but forces the JPA
+ * path, so both run through the same service method.
+ * <p>
+ * The single-statement path needs PostgreSQL, e.g.
+ * {@code SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/user_db SPRING_DATASOURCE_USERNAME=postgres
+ * SPRING_DATASOURCE_PASSWORD=postgres}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateBenchmark {
+
+    private static final int USER_COUNT = 1_000;
+    private static final String ANY_ETAG = "*";
+
+    private ConfigurableApplicationContext context;
+    private UserManagerService userService;
+    private UserProfilesService profilesService;
+    private int userId;
+    private int profileId;
+
+    /**
+     * Makes every update change a value, otherwise Hibernate's dirty check would skip the JPA writes.
+     */
+    private long revision;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagerApplication.class)
+                .run("--spring.profiles.active=benchmark");
+        if (!context.getBean(UsersJdbcRepository.class).supportsUpdateReturning()) {
+            context.close();
+            throw new IllegalStateException("UpdateBenchmark needs PostgreSQL, set SPRING_DATASOURCE_URL");
+        }
+
+        context.getBean(InstrumentationProperties.class).setMode(InstrumentationMode.OFF);
+        userService = context.getBean(UserManagerService.class);
+        profilesService = context.getBean(UserProfilesService.class);
+
+        context.getBean(UserBatchService.class).createUsers(BenchmarkData.users(USER_COUNT, false));
+        Users user = context.getBean(UsersRepository.class).findByIdGreaterThanOrderByIdAsc(0, Limit.of(1)).getFirst();
+        userId = user.getId();
+        profileId = user.getUserProfiles().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Users updateUserSingleStatement() {
+        return userService.updateUser(userId, nextUser(), null);
+    }
+
+    @Benchmark
+    public Users updateUserReadModifyWrite() {
+        return userService.updateUser(userId, nextUser(), ANY_ETAG);
+    }
+
+    @Benchmark
+    public UserProfiles updateProfileSingleStatement() {
+        return profilesService.updateProfile(profileId, nextUser().getUserProfiles(), null);
+    }
+
+    @Benchmark
+    public UserProfiles updateProfileReadModifyWrite() {
+        return profilesService.updateProfile(profileId, nextUser().getUserProfiles(), ANY_ETAG);
+    }
+
+    private Users nextUser() {
+        return BenchmarkData.user((int) (++revision % USER_COUNT) + 1, false);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.user_manager.benchmark;
+
+import com.github.user_manager.entity.Users;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode time of the negotiable wire formats for user lists with nested profiles. The encoded size of
+ * each format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    public enum Format {
+        JSON, CBOR, SMILE
+    }
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    private Format format;
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private JavaType userListType;
+    private List<Users> users;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case JSON -> JsonMapper.builder().build();
+            case CBOR -> CBORMapper.builder().build();
+            case SMILE -> SmileMapper.builder().build();
+        };
+        userListType = mapper.getTypeFactory().constructCollectionType(List.class, Users.class);
+        users = BenchmarkData.users(size, true);
+        encoded = mapper.writeValueAsBytes(users);
+        System.out.printf("%n%s, %d users: %d bytes (%.1f per user)%n",
+                format, size, encoded.length, (double) encoded.length / size);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return mapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public List<Users> decode() {
+        return mapper.readValue(encoded, userListType);
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.user_manager.api;
+
+import com.github.user_manager.dto.ChangeFeedPage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Tag(name = "Change Feed", description = "Incremental changes of users and profiles")
+public interface UserChangesApi {
+
+    @Operation(
+            summary = "Get changes",
+            description = "Returns user and profile changes published after the given position, oldest first. "
+                    + "Poll again with the returned cursor to receive later changes"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved a page of changes",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ChangeFeedPage.class),
+                            examples = @ExampleObject(
+                                    name = "Change Page Example",
+                                    summary = "Sample page with one profile update",
+                                    value = """
+                                            {
+                                                "changes": [
+                                                    {
+                                                        "position": 42,
+                                                        "eventId": 1051,
+                                                        "aggregate": "PROFILE",
+                                                        "aggregateId": 1,
+                                                        "type": "UPDATED",
+                                                        "occurredAt": "2025-12-26T09:15:02.114Z",
+                                                        "payload": {
+                                                            "id": 1,
+                                                            "unit": "customer value",
+                                                            "team": "marketing",
+                                                            "phoneNumber": "9876543219",
+                                                            "createdAt": "2025-12-24T12:05:44.817Z",
+                                                            "version": 2
+                                                        }
+                                                    }
+                                                ],
+                                                "cursor": 42,
+                                                "hasMore": false
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "410", description = "Changes after since were deleted after the retention period")
+    })
+    @GetMapping("/users/changes")
+    ResponseEntity<ChangeFeedPage> getChanges(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Cursor from the previous call; only changes with a greater position are returned. "
+                            + "Omitted, the feed starts at the oldest change still kept",
+                    example = "41"
+            )
+            @RequestParam(required = false) Long since,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Maximum number of changes to return (1-1000, default 100)",
+                    example = "100"
+            )
+            @RequestParam(required = false) Integer limit
+    );
+
+    @Operation(
+            summary = "Stream changes",
+            description = "Server-Sent Events stream of changes: first those after since (or Last-Event-ID on "
+                    + "reconnect), then live ones. Each event is named 'change' and its id is the position"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+            @ApiResponse(responseCode = "410", description = "Changes after since were deleted after the retention period")
+    })
+    @GetMapping(value = "/users/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamChanges(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Position to start after",
+                    example = "41"
+            )
+            @RequestParam(required = false) Long since,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Sent by EventSource on reconnect; takes precedence over since"
+            )
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    );
+}
@@ -1,54 +1,233 @@
 package com.github.user_manager.api;
 
+import com.github.user_manager.dto.BatchResult;
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.MergePatch;
+import com.github.user_manager.dto.UserSummary;
+import com.github.user_manager.dto.UserView;
 import com.github.user_manager.entity.Users;
+import com.github.user_manager.idempotency.IdempotentRequests;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.JsonNode;
 
 import java.util.List;
 
 @Tag(name = "User Management", description = "APIs for managing users and their profiles")
 public interface UserManagerApi {
 
-    @Operation(summary = "Get all users", description = "Retrieves all users with their associated profiles")
+    @Operation(
+            summary = "Get users",
+            description = "Retrieves one page of users with their associated profiles, ordered by id. "
+                    + "Send Accept: application/cbor or application/x-jackson-smile for a binary encoding"
+    )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Successfully retrieved all users",
+                    description = "Successfully retrieved a page of users; attributes not selected by fields are omitted",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = Users.class),
+                            schema = @Schema(implementation = CursorPage.class),
                             examples = @ExampleObject(
-                                    name = "User List Example",
-                                    summary = "Sample response with user and profile",
+                                    name = "User Page Example",
+                                    summary = "Sample page with user and profile",
                                     value = """
-                                            [
-                                                {
-                                                    "id": 1,
-                                                    "firstName": "srivatsan",
-                                                    "lastName": "n",
-                                                    "userProfiles": {
+                                            {
+                                                "items": [
+                                                    {
                                                         "id": 1,
+                                                        "firstName": "srivatsan",
+                                                        "lastName": "n",
+                                                        "userProfiles": {
+                                                            "id": 1,
+                                                            "unit": "customer value",
+                                                            "team": "marketing",
+                                                            "phoneNumber": "9876543210",
+                                                            "createdAt": "2025-12-24T12:05:44.817Z"
+                                                        }
+                                                    }
+                                                ],
+                                                "nextCursor": "1"
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match")
+    })
+    @GetMapping("/users")
+    ResponseEntity<CursorPage<UserView>> getUsers(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Maximum number of users to return (1-1000, default 100)",
+                    example = "100"
+            )
+            @RequestParam(required = false) Integer limit,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Cursor from the previous page's nextCursor; only users with a greater id are returned",
+                    example = "1"
+            )
+            @RequestParam(required = false) Integer after,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Comma-separated attributes to return, e.g. firstName,userProfiles.team; "
+                            + "all by default. The id is always returned",
+                    example = "firstName,lastName,userProfiles.team"
+            )
+            @RequestParam(required = false) String fields,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag from a previous response; 304 is returned if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    );
+
+    @Operation(summary = "Search users", description = "Filters users by profile team/unit and name prefix, returning one keyset page of summaries")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved a page of matching users",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPage.class),
+                            examples = @ExampleObject(
+                                    name = "User Search Example",
+                                    summary = "Sample page of users in the marketing team",
+                                    value = """
+                                            {
+                                                "items": [
+                                                    {
+                                                        "id": 1,
+                                                        "firstName": "srivatsan",
+                                                        "lastName": "n",
                                                         "unit": "customer value",
-                                                        "team": "marketing",
-                                                        "phoneNumber": "9876543210",
-                                                        "createdAt": "2025-12-24T12:05:44.817Z"
+                                                        "team": "marketing"
                                                     }
-                                                }
-                                            ]
+                                                ],
+                                                "nextCursor": null
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid sort, direction or cursor")
+    })
+    @GetMapping("/users/search")
+    ResponseEntity<CursorPage<UserSummary>> searchUsers(
+            @io.swagger.v3.oas.annotations.Parameter(description = "Exact profile team", example = "marketing")
+            @RequestParam(required = false) String team,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Exact profile unit", example = "customer value")
+            @RequestParam(required = false) String unit,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Case-insensitive prefix of the first or last name", example = "sri")
+            @RequestParam(required = false) String name,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Sort key: id, firstName or lastName (default id)", example = "lastName")
+            @RequestParam(required = false) String sort,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Sort direction: asc or desc (default asc)", example = "asc")
+            @RequestParam(required = false) String direction,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Maximum number of users to return (1-1000, default 100)", example = "100")
+            @RequestParam(required = false) Integer limit,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Opaque nextCursor of the previous page")
+            @RequestParam(required = false) String after
+    );
+
+    @Operation(
+            summary = "Get all users",
+            description = "Returns every user with its profile as one JSON array in id order, written from a "
+                    + "pre-serialized snapshot that follows the change feed. Only available when "
+                    + "user-manager.snapshot.enabled is set"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "All users; X-Snapshot-Version is the last change feed position included",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = Users.class))
+                    )
+            ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "404", description = "The snapshot is not enabled"),
+            @ApiResponse(responseCode = "503", description = "The snapshot is still being built")
+    })
+    @GetMapping(value = "/users/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<StreamingResponseBody> getUsersSnapshot(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    );
+
+    @Operation(summary = "Stream all users", description = "Streams every user with its profile as newline-delimited JSON, one user per line")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Users streamed in id order",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = Users.class),
+                            examples = @ExampleObject(
+                                    name = "User Stream Example",
+                                    summary = "Sample stream with two users",
+                                    value = """
+                                            {"id":1,"firstName":"srivatsan","lastName":"n","userProfiles":{"id":1,"unit":"customer value","team":"marketing","phoneNumber":"9876543210","createdAt":"2025-12-24T12:05:44.817Z"}}
+                                            {"id":2,"firstName":"john","lastName":"doe","userProfiles":null}
                                             """
                             )
                     )
             )
     })
-    @GetMapping("/users")
-    ResponseEntity<List<Users>> getUsers();
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamUsers();
+
+    @Operation(summary = "Get user by ID", description = "Retrieves a user with its profile by user ID")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved the user",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = Users.class),
+                            examples = @ExampleObject(
+                                    name = "User Example",
+                                    summary = "Sample user response",
+                                    value = """
+                                            {
+                                                "id": 1,
+                                                "firstName": "srivatsan",
+                                                "lastName": "n",
+                                                "userProfiles": {
+                                                    "id": 1,
+                                                    "unit": "customer value",
+                                                    "team": "marketing",
+                                                    "phoneNumber": "9876543210",
+                                                    "createdAt": "2025-12-24T12:05:44.817Z"
+                                                }
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match")
+    })
+    @GetMapping("/users/{id}")
+    ResponseEntity<Users> getUserById(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ID of the user to retrieve",
+                    required = true,
+                    example = "1"
+            )
+            @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag from a previous response; 304 is returned if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    );
 
     @Operation(summary = "Create a new user", description = "Creates a new user with optional profile information")
     @ApiResponses(value = {
@@ -78,10 +257,18 @@ public interface UserManagerApi {
                             )
                     )
             ),
-            @ApiResponse(responseCode = "400", description = "Invalid input data")
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still in progress"),
+            @ApiResponse(responseCode = "422", description = "The Idempotency-Key was already used for a different request")
     })
     @PostMapping("/users")
     ResponseEntity<Users> createUser(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Client-chosen unique key, e.g. a UUID. Retries with the same key and body get the "
+                            + "original response (header Idempotent-Replayed: true) instead of creating another user",
+                    example = "3f0b2a8e-6c1d-4f7a-9b2e-5d8c4a1f0e93"
+            )
+            @RequestHeader(value = IdempotentRequests.HEADER, required = false) String idempotencyKey,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     description = "User object with optional profile to be created",
                     required = true,
@@ -137,7 +324,8 @@ public interface UserManagerApi {
                     )
             ),
             @ApiResponse(responseCode = "404", description = "User not found"),
-            @ApiResponse(responseCode = "400", description = "Invalid input data")
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "412", description = "User was modified since the ETag in If-Match")
     })
     @PutMapping("/users/{id}")
     ResponseEntity<Users> updateUser(
@@ -147,6 +335,10 @@ public interface UserManagerApi {
                     example = "1"
             )
             @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag the client last saw; the user is only changed if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     description = "Updated user object with profile information",
                     required = true,
@@ -173,10 +365,79 @@ public interface UserManagerApi {
             @RequestBody Users user
     );
 
+    @Operation(summary = "Patch a user", description = "Applies a JSON merge patch (RFC 7396); only the attributes present in the patch are written")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "User successfully patched",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = Users.class),
+                            examples = @ExampleObject(
+                                    name = "Patched User Example",
+                                    summary = "Sample response after patching a user",
+                                    value = """
+                                            {
+                                                "id": 1,
+                                                "firstName": "srivatsan",
+                                                "lastName": "n",
+                                                "version": 3,
+                                                "userProfiles": {
+                                                    "id": 1,
+                                                    "unit": "customer value",
+                                                    "team": "marketing",
+                                                    "phoneNumber": "9876543219",
+                                                    "createdAt": "2025-12-24T12:05:44.817Z",
+                                                    "version": 2
+                                                }
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "400", description = "Patch is not an object, sets an unknown or read-only attribute, or removes a value"),
+            @ApiResponse(responseCode = "409", description = "Patch changes the profile of a user that has none"),
+            @ApiResponse(responseCode = "412", description = "User was modified since the ETag in If-Match")
+    })
+    @PatchMapping(value = "/users/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<Users> patchUser(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ID of the user to patch",
+                    required = true,
+                    example = "1"
+            )
+            @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag the client last saw; the user is only changed if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Merge patch with the attributes to change",
+                    required = true,
+                    content = @Content(
+                            mediaType = MergePatch.MEDIA_TYPE,
+                            examples = @ExampleObject(
+                                    name = "Patch User Request",
+                                    summary = "Sample request changing only the phone number",
+                                    value = """
+                                            {
+                                                "userProfiles": {
+                                                    "phoneNumber": "9876543219"
+                                                }
+                                            }
+                                            """
+                            )
+                    )
+            )
+            @RequestBody JsonNode patch
+    );
+
     @Operation(summary = "Delete a user", description = "Deletes a user and their associated profile by user ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "User successfully deleted"),
-            @ApiResponse(responseCode = "404", description = "User not found")
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "412", description = "User was modified since the ETag in If-Match")
     })
     @DeleteMapping("/users/{id}")
     ResponseEntity<Void> deleteUser(
@@ -185,7 +446,174 @@ public interface UserManagerApi {
                     required = true,
                     example = "1"
             )
-            @PathVariable Integer id
+            @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag the client last saw; the user is only changed if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    );
+
+    @Operation(summary = "Create users in bulk", description = "Creates up to 10000 users with optional profiles using batched inserts, one transaction per chunk")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed; see the per-item results",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BatchResult.class),
+                            examples = @ExampleObject(
+                                    name = "Batch Create Result Example",
+                                    summary = "Sample result for two created users",
+                                    value = """
+                                            {
+                                                "succeeded": 2,
+                                                "failed": 0,
+                                                "items": [
+                                                    { "index": 0, "id": 51, "status": "CREATED", "error": null },
+                                                    { "index": 1, "id": 52, "status": "CREATED", "error": null }
+                                                ]
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid input data or too many items")
+    })
+    @PostMapping("/users:batch")
+    ResponseEntity<BatchResult> createUsers(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Users with optional profiles to be created",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = @ExampleObject(
+                                    name = "Batch Create Request",
+                                    summary = "Sample request to create two users",
+                                    value = """
+                                            [
+                                                {
+                                                    "firstName": "john",
+                                                    "lastName": "doe",
+                                                    "userProfiles": {
+                                                        "unit": "engineering",
+                                                        "team": "backend",
+                                                        "phoneNumber": "9876543211"
+                                                    }
+                                                },
+                                                {
+                                                    "firstName": "jane",
+                                                    "lastName": "doe"
+                                                }
+                                            ]
+                                            """
+                            )
+                    )
+            )
+            @RequestBody List<Users> users
+    );
+
+    @Operation(summary = "Update users in bulk", description = "Updates up to 10000 users and their profiles by id using batched updates, one transaction per chunk")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed; see the per-item results",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BatchResult.class),
+                            examples = @ExampleObject(
+                                    name = "Batch Update Result Example",
+                                    summary = "Sample result with one unknown id",
+                                    value = """
+                                            {
+                                                "succeeded": 1,
+                                                "failed": 1,
+                                                "items": [
+                                                    { "index": 0, "id": 1, "status": "UPDATED", "error": null },
+                                                    { "index": 1, "id": 999, "status": "NOT_FOUND", "error": null }
+                                                ]
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid input data or too many items")
+    })
+    @PutMapping("/users:batch")
+    ResponseEntity<BatchResult> updateUsers(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Users to update, each identified by its id",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = @ExampleObject(
+                                    name = "Batch Update Request",
+                                    summary = "Sample request to update two users",
+                                    value = """
+                                            [
+                                                {
+                                                    "id": 1,
+                                                    "firstName": "srivatsan",
+                                                    "lastName": "n",
+                                                    "userProfiles": {
+                                                        "unit": "customer value",
+                                                        "team": "marketing",
+                                                        "phoneNumber": "9876543210"
+                                                    }
+                                                },
+                                                {
+                                                    "id": 999,
+                                                    "firstName": "ghost",
+                                                    "lastName": "user"
+                                                }
+                                            ]
+                                            """
+                            )
+                    )
+            )
+            @RequestBody List<Users> users
+    );
+
+    @Operation(summary = "Delete users in bulk", description = "Deletes up to 10000 users and their profiles by id using batched deletes, one transaction per chunk")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed; see the per-item results",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BatchResult.class),
+                            examples = @ExampleObject(
+                                    name = "Batch Delete Result Example",
+                                    summary = "Sample result for two deleted users",
+                                    value = """
+                                            {
+                                                "succeeded": 2,
+                                                "failed": 0,
+                                                "items": [
+                                                    { "index": 0, "id": 1, "status": "DELETED", "error": null },
+                                                    { "index": 1, "id": 2, "status": "DELETED", "error": null }
+                                                ]
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid input data or too many items")
+    })
+    @DeleteMapping("/users:batch")
+    ResponseEntity<BatchResult> deleteUsers(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Ids of the users to delete",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = @ExampleObject(
+                                    name = "Batch Delete Request",
+                                    summary = "Sample request to delete two users",
+                                    value = "[1, 2]"
+                            )
+                    )
+            )
+            @RequestBody List<Integer> ids
     );
 
 }
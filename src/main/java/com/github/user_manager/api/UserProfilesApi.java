@@ -1,5 +1,7 @@
 package com.github.user_manager.api;
 
+import com.github.user_manager.dto.MergePatch;
+import com.github.user_manager.dto.ProfileView;
 import com.github.user_manager.entity.UserProfiles;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,22 +10,29 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.databind.JsonNode;
 
 import java.util.List;
 
 @Tag(name = "Profile Management", description = "APIs for managing user profiles")
 public interface UserProfilesApi {
 
-    @Operation(summary = "Get all profiles", description = "Retrieves all user profiles")
+    @Operation(
+            summary = "Get all profiles",
+            description = "Retrieves all user profiles. "
+                    + "Send Accept: application/cbor or application/x-jackson-smile for a binary encoding"
+    )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Successfully retrieved all profiles",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = UserProfiles.class),
+                            schema = @Schema(implementation = ProfileView.class),
                             examples = @ExampleObject(
                                     name = "Profile List Example",
                                     summary = "Sample response with profiles",
@@ -43,7 +52,14 @@ public interface UserProfilesApi {
             )
     })
     @GetMapping("/profiles")
-    ResponseEntity<List<UserProfiles>> getProfiles();
+    ResponseEntity<List<ProfileView>> getProfiles(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "Comma-separated attributes to return, e.g. team,phoneNumber; "
+                            + "all by default. The id is always returned",
+                    example = "team,phoneNumber"
+            )
+            @RequestParam(required = false) String fields
+    );
 
     @Operation(summary = "Get profile by ID", description = "Retrieves a user profile by its ID")
     @ApiResponses(value = {
@@ -68,7 +84,8 @@ public interface UserProfilesApi {
                             )
                     )
             ),
-            @ApiResponse(responseCode = "404", description = "Profile not found")
+            @ApiResponse(responseCode = "404", description = "Profile not found"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match")
     })
     @GetMapping("/profiles/{id}")
     ResponseEntity<UserProfiles> getProfileById(
@@ -77,7 +94,11 @@ public interface UserProfilesApi {
                     required = true,
                     example = "1"
             )
-            @PathVariable Integer id
+            @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag from a previous response; 304 is returned if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     );
 
     @Operation(summary = "Create a new profile", description = "Creates a new standalone user profile")
@@ -153,7 +174,8 @@ public interface UserProfilesApi {
                     )
             ),
             @ApiResponse(responseCode = "404", description = "Profile not found"),
-            @ApiResponse(responseCode = "400", description = "Invalid input data")
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "412", description = "Profile was modified since the ETag in If-Match")
     })
     @PutMapping("/profiles/{id}")
     ResponseEntity<UserProfiles> updateProfile(
@@ -163,6 +185,10 @@ public interface UserProfilesApi {
                     example = "1"
             )
             @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag the client last saw; the profile is only changed if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     description = "Updated profile object",
                     required = true,
@@ -185,10 +211,70 @@ public interface UserProfilesApi {
             @RequestBody UserProfiles profile
     );
 
+    @Operation(summary = "Patch a profile", description = "Applies a JSON merge patch (RFC 7396); only the attributes present in the patch are written")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Profile successfully patched",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = UserProfiles.class),
+                            examples = @ExampleObject(
+                                    name = "Patched Profile Example",
+                                    summary = "Sample response after patching a profile",
+                                    value = """
+                                            {
+                                                "id": 1,
+                                                "unit": "customer value",
+                                                "team": "marketing",
+                                                "phoneNumber": "9876543219",
+                                                "createdAt": "2025-12-24T12:05:44.817Z",
+                                                "version": 2
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "404", description = "Profile not found"),
+            @ApiResponse(responseCode = "400", description = "Patch is not an object, sets an unknown or read-only attribute, or removes a value"),
+            @ApiResponse(responseCode = "412", description = "Profile was modified since the ETag in If-Match")
+    })
+    @PatchMapping(value = "/profiles/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<UserProfiles> patchProfile(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ID of the profile to patch",
+                    required = true,
+                    example = "1"
+            )
+            @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag the client last saw; the profile is only changed if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Merge patch with the attributes to change",
+                    required = true,
+                    content = @Content(
+                            mediaType = MergePatch.MEDIA_TYPE,
+                            examples = @ExampleObject(
+                                    name = "Patch Profile Request",
+                                    summary = "Sample request changing only the phone number",
+                                    value = """
+                                            {
+                                                "phoneNumber": "9876543219"
+                                            }
+                                            """
+                            )
+                    )
+            )
+            @RequestBody JsonNode patch
+    );
+
     @Operation(summary = "Delete a profile", description = "Deletes a user profile by profile ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Profile successfully deleted"),
-            @ApiResponse(responseCode = "404", description = "Profile not found")
+            @ApiResponse(responseCode = "404", description = "Profile not found"),
+            @ApiResponse(responseCode = "412", description = "Profile was modified since the ETag in If-Match")
     })
     @DeleteMapping("/profiles/{id}")
     ResponseEntity<Void> deleteProfile(
@@ -197,7 +283,11 @@ public interface UserProfilesApi {
                     required = true,
                     example = "1"
             )
-            @PathVariable Integer id
+            @PathVariable Integer id,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "ETag the client last saw; the profile is only changed if it still matches"
+            )
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     );
 
 }
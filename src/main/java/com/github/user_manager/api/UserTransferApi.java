@@ -0,0 +1,149 @@
+package com.github.user_manager.api;
+
+import com.github.user_manager.dto.TransferJobView;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.multipart.MultipartFile;
+
+@Tag(name = "Import and Export", description = "Asynchronous bulk import and export of users as CSV or NDJSON")
+public interface UserTransferApi {
+
+    @Operation(
+            summary = "Import users",
+            description = "Queues an import of the uploaded CSV or NDJSON file and returns the job. Rows are parsed "
+                    + "one at a time and inserted in chunks of 500, one transaction per chunk; invalid rows are "
+                    + "counted as failed and skipped"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Import queued; poll the Location header for progress",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TransferJobView.class),
+                            examples = @ExampleObject(
+                                    name = "Queued Import Example",
+                                    summary = "Sample job right after submission",
+                                    value = """
+                                            {
+                                                "id": "5b0f6c1e-8f1e-4c43-9d7a-2f0f3c1d9e21",
+                                                "kind": "IMPORT",
+                                                "format": "CSV",
+                                                "status": "QUEUED",
+                                                "processed": 0,
+                                                "failed": 0,
+                                                "progress": null,
+                                                "error": null,
+                                                "createdAt": "2025-12-26T09:15:02.114Z",
+                                                "finishedAt": null
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Empty file or unknown format"),
+            @ApiResponse(responseCode = "503", description = "Too many jobs queued, retry later")
+    })
+    @PostMapping(value = "/users:import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    ResponseEntity<TransferJobView> importUsers(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "CSV with a header row (firstName,lastName,unit,team,phoneNumber) "
+                            + "or NDJSON with one user per line",
+                    required = true
+            )
+            @RequestPart("file") MultipartFile file,
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "File format: csv or ndjson",
+                    example = "csv"
+            )
+            @RequestParam(defaultValue = "csv") String format
+    );
+
+    @Operation(
+            summary = "Export users",
+            description = "Queues an export of all users with their profiles into a gzip-compressed CSV or NDJSON "
+                    + "file; download it from /jobs/{id}/file once the job has succeeded"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Export queued; poll the Location header for progress",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TransferJobView.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Unknown format"),
+            @ApiResponse(responseCode = "503", description = "Too many jobs queued, retry later")
+    })
+    @PostMapping("/users:export")
+    ResponseEntity<TransferJobView> exportUsers(
+            @io.swagger.v3.oas.annotations.Parameter(
+                    description = "File format: csv or ndjson",
+                    example = "ndjson"
+            )
+            @RequestParam(defaultValue = "ndjson") String format
+    );
+
+    @Operation(summary = "Get job", description = "Returns status and progress of an import or export job")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved the job",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TransferJobView.class),
+                            examples = @ExampleObject(
+                                    name = "Running Export Example",
+                                    summary = "Sample export a third of the way through",
+                                    value = """
+                                            {
+                                                "id": "0c7d2a5e-3b4f-4d7e-a1c2-6e9f8b7a6d54",
+                                                "kind": "EXPORT",
+                                                "format": "NDJSON",
+                                                "status": "RUNNING",
+                                                "processed": 350000,
+                                                "failed": 0,
+                                                "progress": 0.35,
+                                                "error": null,
+                                                "createdAt": "2025-12-26T09:15:02.114Z",
+                                                "finishedAt": null
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "404", description = "Job not found or already expired")
+    })
+    @GetMapping("/jobs/{id}")
+    ResponseEntity<TransferJobView> getJob(
+            @io.swagger.v3.oas.annotations.Parameter(description = "ID of the job", required = true)
+            @PathVariable String id
+    );
+
+    @Operation(summary = "Download export", description = "Returns the gzip-compressed file of a finished export")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export file",
+                    content = @Content(mediaType = "application/gzip")),
+            @ApiResponse(responseCode = "404", description = "Job not found, expired, or not an export"),
+            @ApiResponse(responseCode = "409", description = "Export has not succeeded (yet)")
+    })
+    @GetMapping("/jobs/{id}/file")
+    ResponseEntity<Resource> getExportFile(
+            @io.swagger.v3.oas.annotations.Parameter(description = "ID of the export job", required = true)
+            @PathVariable String id
+    );
+}
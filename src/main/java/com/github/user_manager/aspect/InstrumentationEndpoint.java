@@ -0,0 +1,52 @@
+package com.github.user_manager.aspect;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/instrumentation}: reads and switches the {@link LoggingAspect} mode without a restart.
+ * <pre>
+ * curl -X POST -H 'Content-Type: application/json' -d '{"mode":"SAMPLED","sampleRate":0.05}' \
+ *      localhost:8080/user-manager/v1/actuator/instrumentation
+ * </pre>
+ */
+@Component
+@Endpoint(id = "instrumentation")
+public class InstrumentationEndpoint {
+
+    private final InstrumentationProperties properties;
+
+    public InstrumentationEndpoint(InstrumentationProperties properties) {
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        return Map.of(
+                "mode", properties.getMode(),
+                "sampleRate", properties.getSampleRate(),
+                "maxPayloadLength", properties.getMaxPayloadLength()
+        );
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable InstrumentationMode mode,
+                                      @Nullable Double sampleRate,
+                                      @Nullable Integer maxPayloadLength) {
+        if (mode != null) {
+            properties.setMode(mode);
+        }
+        if (sampleRate != null) {
+            properties.setSampleRate(Math.clamp(sampleRate, 0.0, 1.0));
+        }
+        if (maxPayloadLength != null) {
+            properties.setMaxPayloadLength(Math.max(0, maxPayloadLength));
+        }
+        return settings();
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.user_manager.aspect;
+
+/**
+ * How much work {@link LoggingAspect} does per intercepted call.
+ */
+public enum InstrumentationMode {
+
+    /**
+     * Calls pass straight through.
+     */
+    OFF,
+
+    /**
+     * Latency is recorded in Micrometer timers; nothing is logged except failures.
+     */
+    METRICS,
+
+    /**
+     * Metrics plus entry/exit logging with size-capped payloads for a sample of calls.
+     */
+    SAMPLED,
+
+    /**
+     * Metrics plus size-capped payload logging for every call. Debugging only.
+     */
+    FULL
+}
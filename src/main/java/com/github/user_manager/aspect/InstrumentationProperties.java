@@ -0,0 +1,29 @@
+package com.github.user_manager.aspect;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of {@link LoggingAspect}, bound from {@code user-manager.instrumentation.*} at startup and
+ * changeable at runtime through the {@code instrumentation} actuator endpoint.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.instrumentation")
+public class InstrumentationProperties {
+
+    private volatile InstrumentationMode mode = InstrumentationMode.METRICS;
+
+    /**
+     * Fraction of calls whose payloads are logged in {@link InstrumentationMode#SAMPLED} mode.
+     */
+    private volatile double sampleRate = 0.01;
+
+    /**
+     * Logged arguments and results are cut to this many characters.
+     */
+    private volatile int maxPayloadLength = 256;
+}
@@ -1,18 +1,50 @@
 package com.github.user_manager.aspect;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instruments controller and service methods with a single around advice.
+ * <p>
+ * Latency goes to the {@value #TIMER_NAME} timer (tags: class, method, outcome). Entry/exit lines with
+ * payloads are only written in {@link InstrumentationMode#SAMPLED} or {@link InstrumentationMode#FULL}
+ * mode and are size-capped, so large results such as a page of users never get rendered in full.
+ * Failures are logged by {@link com.github.user_manager.error.ErrorReporter}, not here.
+ */
 @Slf4j
 @Aspect
 @Component
 public class LoggingAspect {
 
+    static final String TIMER_NAME = "user_manager.method";
+
+    private final InstrumentationProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Success timers per method, so the hot path skips the registry lookup and tag allocation. Keyed by
+     * {@link Method} because Spring AOP creates a new join point, which is its own static part, per call.
+     */
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    public LoggingAspect(InstrumentationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Pointcut for all methods in controller package
      */
@@ -26,66 +58,98 @@ public class LoggingAspect {
     public void serviceMethods() {}
 
     /**
-     * Log method entry with parameters
-     */
-    @Before("controllerMethods() || serviceMethods()")
-    public void logBefore(JoinPoint joinPoint) {
-        String className = joinPoint.getSignature().getDeclaringTypeName();
-        String methodName = joinPoint.getSignature().getName();
-        Object[] args = joinPoint.getArgs();
-
-        log.info("{} :: {} :: Entry :: args={}",
-                className.substring(className.lastIndexOf('.') + 1),
-                methodName,
-                Arrays.toString(args));
-    }
-
-    /**
-     * Log method execution with return value
+     * Record execution time and, when sampled, log entry/exit with capped payloads
      */
     @Around("controllerMethods() || serviceMethods()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        String className = joinPoint.getSignature().getDeclaringTypeName();
-        String methodName = joinPoint.getSignature().getName();
+        InstrumentationMode mode = properties.getMode();
+        if (mode == InstrumentationMode.OFF) {
+            return joinPoint.proceed();
+        }
 
-        long startTime = System.currentTimeMillis();
+        boolean logPayload = shouldLogPayload(mode);
+        if (logPayload) {
+            log.info("{} :: {} :: Entry :: args={}",
+                    className(joinPoint), methodName(joinPoint), abbreviate(joinPoint.getArgs()));
+        }
 
+        long startTime = System.nanoTime();
         try {
             Object result = joinPoint.proceed();
-            long executionTime = System.currentTimeMillis() - startTime;
-
-            log.info("{} :: {} :: Exit :: executionTime={}ms :: result={}",
-                    className.substring(className.lastIndexOf('.') + 1),
-                    methodName,
-                    executionTime,
-                    result);
-
+            long executionTime = System.nanoTime() - startTime;
+            successTimers.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                            method -> timer(joinPoint, "success"))
+                    .record(executionTime, TimeUnit.NANOSECONDS);
+
+            if (logPayload) {
+                log.info("{} :: {} :: Exit :: executionTime={}ms :: result={}",
+                        className(joinPoint), methodName(joinPoint),
+                        TimeUnit.NANOSECONDS.toMillis(executionTime), abbreviate(result));
+            }
             return result;
-        } catch (Exception e) {
-            long executionTime = System.currentTimeMillis() - startTime;
-
-            log.error("{} :: {} :: Exception :: executionTime={}ms :: error={}",
-                    className.substring(className.lastIndexOf('.') + 1),
-                    methodName,
-                    executionTime,
-                    e.getMessage());
-
+        } catch (Throwable e) {
+            long executionTime = System.nanoTime() - startTime;
+            timer(joinPoint, e.getClass().getSimpleName()).record(executionTime, TimeUnit.NANOSECONDS);
+
+            // Only the message, and only for calls that logged their entry: the exception passes every
+            // instrumented layer, and ErrorReporter logs the unexpected ones with their stack once.
+            if (logPayload) {
+                log.info("{} :: {} :: Exception :: executionTime={}ms :: error={}",
+                        className(joinPoint), methodName(joinPoint), TimeUnit.NANOSECONDS.toMillis(executionTime),
+                        e.getMessage());
+            }
             throw e;
         }
     }
 
+    private boolean shouldLogPayload(InstrumentationMode mode) {
+        return switch (mode) {
+            case FULL -> log.isInfoEnabled();
+            case SAMPLED -> log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+            default -> false;
+        };
+    }
+
+    private Timer timer(JoinPoint joinPoint, String outcome) {
+        return Timer.builder(TIMER_NAME)
+                .description("Execution time of controller and service methods")
+                .tag("class", className(joinPoint))
+                .tag("method", methodName(joinPoint))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     /**
-     * Log exceptions thrown from controller or service methods
+     * Renders a payload for logging; collections are summarized by size instead of rendering every element.
      */
-    @AfterThrowing(pointcut = "controllerMethods() || serviceMethods()", throwing = "exception")
-    public void logAfterThrowing(JoinPoint joinPoint, Throwable exception) {
-        String className = joinPoint.getSignature().getDeclaringTypeName();
-        String methodName = joinPoint.getSignature().getName();
-
-        log.error("{} :: {} :: Exception thrown :: {}",
-                className.substring(className.lastIndexOf('.') + 1),
-                methodName,
-                exception.getMessage(),
-                exception);
+    private String abbreviate(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return "[" + collection.size() + " items]";
+        }
+        String text = value instanceof Object[] array ? abbreviateArray(array) : String.valueOf(value);
+        int maxLength = properties.getMaxPayloadLength();
+        return text.length() <= maxLength ? text : text.substring(0, maxLength) + "...(" + text.length() + " chars)";
+    }
+
+    private String abbreviateArray(Object[] array) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(array[i] instanceof Collection<?> collection
+                    ? "[" + collection.size() + " items]"
+                    : String.valueOf(array[i]));
+        }
+        return text.append(']').toString();
+    }
+
+    private static String className(JoinPoint joinPoint) {
+        return joinPoint.getSignature().getDeclaringType().getSimpleName();
+    }
+
+    private static String methodName(JoinPoint joinPoint) {
+        return joinPoint.getSignature().getName();
     }
 }
@@ -0,0 +1,90 @@
+package com.github.user_manager.aspect;
+
+import com.github.user_manager.repository.UsersJdbcRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps every repository call in an {@link Observation} named {@value #OBSERVATION_NAME}.
+ * <p>
+ * The observation becomes a timer (tags: repository, method, error) and, with tracing on the classpath, a
+ * span nested under the request span, so a trace shows which queries a request ran. Skipped in
+ * {@link InstrumentationMode#OFF}, like {@link LoggingAspect}. Works with any {@link ObservationRegistry};
+ * a {@code SimpleMeterRegistry} behind one is enough to assert on the timers.
+ */
+@Aspect
+@Component
+public class RepositoryObservationAspect {
+
+    static final String OBSERVATION_NAME = "user_manager.repository";
+
+    private static final String REPOSITORY_PACKAGE = UsersJdbcRepository.class.getPackageName();
+
+    private final ObservationRegistry observationRegistry;
+    private final InstrumentationProperties properties;
+
+    /**
+     * Repository interface name per proxy class; Spring Data proxies only expose the interface they implement.
+     */
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryObservationAspect(ObservationRegistry observationRegistry, InstrumentationProperties properties) {
+        this.observationRegistry = observationRegistry;
+        this.properties = properties;
+    }
+
+    /**
+     * Pointcut for Spring Data repository methods, including inherited ones such as findById
+     */
+    @Pointcut("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public void springDataRepositoryMethods() {}
+
+    /**
+     * Pointcut for the plain JDBC repository
+     */
+    @Pointcut("execution(public * com.github.user_manager.repository.UsersJdbcRepository.*(..))")
+    public void jdbcRepositoryMethods() {}
+
+    @Around("springDataRepositoryMethods() || jdbcRepositoryMethods()")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (properties.getMode() == InstrumentationMode.OFF || observationRegistry.isNoop()) {
+            return joinPoint.proceed();
+        }
+
+        String repository = repositoryName(joinPoint.getThis());
+        String method = joinPoint.getSignature().getName();
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName(repository + "." + method)
+                .lowCardinalityKeyValue("repository", repository)
+                .lowCardinalityKeyValue("method", method)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private String repositoryName(Object proxy) {
+        return repositoryNames.computeIfAbsent(proxy.getClass(), type -> {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (candidate.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return ClassUtils.getUserClass(type).getSimpleName();
+        });
+    }
+}
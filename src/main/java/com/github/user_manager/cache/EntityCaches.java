@@ -0,0 +1,180 @@
+package com.github.user_manager.cache;
+
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Names of the entity caches and the eviction rules shared by every write path.
+ * <p>
+ * A cached {@link Users} embeds its {@link UserProfiles}, so a write to either side evicts both entries.
+ * Inside a transaction the eviction is deferred until after commit; evicting earlier would let a concurrent
+ * read re-cache the row as it was before the write.
+ * <p>
+ * Deferring alone does not close that race: a {@code @Cacheable} read that missed and loaded the row before the
+ * commit can still put it after the eviction. The caches are therefore used through {@link #guard}, which
+ * drops a put when its key was evicted since the miss that led to it.
+ */
+@Component
+public class EntityCaches {
+
+    public static final String USERS = "users";
+    public static final String PROFILES = "profiles";
+
+    /**
+     * Eviction counters, one per stripe of keys. Keys sharing a stripe only cost each other a skipped put.
+     */
+    private static final int EVICTION_STRIPES = 1024;
+
+    private final CacheManager cacheManager;
+    private final AtomicLongArray evictions = new AtomicLongArray(EVICTION_STRIPES);
+    private final Map<String, Cache> guardedCaches = new ConcurrentHashMap<>();
+
+    public EntityCaches(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * {@code cache} with puts that cannot undo an eviction; {@code @Cacheable} methods resolve their caches
+     * through this (see {@code CacheConfig}).
+     */
+    public Cache guard(Cache cache) {
+        return guardedCaches.computeIfAbsent(cache.getName(), name -> new GuardedCache(cache));
+    }
+
+    /**
+     * Evicts the user and, through the {@code userProfiles} cascade, its profile.
+     */
+    public void evictUser(Users user) {
+        Integer profileId = user.getUserProfiles() != null ? user.getUserProfiles().getId() : null;
+        afterCommit(() -> {
+            evict(USERS, user.getId());
+            if (profileId != null) {
+                evict(PROFILES, profileId);
+            }
+        });
+    }
+
+    /**
+     * Evicts the profile and the user that embeds it.
+     */
+    public void evictProfile(UserProfiles profile) {
+        Integer userId = profile.getUser() != null ? profile.getUser().getId() : null;
+        afterCommit(() -> {
+            evict(PROFILES, profile.getId());
+            if (userId != null) {
+                evict(USERS, userId);
+            }
+        });
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            // Counted before evicting: a guarded put either lands before the eviction and is removed by it, or
+            // rechecks the counter afterwards and removes itself.
+            evictions.incrementAndGet(stripe(cacheName, key));
+            cache.evict(key);
+        }
+    }
+
+    private static int stripe(String cacheName, Object key) {
+        return Math.floorMod(Objects.hash(cacheName, key), EVICTION_STRIPES);
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    /**
+     * The key a thread last looked up, with its eviction count at that time.
+     */
+    private record Lookup(Object key, long evictions) {
+    }
+
+    /**
+     * Remembers, per thread, the eviction count at each lookup and only puts a value loaded after a lookup if
+     * its key has not been evicted since. {@code @Cacheable} looks up, invokes the method and puts on the same
+     * thread, so an older row loaded across a write is never cached.
+     */
+    private final class GuardedCache implements Cache {
+
+        private final ThreadLocal<Lookup> lastLookup = new ThreadLocal<>();
+        private final Cache cache;
+
+        GuardedCache(Cache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public String getName() {
+            return cache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return cache.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            lastLookup.set(new Lookup(key, evictions.get(stripe(getName(), key))));
+            return cache.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            lastLookup.set(new Lookup(key, evictions.get(stripe(getName(), key))));
+            return cache.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return cache.get(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            Lookup lookup = lastLookup.get();
+            lastLookup.remove();
+            int stripe = stripe(getName(), key);
+            if (lookup == null || !lookup.key().equals(key) || lookup.evictions() != evictions.get(stripe)) {
+                return;
+            }
+            cache.put(key, value);
+            // An eviction between the check and the put did not see this value; take it out again.
+            if (lookup.evictions() != evictions.get(stripe)) {
+                cache.evict(key);
+            }
+        }
+
+        @Override
+        public void evict(Object key) {
+            cache.evict(key);
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.user_manager.changes;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the change event outbox, bound from {@code user-manager.changes.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.changes")
+public class ChangeEventProperties {
+
+    public enum SinkType {
+        NONE,
+        MEMORY,
+        FILE
+    }
+
+    /**
+     * Pause between relay runs once the outbox is drained.
+     */
+    private Duration relayInterval = Duration.ofSeconds(1);
+
+    /**
+     * Events published per relay transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * How long published events stay in the feed; older ones are deleted and cursors before them get 410 Gone.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Pause between runs deleting events older than {@link #retention}.
+     */
+    private Duration pruneInterval = Duration.ofHours(1);
+
+    /**
+     * Sink the relay publishes to besides the SSE subscribers.
+     */
+    private SinkType sink = SinkType.NONE;
+
+    /**
+     * NDJSON file appended to by the {@link SinkType#FILE} sink.
+     */
+    private Path file = Path.of("change-events.ndjson");
+
+    /**
+     * Events retained by the {@link SinkType#MEMORY} sink.
+     */
+    private int memoryCapacity = 10_000;
+
+    /**
+     * How long an SSE subscription stays open; clients reconnect with {@code Last-Event-ID}.
+     */
+    private Duration sseTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Events queued per SSE subscriber; a subscriber that falls further behind reads on from the feed instead.
+     */
+    private int sseQueueCapacity = 1_000;
+}
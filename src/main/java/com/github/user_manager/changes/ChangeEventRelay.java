@@ -0,0 +1,252 @@
+package com.github.user_manager.changes;
+
+import com.github.user_manager.dto.ChangeEventView;
+import com.github.user_manager.entity.ChangeEvent;
+import com.github.user_manager.entity.ChangeRelayState;
+import com.github.user_manager.repository.ChangeEventRepository;
+import com.github.user_manager.repository.ChangeRelayStateRepository;
+import com.github.user_manager.sharding.Shards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves outbox events into the change feed and hands them to the {@link ChangeEventSink}s.
+ * <p>
+ * Each run drains the outbox in batches, one transaction per batch: lock the {@link ChangeRelayState} row,
+ * take the oldest unpublished events, give them the next positions, publish them to the sinks and commit.
+ * The row lock serializes relays across instances, so positions are contiguous and become visible in order.
+ * Events are taken by {@code insert_order}, not by id: ids are handed out in blocks per instance, so two
+ * updates of the same user from different instances could otherwise be published in reverse order.
+ * <p>
+ * Sharded, mutations write their events on the user's shard, while the relay state and the feed live on the
+ * home shard. Each run therefore first moves the other shards' unpublished events to the home outbox, keeping
+ * their ids, creation times and, within each shard, their order: copy on home, then delete on the shard. Events already
+ * copied by a run that failed before the delete are recognized by id and only deleted, so none is forwarded
+ * twice.
+ * <p>
+ * Every {@code prune-interval} the relay also deletes published events older than {@code retention}, in
+ * position order and in batches under the same row lock, and records the last deleted position as
+ * {@link ChangeRelayState#getPrunedPosition()}.
+ */
+@Slf4j
+@Component
+public class ChangeEventRelay implements SmartLifecycle {
+
+    // Plain JDBC, so the copy keeps the shard's id and created_at; position and published_at stay unset and
+    // insert_order is drawn on home.
+    private static final String COPY_EVENT = """
+            INSERT INTO change_events (id, aggregate, aggregate_id, type, payload, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final ChangeEventRepository changeEventRepository;
+    private final ChangeRelayStateRepository relayStateRepository;
+    private final List<ChangeEventSink> sinks;
+    private final ChangeEventProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+
+    private ScheduledExecutorService scheduler;
+
+    public ChangeEventRelay(ChangeEventRepository changeEventRepository,
+                            ChangeRelayStateRepository relayStateRepository,
+                            List<ChangeEventSink> sinks,
+                            ChangeEventProperties properties,
+                            PlatformTransactionManager transactionManager,
+                            JdbcTemplate jdbcTemplate,
+                            ObjectProvider<Shards> shards) {
+        this.changeEventRepository = changeEventRepository;
+        this.relayStateRepository = relayStateRepository;
+        this.sinks = sinks;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards.getIfAvailable();
+    }
+
+    /**
+     * Publishes everything currently in the outbox.
+     *
+     * @return the number of events published
+     */
+    public int relay() {
+        if (shards != null) {
+            forwardFromShards();
+        }
+        int published = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> publishBatch());
+            published += batch;
+        } while (batch == properties.getBatchSize());
+        return published;
+    }
+
+    private int publishBatch() {
+        ChangeRelayState state = relayStateRepository.findLockedById(ChangeRelayState.ID)
+                .orElseGet(this::createState);
+        List<ChangeEvent> events = changeEventRepository.findByPublishedAtIsNullOrderByInsertOrderAsc(
+                Limit.of(properties.getBatchSize()));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        long position = state.getLastPosition();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<ChangeEventView> views = new ArrayList<>(events.size());
+        for (ChangeEvent event : events) {
+            event.setPosition(++position);
+            event.setPublishedAt(now);
+            views.add(ChangeEventView.of(event));
+        }
+        state.setLastPosition(position);
+
+        for (ChangeEventSink sink : sinks) {
+            sink.publish(views);
+        }
+        return events.size();
+    }
+
+    /**
+     * Deletes the published events older than the retention period.
+     *
+     * @return the number of events deleted
+     */
+    public int prune() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - properties.getRetention().toMillis());
+        int pruned = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> pruneBatch(cutoff));
+            pruned += batch;
+        } while (batch == properties.getBatchSize());
+        return pruned;
+    }
+
+    private int pruneBatch(Timestamp cutoff) {
+        ChangeRelayState state = relayStateRepository.findLockedById(ChangeRelayState.ID).orElse(null);
+        if (state == null) {
+            return 0;
+        }
+        List<ChangeEvent> expired = changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(
+                        state.getPrunedPosition(), Limit.of(properties.getBatchSize())).stream()
+                .takeWhile(event -> event.getPublishedAt().before(cutoff))
+                .toList();
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        changeEventRepository.deleteAllByIdInBatch(expired.stream().map(ChangeEvent::getId).toList());
+        state.setPrunedPosition(expired.getLast().getPosition());
+        return expired.size();
+    }
+
+    private void forwardFromShards() {
+        for (String shard : shards.names()) {
+            if (shard.equals(shards.home())) {
+                continue;
+            }
+            List<ChangeEvent> events;
+            do {
+                Limit limit = Limit.of(properties.getBatchSize());
+                events = shards.callOn(shard, () -> transactionTemplate.execute(status ->
+                        changeEventRepository.findByPublishedAtIsNullOrderByInsertOrderAsc(limit)));
+                if (events.isEmpty()) {
+                    break;
+                }
+                List<ChangeEvent> batch = events;
+                transactionTemplate.executeWithoutResult(status -> copyToHome(batch));
+                List<Long> ids = batch.stream().map(ChangeEvent::getId).toList();
+                shards.runOn(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                        changeEventRepository.deleteAllByIdInBatch(ids)));
+            } while (events.size() == properties.getBatchSize());
+        }
+    }
+
+    private void copyToHome(List<ChangeEvent> events) {
+        Set<Long> copied = changeEventRepository.findAllById(events.stream().map(ChangeEvent::getId).toList())
+                .stream()
+                .map(ChangeEvent::getId)
+                .collect(Collectors.toSet());
+        jdbcTemplate.batchUpdate(COPY_EVENT, events.stream()
+                .filter(event -> !copied.contains(event.getId()))
+                .map(event -> new Object[]{event.getId(), event.getAggregate().name(), event.getAggregateId(),
+                        event.getType().name(), event.getPayload(), event.getCreatedAt()})
+                .toList());
+    }
+
+    /**
+     * First run against an empty table. If another instance inserts the row concurrently, this batch fails
+     * on the primary key and the next run finds the row.
+     */
+    private ChangeRelayState createState() {
+        ChangeRelayState state = new ChangeRelayState();
+        state.setId(ChangeRelayState.ID);
+        return relayStateRepository.saveAndFlush(state);
+    }
+
+    private void runSafely() {
+        try {
+            relay();
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Relay state was created concurrently, retrying on the next run");
+        } catch (RuntimeException e) {
+            log.error("Publishing change events failed, retrying in {}", properties.getRelayInterval(), e);
+        }
+    }
+
+    private void pruneSafely() {
+        try {
+            int pruned = prune();
+            if (pruned > 0) {
+                log.info("Deleted {} change events older than {}", pruned, properties.getRetention());
+            }
+        } catch (RuntimeException e) {
+            log.error("Pruning change events failed, retrying in {}", properties.getPruneInterval(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("change-relay")
+                .daemon(true)
+                .factory());
+        long interval = properties.getRelayInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.MILLISECONDS);
+        long pruneInterval = properties.getPruneInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::pruneSafely, pruneInterval, pruneInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(properties.getRelayInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
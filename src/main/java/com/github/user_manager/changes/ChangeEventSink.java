@@ -0,0 +1,15 @@
+package com.github.user_manager.changes;
+
+import com.github.user_manager.dto.ChangeEventView;
+
+import java.util.List;
+
+/**
+ * Destination of published change events. The relay calls every sink bean with each batch, in feed order,
+ * before committing the batch: a sink that throws makes the batch roll back and be retried, so delivery is
+ * at-least-once and consumers deduplicate on {@link ChangeEventView#eventId()}.
+ */
+public interface ChangeEventSink {
+
+    void publish(List<ChangeEventView> events);
+}
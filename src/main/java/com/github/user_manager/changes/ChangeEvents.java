@@ -0,0 +1,50 @@
+package com.github.user_manager.changes;
+
+import com.github.user_manager.entity.ChangeEvent;
+import com.github.user_manager.entity.ChangeEvent.Aggregate;
+import com.github.user_manager.entity.ChangeEvent.Type;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Appends change events to the outbox. Must be called inside the transaction of the write it describes, so
+ * the event commits or rolls back together with it, and after that write was flushed: the event's insert
+ * order is then drawn while the transaction holds the row lock, which orders it after every earlier change
+ * of the same row. Hibernate executes deletes after inserts, so deletions flush explicitly.
+ */
+@Component
+public class ChangeEvents {
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ChangeEvents(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userChanged(Type type, Users user) {
+        append(Aggregate.USER, user.getId(), type, type == Type.DELETED ? null : objectMapper.writeValueAsString(user));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void profileChanged(Type type, UserProfiles profile) {
+        append(Aggregate.PROFILE, profile.getId(), type,
+                type == Type.DELETED ? null : objectMapper.writeValueAsString(profile));
+    }
+
+    private void append(Aggregate aggregate, int aggregateId, Type type, String payload) {
+        ChangeEvent event = new ChangeEvent();
+        event.setAggregate(aggregate);
+        event.setAggregateId(aggregateId);
+        event.setType(type);
+        event.setPayload(payload);
+        entityManager.persist(event);
+    }
+}
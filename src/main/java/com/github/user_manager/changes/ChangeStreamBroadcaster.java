@@ -0,0 +1,185 @@
+package com.github.user_manager.changes;
+
+import com.github.user_manager.dto.ChangeEventView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Server-Sent Events subscribers of the change feed; a sink that forwards every published batch to them.
+ * <p>
+ * Every subscriber has a sender on its own virtual thread and a queue of at most {@code sse-queue-capacity}
+ * events. The relay only appends to the queues, so a slow or stalled client never holds up publishing or the
+ * other subscribers. The sender first replays the feed from the subscriber's {@code Last-Event-ID}, then sends
+ * what is queued. A subscriber whose queue would overflow has it dropped and goes back to replaying from the
+ * last position it sent; the feed still has every dropped event. Only positions greater than the last one sent
+ * go out, so the stream stays in order without gaps or repeats.
+ */
+@Slf4j
+@Component
+public class ChangeStreamBroadcaster implements ChangeEventSink {
+
+    static final String EVENT_NAME = "change";
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ChangeEventProperties properties;
+
+    public ChangeStreamBroadcaster(ChangeEventProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Opens a stream starting after position {@code since}.
+     *
+     * @param pageAfter loads the next published changes after a position, empty once caught up
+     */
+    public SseEmitter subscribe(long since, LongFunction<List<ChangeEventView>> pageAfter) {
+        SseEmitter emitter = new SseEmitter(properties.getSseTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, since, pageAfter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        Thread.ofVirtual().name("change-stream").start(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Forwards the batch once the relay transaction commits, so subscribers never see positions that a
+     * rolled-back batch hands out again.
+     */
+    @Override
+    public void publish(List<ChangeEventView> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcast(events);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                broadcast(events);
+            }
+        });
+    }
+
+    private void broadcast(List<ChangeEventView> events) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(events);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final LongFunction<List<ChangeEventView>> pageAfter;
+        // Only used by the sender thread.
+        private long lastSent;
+
+        // Guarded by this.
+        private final Deque<ChangeEventView> queue = new ArrayDeque<>();
+        private boolean replay = true;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter, long since, LongFunction<List<ChangeEventView>> pageAfter) {
+            this.emitter = emitter;
+            this.lastSent = since;
+            this.pageAfter = pageAfter;
+        }
+
+        /**
+         * Called by the relay; never waits for the client.
+         */
+        synchronized void offer(List<ChangeEventView> events) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() + events.size() > properties.getSseQueueCapacity()) {
+                queue.clear();
+                replay = true;
+            } else {
+                queue.addAll(events);
+            }
+            notifyAll();
+        }
+
+        synchronized void close() {
+            closed = true;
+            queue.clear();
+            subscribers.remove(this);
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<ChangeEventView> events;
+                while ((events = next()) != null) {
+                    send(events);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Closing change stream subscriber: {}", e.getMessage());
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * The next events to send: a page of the feed while replaying, otherwise what is queued, waiting for
+         * it if need be; {@code null} once closed.
+         */
+        private List<ChangeEventView> next() throws InterruptedException {
+            synchronized (this) {
+                while (!closed && !replay && queue.isEmpty()) {
+                    wait();
+                }
+                if (closed) {
+                    return null;
+                }
+                if (!replay) {
+                    List<ChangeEventView> events = new ArrayList<>(queue);
+                    queue.clear();
+                    return events;
+                }
+                replay = false;
+            }
+            // Read outside the lock so the relay can keep queueing; an overflow meanwhile sets replay again.
+            List<ChangeEventView> page = pageAfter.apply(lastSent);
+            if (!page.isEmpty()) {
+                synchronized (this) {
+                    replay = true;
+                }
+            }
+            return page;
+        }
+
+        private void send(List<ChangeEventView> events) throws IOException {
+            for (ChangeEventView event : events) {
+                if (event.position() > lastSent) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.position()))
+                            .name(EVENT_NAME)
+                            .data(event));
+                    lastSent = event.position();
+                }
+            }
+        }
+    }
+}
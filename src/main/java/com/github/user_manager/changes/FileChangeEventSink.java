@@ -0,0 +1,45 @@
+package com.github.user_manager.changes;
+
+import com.github.user_manager.dto.ChangeEventView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends published events as NDJSON lines to {@code user-manager.changes.file}, one write per batch.
+ * Enabled with {@code user-manager.changes.sink=file}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "user-manager.changes", name = "sink", havingValue = "file")
+public class FileChangeEventSink implements ChangeEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileChangeEventSink(ChangeEventProperties properties, ObjectMapper objectMapper) {
+        this.file = properties.getFile();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<ChangeEventView> events) {
+        try (OutputStream out = new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            for (ChangeEventView event : events) {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append change events to " + file, e);
+        }
+    }
+}
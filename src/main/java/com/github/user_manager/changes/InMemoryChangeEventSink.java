@@ -0,0 +1,47 @@
+package com.github.user_manager.changes;
+
+import com.github.user_manager.dto.ChangeEventView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent published events in memory, for tests and local inspection.
+ * Enabled with {@code user-manager.changes.sink=memory}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "user-manager.changes", name = "sink", havingValue = "memory")
+public class InMemoryChangeEventSink implements ChangeEventSink {
+
+    private final int capacity;
+    private final Deque<ChangeEventView> events;
+
+    public InMemoryChangeEventSink(ChangeEventProperties properties) {
+        this.capacity = properties.getMemoryCapacity();
+        this.events = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public synchronized void publish(List<ChangeEventView> batch) {
+        for (ChangeEventView event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    /**
+     * Retained events, oldest first.
+     */
+    public synchronized List<ChangeEventView> events() {
+        return List.copyOf(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
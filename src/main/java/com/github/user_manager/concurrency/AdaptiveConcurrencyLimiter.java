@@ -0,0 +1,86 @@
+package com.github.user_manager.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient-style concurrency limiter.
+ * <p>
+ * The limit follows {@code limit * min(1, tolerance * minRtt / rtt) + sqrt(limit)}: while latency stays near
+ * the best observed value it grows by a small queue allowance, and once callers start waiting (e.g. for a pool
+ * connection) latency rises and the limit shrinks towards what the pool can actually serve. Calls above the
+ * limit are rejected immediately instead of queueing.
+ * <p>
+ * Updates use {@link ReentrantLock#tryLock()} so a contended sample is skipped rather than making the caller
+ * wait, and so virtual threads are not pinned as they would be by {@code synchronized}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * The minimum RTT is re-learned after this many samples, so the limiter follows a slower database.
+     */
+    private static final int MIN_RTT_RESET_SAMPLES = 1_000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private volatile double limit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Takes a slot if the current limit allows it; every successful call must be paired with {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos) {
+        inFlight.decrementAndGet();
+        if (!updateLock.tryLock()) {
+            return;
+        }
+        try {
+            if (++samples >= MIN_RTT_RESET_SAMPLES) {
+                samples = 0;
+                minRttNanos = Long.MAX_VALUE;
+            }
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+
+            double gradient = Math.clamp(rttTolerance * minRttNanos / Math.max(rttNanos, 1), 0.5, 1.0);
+            double target = limit * gradient + Math.sqrt(limit);
+            limit = Math.clamp((1 - smoothing) * limit + smoothing * target, minLimit, maxLimit);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
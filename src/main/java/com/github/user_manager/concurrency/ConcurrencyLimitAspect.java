@@ -0,0 +1,104 @@
+package com.github.user_manager.concurrency;
+
+import com.github.user_manager.datasource.ConnectionPools;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Guards the data layer with an {@link AdaptiveConcurrencyLimiter} sized from the connection pools in use:
+ * the sum of their {@code maximum-pool-size}, so routing and sharding count every replica and shard pool.
+ * <p>
+ * Applied to the service methods that take connections: {@code @Transactional} ones and those marked
+ * {@link ConcurrencyLimited}. Calls that only wait, such as cache hits (the cache advice runs first, see
+ * {@code CacheConfig}), profile loads coalesced by the {@code ProfileLoader} or the long-running NDJSON
+ * stream, take no slot. Ordered before the transaction advice so a rejected call never touches the pool.
+ * Nested service calls on the same thread reuse the outer slot.
+ * <p>
+ * On by default only with virtual threads: on platform threads Tomcat's thread pool already caps the requests
+ * that reach the data layer. {@code user-manager.concurrency-limit.enabled} overrides that either way.
+ * <p>
+ * Background work with its own fixed concurrency runs {@link #exempt exempt} from the limit: a rejection
+ * would fail it halfway, and a long-running call would hold a slot that request traffic needs.
+ */
+@Aspect
+@Component
+@Order(0)
+@ConditionalOnExpression("${user-manager.concurrency-limit.enabled:${spring.threads.virtual.enabled:false}}")
+public class ConcurrencyLimitAspect {
+
+    // Set while the thread holds a slot or runs exempt work.
+    private static final ThreadLocal<Boolean> HOLDS_SLOT = new ThreadLocal<>();
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long retryAfterSeconds;
+    private final Counter rejections;
+
+    public ConcurrencyLimitAspect(ConcurrencyLimitProperties properties,
+                                  MeterRegistry meterRegistry,
+                                  ConnectionPools connectionPools) {
+        int poolSize = connectionPools.maximumSize();
+        // Never below the pool size: the pools serve that many calls without queueing, and under a CPU-bound
+        // load the gradient alone settles near 4 whatever the pool size, leaving connections idle.
+        this.limiter = new AdaptiveConcurrencyLimiter(
+                poolSize,
+                poolSize,
+                (int) Math.ceil(poolSize * properties.getMaxPoolMultiplier()),
+                properties.getRttTolerance(),
+                properties.getSmoothing());
+        this.retryAfterSeconds = properties.getRetryAfterSeconds();
+        this.rejections = Counter.builder("user_manager.concurrency.rejected")
+                .description("Calls rejected by the data layer concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("user_manager.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current data layer concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("user_manager.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calls currently holding a data layer slot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} on the current thread without taking slots for the service calls it makes.
+     */
+    public static void exempt(Runnable task) {
+        if (HOLDS_SLOT.get() != null) {
+            task.run();
+            return;
+        }
+        HOLDS_SLOT.set(Boolean.TRUE);
+        try {
+            task.run();
+        } finally {
+            HOLDS_SLOT.remove();
+        }
+    }
+
+    @Around("execution(* com.github.user_manager.service..*(..)) && "
+            + "(@annotation(org.springframework.transaction.annotation.Transactional) || "
+            + "@annotation(com.github.user_manager.concurrency.ConcurrencyLimited))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (HOLDS_SLOT.get() != null) {
+            return joinPoint.proceed();
+        }
+        if (!limiter.tryAcquire()) {
+            rejections.increment();
+            throw new ConcurrencyLimitExceededException(retryAfterSeconds);
+        }
+
+        HOLDS_SLOT.set(Boolean.TRUE);
+        long startTime = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            HOLDS_SLOT.remove();
+            limiter.release(System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.user_manager.concurrency;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Rejection by the {@link AdaptiveConcurrencyLimiter}; rendered as 503 with a {@code Retry-After} header.
+ * No stack trace is captured since rejections are expected under load and must stay cheap.
+ */
+public class ConcurrencyLimitExceededException extends ResponseStatusException {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    public ConcurrencyLimitExceededException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests, retry later");
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.user_manager.concurrency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the adaptive limiter in front of the data layer, bound from {@code user-manager.concurrency-limit.*}.
+ * Limits are expressed as multiples of the connection pool size, summed over all pools in use.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * Defaults to {@code spring.threads.virtual.enabled}; evaluated as a bean condition, see {@link ConcurrencyLimitAspect}.
+     */
+    private Boolean enabled;
+
+    /**
+     * Upper bound of the limit, as a multiple of the summed {@code maximum-pool-size}.
+     */
+    private double maxPoolMultiplier = 2.0;
+
+    /**
+     * Latency increase over the observed minimum that is tolerated before the limit shrinks.
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Weight of a new sample when moving the limit; lower is smoother.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Value of the {@code Retry-After} header on rejected requests.
+     */
+    private long retryAfterSeconds = 1;
+}
@@ -0,0 +1,15 @@
+package com.github.user_manager.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a service method that takes connections through a {@code TransactionTemplate} under the
+ * {@link ConcurrencyLimitAspect}, as {@code @Transactional} service methods are.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+}
@@ -0,0 +1,38 @@
+package com.github.user_manager.config;
+
+import com.github.user_manager.cache.EntityCaches;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables the in-process Caffeine caches declared under {@code spring.cache}.
+ * <p>
+ * The cache advice runs before every other advice, so a cache hit takes no concurrency limit slot, shard
+ * lookup or transaction. It sees the caches through {@link EntityCaches#guard}, so a read racing a write
+ * cannot re-cache the old row; the cache manager, metrics and actuator still see the plain caches.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig implements CachingConfigurer {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final ObjectProvider<EntityCaches> entityCaches;
+
+    public CacheConfig(ObjectProvider<CacheManager> cacheManager, ObjectProvider<EntityCaches> entityCaches) {
+        this.cacheManager = cacheManager;
+        this.entityCaches = entityCaches;
+    }
+
+    @Override
+    public CacheResolver cacheResolver() {
+        SimpleCacheResolver resolver = new SimpleCacheResolver(cacheManager.getObject());
+        EntityCaches guard = entityCaches.getObject();
+        return context -> resolver.resolveCaches(context).stream().map(guard::guard).toList();
+    }
+}
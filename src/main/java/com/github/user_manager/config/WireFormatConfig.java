@@ -0,0 +1,25 @@
+package com.github.user_manager.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binary alternatives to JSON, selected through {@code Accept} / {@code Content-Type}:
+ * {@code application/cbor} and {@code application/x-jackson-smile}. They encode the same Jackson model as the
+ * JSON converter, so every endpoint supports them without changes.
+ * <p>
+ * Registered through the builder rather than as converter beans so they keep their place after JSON, which
+ * therefore stays the answer to {@code Accept: *}{@code /*}.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.withCborConverter(new JacksonCborHttpMessageConverter())
+                .withSmileConverter(new JacksonSmileHttpMessageConverter());
+    }
+}
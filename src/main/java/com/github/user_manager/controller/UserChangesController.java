@@ -0,0 +1,32 @@
+package com.github.user_manager.controller;
+
+import com.github.user_manager.api.UserChangesApi;
+import com.github.user_manager.dto.ChangeFeedPage;
+import com.github.user_manager.service.ChangeFeedService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@Profile("!reactive")
+public class UserChangesController implements UserChangesApi {
+
+    private final ChangeFeedService changeFeedService;
+
+    public UserChangesController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @Override
+    public ResponseEntity<ChangeFeedPage> getChanges(Long since, Integer limit) {
+        ChangeFeedPage page = changeFeedService.getChanges(since, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @Override
+    public SseEmitter streamChanges(Long since, Long lastEventId) {
+        return changeFeedService.streamChanges(lastEventId != null ? lastEventId : since);
+    }
+
+}
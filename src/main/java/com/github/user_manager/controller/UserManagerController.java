@@ -1,45 +1,180 @@
 package com.github.user_manager.controller;
 
 import com.github.user_manager.api.UserManagerApi;
+import com.github.user_manager.dto.BatchResult;
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.PageRevision;
+import com.github.user_manager.dto.UserSummary;
+import com.github.user_manager.dto.UserView;
 import com.github.user_manager.entity.Users;
+import com.github.user_manager.idempotency.IdempotentRequests;
+import com.github.user_manager.service.UserBatchService;
 import com.github.user_manager.service.UserManagerService;
+import com.github.user_manager.snapshot.UserSnapshot;
+import com.github.user_manager.web.ETags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 public class UserManagerController implements UserManagerApi {
 
     private final UserManagerService userManagerService;
+    private final UserBatchService userBatchService;
+    private final IdempotentRequests idempotentRequests;
+    private final ObjectMapper objectMapper;
+    private final UserSnapshot userSnapshot;
 
-    public UserManagerController(UserManagerService userManagerService) {
+    public UserManagerController(UserManagerService userManagerService,
+                                 UserBatchService userBatchService,
+                                 IdempotentRequests idempotentRequests,
+                                 ObjectMapper objectMapper,
+                                 ObjectProvider<UserSnapshot> userSnapshot) {
         this.userManagerService = userManagerService;
+        this.userBatchService = userBatchService;
+        this.idempotentRequests = idempotentRequests;
+        this.objectMapper = objectMapper;
+        this.userSnapshot = userSnapshot.getIfAvailable();
     }
 
     @Override
-    public ResponseEntity<List<Users>> getUsers() {
-        List<Users> allUsers = userManagerService.getAllUsers();
-        return ResponseEntity.ok(allUsers);
+    public ResponseEntity<CursorPage<UserView>> getUsers(Integer limit, Integer after, String fields,
+                                                         String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // Revalidation: one aggregate query decides, and only a changed page is loaded.
+            String eTag = ETags.of(userManagerService.getUsersRevision(limit, after, fields), fields);
+            if (ETags.isNotModified(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                        .build();
+            }
+        }
+        CursorPage<UserView> page = userManagerService.getUsers(limit, after, fields);
+        String eTag = ETags.of(PageRevision.of(page), fields);
+        return ResponseEntity.ok()
+                .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                .body(page);
     }
 
     @Override
-    public ResponseEntity<Users> createUser(Users user) {
-        Users savedUser = userManagerService.saveUser(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
+    public ResponseEntity<CursorPage<UserSummary>> searchUsers(String team, String unit, String name,
+                                                              String sort, String direction,
+                                                              Integer limit, String after) {
+        CursorPage<UserSummary> page = userManagerService.searchUsers(team, unit, name, sort, direction, limit, after);
+        return ResponseEntity.ok(page);
     }
 
     @Override
-    public ResponseEntity<Users> updateUser(Integer id, Users user) {
-        Users updatedUser = userManagerService.updateUser(id, user);
-        return ResponseEntity.ok(updatedUser);
+    public ResponseEntity<StreamingResponseBody> getUsersSnapshot(String ifNoneMatch) {
+        if (userSnapshot == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The user snapshot is not enabled");
+        }
+        UserSnapshot.View view = userSnapshot.current();
+        if (view == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The user snapshot is still being built");
+        }
+        String eTag = ETags.ofSnapshot(view.version());
+        if (ETags.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag).cacheControl(ETags.REVALIDATE)
+                    .header(UserSnapshot.VERSION_HEADER, String.valueOf(view.version()))
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag).cacheControl(ETags.REVALIDATE)
+                .header(UserSnapshot.VERSION_HEADER, String.valueOf(view.version()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(view::writeTo);
     }
 
     @Override
-    public ResponseEntity<Void> deleteUser(Integer id) {
-        userManagerService.deleteUser(id);
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        StreamingResponseBody body = outputStream ->
+                userManagerService.streamUsers(user -> writeLine(outputStream, user));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Override
+    public ResponseEntity<Users> getUserById(Integer id, String ifNoneMatch) {
+        Users user = userManagerService.getUserById(id);
+        String eTag = ETags.of(user);
+        if (ETags.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                .body(user);
+    }
+
+    @Override
+    public ResponseEntity<Users> createUser(String idempotencyKey, Users user) {
+        return idempotentRequests.execute(idempotencyKey, user, Users.class, () -> {
+            Users savedUser = userManagerService.saveUser(user);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
+        });
+    }
+
+    @Override
+    public ResponseEntity<Users> updateUser(Integer id, String ifMatch, Users user) {
+        Users updatedUser = userManagerService.updateUser(id, user, ifMatch);
+        return ResponseEntity.ok().eTag(ETags.of(updatedUser)).body(updatedUser);
+    }
+
+    @Override
+    public ResponseEntity<Users> patchUser(Integer id, String ifMatch, JsonNode patch) {
+        Users patchedUser = userManagerService.patchUser(id, patch, ifMatch);
+        return ResponseEntity.ok().eTag(ETags.of(patchedUser)).body(patchedUser);
+    }
+
+    @Override
+    public ResponseEntity<Void> deleteUser(Integer id, String ifMatch) {
+        userManagerService.deleteUser(id, ifMatch);
         return ResponseEntity.noContent().build();
     }
 
+    @Override
+    public ResponseEntity<BatchResult> createUsers(List<Users> users) {
+        BatchResult result = userBatchService.createUsers(users);
+        return ResponseEntity.ok(result);
+    }
+
+    @Override
+    public ResponseEntity<BatchResult> updateUsers(List<Users> users) {
+        BatchResult result = userBatchService.updateUsers(users);
+        return ResponseEntity.ok(result);
+    }
+
+    @Override
+    public ResponseEntity<BatchResult> deleteUsers(List<Integer> ids) {
+        BatchResult result = userBatchService.deleteUsers(ids);
+        return ResponseEntity.ok(result);
+    }
+
+    private void writeLine(OutputStream outputStream, Users user) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(user));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 }
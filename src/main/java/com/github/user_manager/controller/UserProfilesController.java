@@ -1,15 +1,21 @@
 package com.github.user_manager.controller;
 
 import com.github.user_manager.api.UserProfilesApi;
+import com.github.user_manager.dto.ProfileView;
 import com.github.user_manager.entity.UserProfiles;
 import com.github.user_manager.service.UserProfilesService;
+import com.github.user_manager.web.ETags;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.JsonNode;
 
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 public class UserProfilesController implements UserProfilesApi {
 
     private final UserProfilesService userProfilesService;
@@ -19,15 +25,23 @@ public class UserProfilesController implements UserProfilesApi {
     }
 
     @Override
-    public ResponseEntity<List<UserProfiles>> getProfiles() {
-        List<UserProfiles> allProfiles = userProfilesService.getAllProfiles();
+    public ResponseEntity<List<ProfileView>> getProfiles(String fields) {
+        List<ProfileView> allProfiles = userProfilesService.getAllProfiles(fields);
         return ResponseEntity.ok(allProfiles);
     }
 
     @Override
-    public ResponseEntity<UserProfiles> getProfileById(Integer id) {
+    public ResponseEntity<UserProfiles> getProfileById(Integer id, String ifNoneMatch) {
         UserProfiles profile = userProfilesService.getProfileById(id);
-        return ResponseEntity.ok(profile);
+        String eTag = ETags.of(profile);
+        if (ETags.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                .body(profile);
     }
 
     @Override
@@ -37,14 +51,20 @@ public class UserProfilesController implements UserProfilesApi {
     }
 
     @Override
-    public ResponseEntity<UserProfiles> updateProfile(Integer id, UserProfiles profile) {
-        UserProfiles updatedProfile = userProfilesService.updateProfile(id, profile);
-        return ResponseEntity.ok(updatedProfile);
+    public ResponseEntity<UserProfiles> updateProfile(Integer id, String ifMatch, UserProfiles profile) {
+        UserProfiles updatedProfile = userProfilesService.updateProfile(id, profile, ifMatch);
+        return ResponseEntity.ok().eTag(ETags.of(updatedProfile)).body(updatedProfile);
     }
 
     @Override
-    public ResponseEntity<Void> deleteProfile(Integer id) {
-        userProfilesService.deleteProfile(id);
+    public ResponseEntity<UserProfiles> patchProfile(Integer id, String ifMatch, JsonNode patch) {
+        UserProfiles patchedProfile = userProfilesService.patchProfile(id, patch, ifMatch);
+        return ResponseEntity.ok().eTag(ETags.of(patchedProfile)).body(patchedProfile);
+    }
+
+    @Override
+    public ResponseEntity<Void> deleteProfile(Integer id, String ifMatch) {
+        userProfilesService.deleteProfile(id, ifMatch);
         return ResponseEntity.noContent().build();
     }
 
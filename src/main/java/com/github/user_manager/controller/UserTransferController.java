@@ -0,0 +1,68 @@
+package com.github.user_manager.controller;
+
+import com.github.user_manager.api.UserTransferApi;
+import com.github.user_manager.dto.TransferJobView;
+import com.github.user_manager.service.UserTransferService;
+import com.github.user_manager.transfer.TransferJob;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+@RestController
+@Profile("!reactive")
+public class UserTransferController implements UserTransferApi {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final UserTransferService userTransferService;
+
+    public UserTransferController(UserTransferService userTransferService) {
+        this.userTransferService = userTransferService;
+    }
+
+    @Override
+    public ResponseEntity<TransferJobView> importUsers(MultipartFile file, String format) {
+        return accepted(userTransferService.startImport(file, format));
+    }
+
+    @Override
+    public ResponseEntity<TransferJobView> exportUsers(String format) {
+        return accepted(userTransferService.startExport(format));
+    }
+
+    @Override
+    public ResponseEntity<TransferJobView> getJob(String id) {
+        return ResponseEntity.ok(userTransferService.getJob(id).view());
+    }
+
+    @Override
+    public ResponseEntity<Resource> getExportFile(String id) {
+        TransferJob job = userTransferService.getJob(id);
+        Path file = userTransferService.getExportFile(id);
+        String filename = "users" + job.format().extension() + ".gz";
+        // Already compressed; served as is so server.compression does not gzip it a second time.
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
+    private static ResponseEntity<TransferJobView> accepted(TransferJob job) {
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/jobs/{id}")
+                .buildAndExpand(job.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job.view());
+    }
+}
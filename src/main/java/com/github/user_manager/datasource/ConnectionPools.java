@@ -0,0 +1,59 @@
+package com.github.user_manager.datasource;
+
+import com.github.user_manager.sharding.ShardPools;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Hikari pools behind the application's datasource: every shard pool with {@code user-manager.sharding},
+ * the primary and replica pools with {@code user-manager.datasource.routing}, otherwise the auto-configured
+ * pool. The routing datasources are not pools themselves, so anything sized from or warming the pools has to
+ * look through them.
+ */
+@Component
+public class ConnectionPools {
+
+    /**
+     * Hikari's default {@code maximum-pool-size}, assumed for a datasource that is no Hikari pool.
+     */
+    private static final int DEFAULT_MAXIMUM_SIZE = 10;
+
+    private final List<HikariDataSource> pools;
+
+    public ConnectionPools(DataSource dataSource,
+                           ObjectProvider<RoutingPools> routingPools,
+                           ObjectProvider<ShardPools> shardPools) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        shardPools.ifAvailable(shards -> pools.addAll(shards.pools().values()));
+        routingPools.ifAvailable(routing -> {
+            pools.add(routing.primary());
+            pools.addAll(routing.replicas());
+        });
+        if (pools.isEmpty() && dataSource instanceof HikariDataSource hikari) {
+            pools.add(hikari);
+        }
+        this.pools = List.copyOf(pools);
+    }
+
+    /**
+     * @return the pools, empty if the datasource is no Hikari pool
+     */
+    public List<HikariDataSource> all() {
+        return pools;
+    }
+
+    /**
+     * Connections all pools together hand out at most.
+     */
+    public int maximumSize() {
+        if (pools.isEmpty()) {
+            return DEFAULT_MAXIMUM_SIZE;
+        }
+        return pools.stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.user_manager.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings of read/write routing, bound from {@code user-manager.datasource.routing.*}.
+ * The pools themselves are bound from {@code primary} and {@code replicas[n]} in {@link RoutingDataSourceConfig}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * How long reads from a client stay on the primary after that client mutated something.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    private Duration healthCheckTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,35 @@
+package com.github.user_manager.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * <p>
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the
+ * read-only flag of a transaction is only known after it has begun, so the physical connection has to be
+ * fetched lazily.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    public static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    private final ReplicaHealthChecker replicaHealthChecker;
+
+    public ReadWriteRoutingDataSource(ReplicaHealthChecker replicaHealthChecker) {
+        this.replicaHealthChecker = replicaHealthChecker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReadYourWritesContext.isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        return replicaHealthChecker.nextHealthyReplica().orElse(PRIMARY);
+    }
+}
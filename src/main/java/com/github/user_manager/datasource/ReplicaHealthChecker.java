@@ -0,0 +1,82 @@
+package com.github.user_manager.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Periodically validates each replica pool and hands out healthy replicas round-robin.
+ * A replica that fails validation is skipped until a later check succeeds.
+ */
+@Slf4j
+public class ReplicaHealthChecker implements AutoCloseable {
+
+    private final List<String> replicaKeys;
+    private final List<DataSource> replicas;
+    private final AtomicReferenceArray<Boolean> healthy;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final int timeoutSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    public ReplicaHealthChecker(List<String> replicaKeys, List<DataSource> replicas, Duration interval, Duration timeout) {
+        this.replicaKeys = List.copyOf(replicaKeys);
+        this.replicas = List.copyOf(replicas);
+        this.healthy = new AtomicReferenceArray<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            healthy.set(i, Boolean.TRUE);
+        }
+        this.timeoutSeconds = (int) Math.max(1, timeout.toSeconds());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("replica-health")
+                .daemon(true)
+                .factory());
+        this.scheduler.scheduleWithFixedDelay(this::checkAll, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lookup key of the next healthy replica, or empty if none is healthy.
+     */
+    public Optional<String> nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            if (healthy.get(index)) {
+                return Optional.of(replicaKeys.get(index));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void checkAll() {
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean valid = isValid(replicas.get(i));
+            if (healthy.getAndSet(i, valid) != valid) {
+                log.warn("Replica {} is now {}", replicaKeys.get(i), valid ? "healthy" : "unhealthy, reads fall back to the primary");
+            }
+        }
+    }
+
+    private boolean isValid(DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            return connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.user_manager.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured datasource with primary/replica routing when
+ * {@code user-manager.datasource.routing.enabled=true}.
+ * <p>
+ * Each pool is a Hikari pool bound from {@code user-manager.datasource.routing.primary} or
+ * {@code user-manager.datasource.routing.replicas[n]}, so every Hikari setting can differ per pool.
+ * {@code @Transactional(readOnly = true)} service methods read from a healthy replica; everything else,
+ * and reads within the read-your-writes window, uses the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "user-manager.datasource.routing", name = "enabled", havingValue = "true")
+public class RoutingDataSourceConfig implements WebMvcConfigurer {
+
+    private static final String PREFIX = "user-manager.datasource.routing";
+
+    private final DataSourceRoutingProperties properties;
+
+    public RoutingDataSourceConfig(DataSourceRoutingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean(destroyMethod = "close")
+    public RoutingPools routingPools(Environment environment, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        HikariConfig primaryConfig = binder.bind(PREFIX + ".primary", HikariConfig.class)
+                .orElseThrow(() -> new IllegalStateException(PREFIX + ".primary must be configured"));
+        List<HikariConfig> replicaConfigs = binder.bind(PREFIX + ".replicas", Bindable.listOf(HikariConfig.class))
+                .orElse(List.of());
+
+        HikariDataSource primary = createPool(primaryConfig, ReadWriteRoutingDataSource.PRIMARY, meterRegistry);
+        List<String> replicaKeys = new ArrayList<>();
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaConfigs.size(); i++) {
+            String key = ReadWriteRoutingDataSource.replicaKey(i);
+            replicaKeys.add(key);
+            replicas.add(createPool(replicaConfigs.get(i), key, meterRegistry));
+        }
+
+        ReplicaHealthChecker healthChecker = new ReplicaHealthChecker(replicaKeys, List.copyOf(replicas),
+                properties.getHealthCheckInterval(), properties.getHealthCheckTimeout());
+        return new RoutingPools(primary, List.copyOf(replicas), healthChecker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingPools routingPools) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, routingPools.primary());
+        for (int i = 0; i < routingPools.replicas().size(); i++) {
+            targets.put(ReadWriteRoutingDataSource.replicaKey(i), routingPools.replicas().get(i));
+        }
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(routingPools.replicaHealthChecker());
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(routingPools.primary());
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(properties.getReadYourWritesWindow()));
+    }
+
+    /**
+     * The pools are not beans, so Boot's Hikari metrics binding never sees them; each one reports its
+     * {@code hikaricp.connections.*} meters (tag {@code pool}) itself. Also used for the shard pools.
+     */
+    public static HikariDataSource createPool(HikariConfig config, String key, MeterRegistry meterRegistry) {
+        if (config.getPoolName() == null) {
+            config.setPoolName(key);
+        }
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.user_manager.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.List;
+
+/**
+ * The primary and replica pools behind {@link ReadWriteRoutingDataSource}; closes them on shutdown.
+ */
+public record RoutingPools(HikariDataSource primary,
+                           List<HikariDataSource> replicas,
+                           ReplicaHealthChecker replicaHealthChecker) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        replicaHealthChecker.close();
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
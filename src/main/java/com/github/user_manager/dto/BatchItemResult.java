@@ -0,0 +1,47 @@
+package com.github.user_manager.dto;
+
+/**
+ * Outcome of one item of a batch request.
+ *
+ * @param index  position of the item in the request
+ * @param id     id of the affected user, when known
+ * @param status what happened to the item
+ * @param error  one of the error codes below for a failure, {@code null} otherwise
+ */
+public record BatchItemResult(int index, Integer id, Status status, String error) {
+
+    /**
+     * The item conflicts with existing data (a duplicate or missing reference) or breaks a column constraint.
+     */
+    public static final String CONSTRAINT_VIOLATION = "CONSTRAINT_VIOLATION";
+
+    /**
+     * Another request changed or locked the same rows; retrying the item may succeed.
+     */
+    public static final String CONCURRENT_MODIFICATION = "CONCURRENT_MODIFICATION";
+
+    /**
+     * Any other failure; the cause is in the server log.
+     */
+    public static final String WRITE_FAILED = "WRITE_FAILED";
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND,
+        FAILED
+    }
+
+    public static BatchItemResult of(int index, Integer id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult failed(int index, Integer id, String error) {
+        return new BatchItemResult(index, id, Status.FAILED, error);
+    }
+
+    public boolean succeeded() {
+        return status == Status.CREATED || status == Status.UPDATED || status == Status.DELETED;
+    }
+}
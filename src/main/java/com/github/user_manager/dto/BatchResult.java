@@ -0,0 +1,14 @@
+package com.github.user_manager.dto;
+
+import java.util.List;
+
+/**
+ * Per-item results of a batch request, in request order.
+ */
+public record BatchResult(int succeeded, int failed, List<BatchItemResult> items) {
+
+    public static BatchResult of(List<BatchItemResult> items) {
+        int succeeded = (int) items.stream().filter(BatchItemResult::succeeded).count();
+        return new BatchResult(succeeded, items.size() - succeeded, items);
+    }
+}
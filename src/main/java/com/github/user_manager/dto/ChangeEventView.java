@@ -0,0 +1,26 @@
+package com.github.user_manager.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.github.user_manager.entity.ChangeEvent;
+
+import java.sql.Timestamp;
+
+/**
+ * A published change as seen by consumers of the change feed.
+ *
+ * @param position    place in the feed; pass it as {@code since} to continue after this change
+ * @param eventId     outbox id, stable across redeliveries, for deduplication
+ * @param aggregate   whether a user or a profile changed
+ * @param aggregateId id of the changed user or profile
+ * @param type        kind of change
+ * @param occurredAt  when the change was written
+ * @param payload     the aggregate after the change, {@code null} for deletions
+ */
+public record ChangeEventView(long position, long eventId, ChangeEvent.Aggregate aggregate, int aggregateId,
+                              ChangeEvent.Type type, Timestamp occurredAt, @JsonRawValue String payload) {
+
+    public static ChangeEventView of(ChangeEvent event) {
+        return new ChangeEventView(event.getPosition(), event.getId(), event.getAggregate(), event.getAggregateId(),
+                event.getType(), event.getCreatedAt(), event.getPayload());
+    }
+}
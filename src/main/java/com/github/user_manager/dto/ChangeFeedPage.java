@@ -0,0 +1,14 @@
+package com.github.user_manager.dto;
+
+import java.util.List;
+
+/**
+ * One page of the change feed. Unlike a {@link CursorPage} the cursor is never {@code null}: a consumer that
+ * reached the end keeps polling with it to receive later changes.
+ *
+ * @param changes changes in feed order
+ * @param cursor  position to pass as {@code since} for the next call
+ * @param hasMore whether more changes are available right away
+ */
+public record ChangeFeedPage(List<ChangeEventView> changes, long cursor, boolean hasMore) {
+}
@@ -0,0 +1,12 @@
+package com.github.user_manager.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * @param items      the items of this page, in cursor order
+ * @param nextCursor value to pass as {@code after} to fetch the next page, or {@code null} on the last page
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
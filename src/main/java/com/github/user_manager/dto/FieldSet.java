@@ -0,0 +1,70 @@
+package com.github.user_manager.dto;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sparse fieldset from a {@code ?fields=} parameter, e.g. {@code firstName,userProfiles.team}. A nested
+ * attribute is addressed as {@code parent.child}; naming the parent selects all of its attributes.
+ *
+ * @param paths the selected paths, or {@code null} for all attributes
+ */
+public record FieldSet(Set<String> paths) {
+
+    public static final FieldSet ALL = new FieldSet(null);
+
+    public static final List<String> USER_FIELDS = List.of(
+            "id", "firstName", "lastName", "version", "userProfiles",
+            "userProfiles.id", "userProfiles.unit", "userProfiles.team", "userProfiles.phoneNumber",
+            "userProfiles.createdAt", "userProfiles.version");
+
+    public static final List<String> PROFILE_FIELDS = List.of(
+            "id", "unit", "team", "phoneNumber", "createdAt", "version");
+
+    /**
+     * @param fields  comma-separated paths, or {@code null}/blank for all attributes
+     * @param allowed the paths the resource has
+     * @throws IllegalArgumentException for a path not in {@code allowed}
+     */
+    public static FieldSet parse(String fields, List<String> allowed) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> paths = new TreeSet<>();
+        for (String field : fields.split(",")) {
+            String path = field.trim();
+            if (!allowed.contains(path)) {
+                throw new IllegalArgumentException("Unknown field '" + path + "', expected any of " + allowed);
+            }
+            paths.add(path);
+        }
+        return new FieldSet(paths);
+    }
+
+    /**
+     * Whether the attribute at {@code path} is selected, directly or through its parent.
+     */
+    public boolean includes(String path) {
+        if (paths == null || paths.contains(path)) {
+            return true;
+        }
+        int separator = path.lastIndexOf('.');
+        return separator > 0 && paths.contains(path.substring(0, separator));
+    }
+
+    /**
+     * Whether {@code parent} or any attribute below it is selected.
+     */
+    public boolean includesAnyOf(String parent) {
+        return paths == null || paths.stream().anyMatch(path -> path.equals(parent) || path.startsWith(parent + "."));
+    }
+
+    /**
+     * Stable text form, {@code *} for all attributes; used to tell representations apart in ETags.
+     */
+    @Override
+    public String toString() {
+        return paths == null ? "*" : String.join(",", paths);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.user_manager.dto;
+
+import tools.jackson.databind.JsonNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An RFC 7396 merge patch reduced to the attributes it sets, keyed by entity attribute name.
+ * <p>
+ * Every patchable column is {@code NOT NULL}, so {@code null} (which removes a member in merge patch) is
+ * rejected, as are unknown and read-only attributes such as {@code id} or {@code version}.
+ *
+ * @param user    changed {@code Users} attributes
+ * @param profile changed {@code UserProfiles} attributes
+ */
+public record MergePatch(Map<String, String> user, Map<String, String> profile) {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    public static final Set<String> USER_ATTRIBUTES = Set.of("firstName", "lastName");
+    public static final Set<String> PROFILE_ATTRIBUTES = Set.of("unit", "team", "phoneNumber");
+
+    private static final String USER_PROFILES = "userProfiles";
+
+    /**
+     * Parses a patch of a user, which may contain a nested {@code userProfiles} patch.
+     *
+     * @throws IllegalArgumentException if the patch is not an object or sets something that cannot be patched
+     */
+    public static MergePatch ofUser(JsonNode patch) {
+        Map<String, String> user = new LinkedHashMap<>();
+        Map<String, String> profile = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> member : members(patch)) {
+            if (member.getKey().equals(USER_PROFILES)) {
+                if (!member.getValue().isObject()) {
+                    throw new IllegalArgumentException(USER_PROFILES + " must be an object; PATCH cannot remove a profile");
+                }
+                for (Map.Entry<String, JsonNode> profileMember : members(member.getValue())) {
+                    put(profileMember, PROFILE_ATTRIBUTES, profile);
+                }
+            } else {
+                put(member, USER_ATTRIBUTES, user);
+            }
+        }
+        return new MergePatch(user, profile);
+    }
+
+    /**
+     * Parses a patch of a profile.
+     *
+     * @throws IllegalArgumentException if the patch is not an object or sets something that cannot be patched
+     */
+    public static MergePatch ofProfile(JsonNode patch) {
+        Map<String, String> profile = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> member : members(patch)) {
+            put(member, PROFILE_ATTRIBUTES, profile);
+        }
+        return new MergePatch(Map.of(), profile);
+    }
+
+    private static Set<Map.Entry<String, JsonNode>> members(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("A merge patch must be a JSON object");
+        }
+        return patch.properties();
+    }
+
+    private static void put(Map.Entry<String, JsonNode> member, Set<String> attributes, Map<String, String> target) {
+        String name = member.getKey();
+        if (!attributes.contains(name)) {
+            throw new IllegalArgumentException("Unknown or read-only attribute: " + name);
+        }
+        if (!member.getValue().isString()) {
+            throw new IllegalArgumentException(name + " must be a string and cannot be removed");
+        }
+        target.put(name, member.getValue().stringValue());
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.user_manager.dto;
+
+import java.util.List;
+
+/**
+ * Sums over the rows of one {@code GET /users} page that move whenever the page changes: ids are never
+ * reused, versions only grow, and rows entering or leaving the page change the count or the ids. Unlike a
+ * digest of each row they are one aggregate query away, so revalidating a page does not have to load it.
+ *
+ * @param lastId  id of the page's last row, {@code 0} for an empty page
+ * @param hasNext whether a row follows the page
+ */
+public record PageRevision(long rowCount, long idSum, long lastId, long versionSum,
+                           long profileIdSum, long profileVersionSum, boolean hasNext) {
+
+    public static PageRevision of(CursorPage<UserView> page) {
+        List<UserView> users = page.items();
+        long idSum = 0;
+        long versionSum = 0;
+        long profileIdSum = 0;
+        long profileVersionSum = 0;
+        for (UserView user : users) {
+            UserView.Revision revision = user.revision();
+            idSum += user.id();
+            versionSum += revision.version();
+            if (revision.profileId() != null) {
+                profileIdSum += revision.profileId();
+                profileVersionSum += revision.profileVersion();
+            }
+        }
+        long lastId = users.isEmpty() ? 0 : users.getLast().id();
+        return new PageRevision(users.size(), idSum, lastId, versionSum, profileIdSum, profileVersionSum,
+                page.nextCursor() != null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.user_manager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.sql.Timestamp;
+
+/**
+ * Read model of a profile, built straight from query columns instead of a managed entity. Attributes left
+ * out by a {@link FieldSet} are {@code null} and omitted from the response.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProfileView(Integer id, String unit, String team, String phoneNumber, Timestamp createdAt,
+                          Long version) {
+}
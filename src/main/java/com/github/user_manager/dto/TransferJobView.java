@@ -0,0 +1,20 @@
+package com.github.user_manager.dto;
+
+import com.github.user_manager.transfer.TransferFormat;
+import com.github.user_manager.transfer.TransferJob;
+
+import java.time.Instant;
+
+/**
+ * Status of an import or export job.
+ *
+ * @param processed  users imported or exported so far
+ * @param failed     rows that could not be parsed or written (imports only)
+ * @param progress   fraction done between 0 and 1, {@code null} until known
+ * @param error      why the job failed, or the last row error of an import
+ * @param finishedAt {@code null} while the job is queued or running
+ */
+public record TransferJobView(String id, TransferJob.Kind kind, TransferFormat format, TransferJob.Status status,
+                              long processed, long failed, Double progress, String error,
+                              Instant createdAt, Instant finishedAt) {
+}
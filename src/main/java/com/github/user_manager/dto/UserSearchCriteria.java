@@ -0,0 +1,51 @@
+package com.github.user_manager.dto;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+
+/**
+ * Filters, ordering and keyset position of a user search.
+ *
+ * @param team      exact profile team, or {@code null} for any
+ * @param unit      exact profile unit, or {@code null} for any
+ * @param name      case-insensitive prefix of the first or last name, or {@code null} for any
+ * @param sort      sort key; ties are broken by id
+ * @param direction sort direction
+ * @param limit     page size
+ * @param after     opaque cursor of the previous page, or {@code null} for the first page
+ */
+public record UserSearchCriteria(String team,
+                                 String unit,
+                                 String name,
+                                 SortKey sort,
+                                 Sort.Direction direction,
+                                 int limit,
+                                 String after) {
+
+    public enum SortKey {
+        ID("id"),
+        FIRST_NAME("firstName"),
+        LAST_NAME("lastName");
+
+        private final String attribute;
+
+        SortKey(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public String attribute() {
+            return attribute;
+        }
+
+        /**
+         * Resolves the {@code sort} request parameter, which uses attribute names ({@code lastName}).
+         */
+        public static SortKey fromAttribute(String attribute) {
+            return Arrays.stream(values())
+                    .filter(key -> key.attribute.equals(attribute))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported sort: " + attribute));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.user_manager.dto;
+
+/**
+ * Search hit: the user's name and the profile columns it can be filtered by, without the full entities.
+ */
+public record UserSummary(int id, String firstName, String lastName, String unit, String team) {
+}
@@ -0,0 +1,22 @@
+package com.github.user_manager.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Read model of a user, built straight from query columns instead of a managed entity. Attributes left out
+ * by a {@link FieldSet} are {@code null} and omitted from the response.
+ *
+ * @param revision the row's user and profile versions, whether selected or not; only feeds the page ETag
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserView(Integer id, String firstName, String lastName, Long version, ProfileView userProfiles,
+                       @JsonIgnore Revision revision) {
+
+    /**
+     * @param profileId      {@code null} if the user has no profile or it was not selected
+     * @param profileVersion ignored without {@code profileId}
+     */
+    public record Revision(long version, Integer profileId, Long profileVersion) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.user_manager.entity;
+
+import com.github.user_manager.sharding.GlobalSequence;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+/**
+ * Outbox row: one mutation of a user or profile, written in the transaction of the mutation itself.
+ * {@code position} stays {@code null} until the relay publishes the event and orders it into the change feed.
+ */
+@Data
+@Entity
+@Table(
+        name = "change_events",
+        indexes = {
+                // Change feed reads by position; unique so a cursor identifies exactly one event.
+                @Index(name = "idx_change_events_position", columnList = "position", unique = true),
+                // Relay polls for unpublished events in insert order.
+                @Index(name = "idx_change_events_unpublished", columnList = "published_at, insert_order")
+        }
+)
+public class ChangeEvent {
+
+    public static final String ID_SEQUENCE = "change_events_seq";
+
+    public enum Aggregate {
+        USER,
+        PROFILE
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    // Pooled sequence like the other entities, so events of a bulk write are inserted in JDBC batches.
+    @Id
+    @GlobalSequence(name = ID_SEQUENCE, allocationSize = 50)
+    private long id;
+
+    // Drawn by the database from a plain sequence as the row is inserted. Ids come in blocks per instance and
+    // say nothing about commit order; this does for events of the same user or profile, whose writers insert
+    // them while holding its row lock. The relay publishes in this order.
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long insertOrder;
+
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Aggregate aggregate;
+
+    @Column(nullable = false)
+    private int aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Type type;
+
+    // JSON of the aggregate after the change; null for deletions.
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Timestamp createdAt;
+
+    private Timestamp publishedAt;
+}
@@ -0,0 +1,30 @@
+package com.github.user_manager.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Single row holding the last position handed out by the change event relay. Relays lock it for the whole
+ * publishing transaction, so positions are gap-free and commit in order even with several instances running.
+ * Pruning locks it too and records the last position it deleted.
+ */
+@Data
+@Entity
+@Table(name = "change_relay_state")
+public class ChangeRelayState {
+
+    public static final int ID = 1;
+
+    @Id
+    private int id;
+
+    @Column(nullable = false)
+    private long lastPosition;
+
+    // Events up to this position were deleted after the retention period.
+    @Column(nullable = false)
+    private long prunedPosition;
+}
@@ -1,19 +1,33 @@
 package com.github.user_manager.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.user_manager.sharding.GlobalSequence;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.sql.Timestamp;
 
 @Data
 @Entity
-@Table(name = "user_profiles")
+// UPDATEs list only the changed columns, so a PATCH of one field does not rewrite the others.
+@DynamicUpdate
+@Table(
+        name = "user_profiles",
+        // Team/unit filters of GET /users/search; team first since it is the more selective filter.
+        indexes = @Index(name = "idx_user_profiles_team_unit", columnList = "team, unit")
+)
 public class UserProfiles {
 
+    public static final String ID_SEQUENCE = "user_profiles_seq";
+
+    // Pooled sequence instead of IDENTITY: Hibernate can pre-allocate ids and batch the INSERTs.
+    // Drawn from the home shard when sharded, so ids stay unique across shards.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GlobalSequence(name = ID_SEQUENCE, allocationSize = 50)
     private int id;
 
     @Column(nullable = false, length = 25)
@@ -25,6 +39,11 @@ public class UserProfiles {
     @Column(nullable = false, length = 20)
     private String phoneNumber;
 
+    // Incremented on every update; used for optimistic locking and as the basis of the ETag.
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @CreationTimestamp
     @Column(
             name = "created_at",
@@ -35,7 +54,12 @@ public class UserProfiles {
 
     // @JsonIgnore prevents infinite recursion during JSON serialization in bidirectional relationships.
     // In a unidirectional relationship, this field and annotations is not required.
+    // The inverse side has no FK column, so Hibernate cannot proxy it and resolves it with a SELECT per row
+    // unless the query joins it in (see UserProfilesRepository). Excluded from toString/equals/hashCode to
+    // avoid the same recursion through Lombok.
     @JsonIgnore
-    @OneToOne(mappedBy = "userProfiles")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToOne(mappedBy = "userProfiles", fetch = FetchType.LAZY)
     private Users user;
 }
\ No newline at end of file
@@ -1,15 +1,32 @@
 package com.github.user_manager.entity;
 
+import com.github.user_manager.sharding.GlobalSequence;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Data
 @Entity
-@Table(name = "users")
+// UPDATEs list only the changed columns, so a PATCH of one field does not rewrite the others.
+@DynamicUpdate
+@Table(
+        name = "users",
+        // Mirrors db/migration, which owns the schema (and adds INCLUDE columns on PostgreSQL).
+        // Keyset order for GET /users/search?sort=firstName|lastName; (value, id) matches the cursor predicate.
+        indexes = {
+                @Index(name = "idx_users_profile_id", columnList = "profile_id", unique = true),
+                @Index(name = "idx_users_first_name_id", columnList = "first_name, id"),
+                @Index(name = "idx_users_last_name_id", columnList = "last_name, id")
+        }
+)
 public class Users {
 
+    public static final String ID_SEQUENCE = "users_seq";
+
+    // Pooled sequence instead of IDENTITY: Hibernate can pre-allocate ids and batch the INSERTs.
+    // Drawn from the home shard when sharded, so ids stay unique across shards.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GlobalSequence(name = ID_SEQUENCE, allocationSize = 50)
     private int id;
 
     @Column(nullable = false, length = 50)
@@ -18,7 +35,14 @@ public class Users {
     @Column(nullable = false, length = 50)
     private String lastName;
 
-    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
+    // Incremented on every update; used for optimistic locking and as the basis of the ETag.
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // LAZY so listing users does not issue one profile SELECT per row; queries that need the
+    // profile fetch it in the same statement (see UsersRepository).
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(
             name = "profile_id",
             referencedColumnName = "id",
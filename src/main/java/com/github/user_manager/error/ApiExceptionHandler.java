@@ -0,0 +1,56 @@
+package com.github.user_manager.error;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+/**
+ * Renders every error of the MVC controllers as an RFC 9457 {@code application/problem+json} body.
+ * <p>
+ * {@link ResponseEntityExceptionHandler} covers Spring MVC's own exceptions and every
+ * {@link org.springframework.web.server.ResponseStatusException}, including the {@link NotFoundException}s;
+ * the handlers here add concurrent modifications (409) and unexpected exceptions (500, without internals in
+ * the body). All of them go through {@link ErrorReporter} for counting and logging.
+ */
+@RestControllerAdvice
+@Profile("!reactive")
+public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final ErrorReporter errorReporter;
+
+    public ApiExceptionHandler(ErrorReporter errorReporter) {
+        this.errorReporter = errorReporter;
+    }
+
+    /**
+     * A version check failed: another request changed the entity since it was read.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLock(OptimisticLockingFailureException ex, WebRequest request) {
+        ProblemDetail body = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "The resource was modified concurrently, retry with its current state");
+        return handleExceptionInternal(ex, body, new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleUnexpected(Exception ex, WebRequest request) {
+        ProblemDetail body = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Unexpected error");
+        return handleExceptionInternal(ex, body, new HttpHeaders(), HttpStatus.INTERNAL_SERVER_ERROR, request);
+    }
+
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+                                                             HttpStatusCode statusCode, WebRequest request) {
+        errorReporter.report(ex, statusCode.value());
+        return super.handleExceptionInternal(ex, body, headers, statusCode, request);
+    }
+}
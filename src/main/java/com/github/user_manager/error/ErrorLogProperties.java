@@ -0,0 +1,29 @@
+package com.github.user_manager.error;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Limits of the {@link ErrorReporter} log, bound from {@code user-manager.errors.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.errors")
+public class ErrorLogProperties {
+
+    /**
+     * An error of the same type and origin is logged at most once per interval; repeats are counted and
+     * reported with the next line for it.
+     */
+    private Duration logInterval = Duration.ofMinutes(1);
+
+    /**
+     * Error lines per interval over all types, so a storm of distinct errors cannot flood the log either.
+     */
+    private int maxLinesPerInterval = 50;
+}
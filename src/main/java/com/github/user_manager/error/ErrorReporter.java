@@ -0,0 +1,110 @@
+package com.github.user_manager.error;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts every error response and logs the unexpected ones, once per type and origin per interval.
+ * <p>
+ * Errors that carry their own status ({@link ErrorResponse}: not found, bad request, precondition failed, ...)
+ * are outcomes the application chose and are only counted. Anything else is a bug or an outage: it is logged
+ * with its stack trace, but repeats of the same exception class from the same throwing frame are folded into
+ * a count on the next line, and the total number of lines per interval is capped.
+ */
+@Slf4j
+@Component
+public class ErrorReporter {
+
+    static final String COUNTER_NAME = "user_manager.errors";
+
+    // Bounds the dedup table when errors come from many distinct places; it is simply reset.
+    private static final int MAX_TRACKED = 1000;
+
+    private final ErrorLogProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Occurrences> occurrences = new ConcurrentHashMap<>();
+
+    private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger linesInInterval = new AtomicInteger();
+
+    public ErrorReporter(ErrorLogProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void report(Throwable error, int status) {
+        String type = error.getClass().getSimpleName();
+        counters.computeIfAbsent(type + ':' + status, key -> Counter.builder(COUNTER_NAME)
+                        .description("Error responses by exception type and status")
+                        .tag("type", type)
+                        .tag("status", String.valueOf(status))
+                        .register(meterRegistry))
+                .increment();
+
+        if (!(error instanceof ErrorResponse)) {
+            logRateLimited(error, status);
+        }
+    }
+
+    private void logRateLimited(Throwable error, int status) {
+        long now = System.nanoTime();
+        long interval = properties.getLogInterval().toNanos();
+
+        if (occurrences.size() >= MAX_TRACKED) {
+            occurrences.clear();
+        }
+        Occurrences seen = occurrences.computeIfAbsent(keyOf(error), key -> new Occurrences());
+        long suppressed;
+        synchronized (seen) {
+            if (seen.lastLogged != 0 && now - seen.lastLogged < interval) {
+                seen.suppressed++;
+                return;
+            }
+            if (!takeLine(now, interval)) {
+                seen.suppressed++;
+                return;
+            }
+            suppressed = seen.suppressed;
+            seen.lastLogged = now;
+            seen.suppressed = 0;
+        }
+        if (suppressed > 0) {
+            log.error("Request failed with {} ({} similar errors not logged since the last report)",
+                    status, suppressed, error);
+        } else {
+            log.error("Request failed with {}", status, error);
+        }
+    }
+
+    private boolean takeLine(long now, long interval) {
+        long start = intervalStart.get();
+        if (now - start >= interval && intervalStart.compareAndSet(start, now)) {
+            linesInInterval.set(0);
+        }
+        return linesInInterval.incrementAndGet() <= properties.getMaxLinesPerInterval();
+    }
+
+    /**
+     * Exception class and the frame that threw it: ids and other values in messages do not split the count.
+     */
+    private static String keyOf(Throwable error) {
+        StackTraceElement[] stackTrace = error.getStackTrace();
+        return stackTrace.length == 0
+                ? error.getClass().getName()
+                : error.getClass().getName() + '@' + stackTrace[0];
+    }
+
+    private static final class Occurrences {
+        long lastLogged;
+        long suppressed;
+    }
+}
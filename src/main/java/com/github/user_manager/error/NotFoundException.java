@@ -0,0 +1,23 @@
+package com.github.user_manager.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A requested entity does not exist; rendered as a 404 problem with the id as a property.
+ * No stack trace is captured: lookups of unknown ids are a normal client error, and scrapers probing ids
+ * must not make them expensive.
+ */
+public abstract class NotFoundException extends ResponseStatusException {
+
+    protected NotFoundException(String entity, Object id) {
+        super(HttpStatus.NOT_FOUND, entity + " not found with id: " + id);
+        getBody().setTitle(entity + " not found");
+        getBody().setProperty("id", id);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
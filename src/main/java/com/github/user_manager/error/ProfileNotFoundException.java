@@ -0,0 +1,8 @@
+package com.github.user_manager.error;
+
+public class ProfileNotFoundException extends NotFoundException {
+
+    public ProfileNotFoundException(Object id) {
+        super("Profile", id);
+    }
+}
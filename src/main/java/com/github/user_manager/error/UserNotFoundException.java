@@ -0,0 +1,8 @@
+package com.github.user_manager.error;
+
+public class UserNotFoundException extends NotFoundException {
+
+    public UserNotFoundException(Object id) {
+        super("User", id);
+    }
+}
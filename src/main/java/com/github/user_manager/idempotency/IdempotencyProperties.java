@@ -0,0 +1,50 @@
+package com.github.user_manager.idempotency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings of {@code Idempotency-Key} handling, bound from {@code user-manager.idempotency.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.idempotency")
+public class IdempotencyProperties {
+
+    public enum StoreType {
+        MEMORY,
+        JDBC
+    }
+
+    /**
+     * Where responses and claims are kept: this instance's memory, or the {@code idempotency_keys} table,
+     * which survives restarts and is shared by all instances.
+     */
+    private StoreType store = StoreType.MEMORY;
+
+    /**
+     * How long a key replays its response; retries after that run again.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Keys retained by the {@link StoreType#MEMORY} store; the least recently used go first.
+     */
+    private long maxEntries = 100_000;
+
+    /**
+     * How long a request waits for an in-flight request with the same key before getting 409.
+     */
+    private Duration inFlightTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long a {@link StoreType#JDBC} claim holds its key without completing; after that the instance that
+     * claimed it is assumed gone and the key can be claimed again. Longer than any request should take.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(1);
+}
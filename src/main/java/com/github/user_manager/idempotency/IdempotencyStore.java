@@ -0,0 +1,32 @@
+package com.github.user_manager.idempotency;
+
+import java.util.Optional;
+
+/**
+ * Completed responses and pending claims by {@code Idempotency-Key}. Implementations drop entries older than
+ * {@code user-manager.idempotency.ttl}.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * The completed response or the pending claim for {@code key}, if it has not expired.
+     */
+    Optional<StoredResponse> find(String key);
+
+    /**
+     * Claims {@code key} with a {@link StoredResponse#pending pending} entry for a request about to run.
+     *
+     * @return {@code false} if the key already has a live entry, completed or pending
+     */
+    boolean claim(String key, String fingerprint);
+
+    /**
+     * Replaces the claim of {@code key} with the completed response.
+     */
+    void save(String key, StoredResponse response);
+
+    /**
+     * Drops the pending claim of {@code key} after its request failed, so it can be retried.
+     */
+    void release(String key);
+}
@@ -0,0 +1,210 @@
+package com.github.user_manager.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}.
+ * <p>
+ * The first request with a key claims it in the {@link IdempotencyStore} and runs; a successful (2xx) response
+ * replaces the claim and is replayed to later requests with the same key, marked with {@value #REPLAYED_HEADER}.
+ * Requests arriving while the first is still running wait for its outcome instead of running too: on the same
+ * instance through a shared future, on other instances by polling the store for the claim to complete, which
+ * needs the shared {@code jdbc} store. A key reused with a different body is rejected with 422, a wait longer
+ * than {@code in-flight-timeout} with 409. Failures release the claim: the request can be retried with the
+ * same key.
+ * <p>
+ * The response is stored after the service transaction commits, so a crash in between can still let one
+ * retry through once the claim times out.
+ */
+@Component
+public class IdempotentRequests {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final long inFlightTimeoutNanos;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter replayed;
+    private final Counter coalesced;
+
+    public IdempotentRequests(IdempotencyStore store,
+                              ObjectMapper objectMapper,
+                              IdempotencyProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.inFlightTimeoutNanos = properties.getInFlightTimeout().toNanos();
+        this.replayed = Counter.builder("user_manager.idempotency.replayed")
+                .description("Requests answered with the stored response of an earlier request with the same key")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("user_manager.idempotency.coalesced")
+                .description("Requests that waited for an in-flight request with the same key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} unless a request with the same {@code key} already ran or is running.
+     *
+     * @param key          the {@code Idempotency-Key} header, or {@code null} to just run {@code action}
+     * @param request      request body, fingerprinted to detect a key reused for a different request
+     * @param responseType type to read a stored body back into
+     */
+    public <T> ResponseEntity<T> execute(String key, Object request, Class<T> responseType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(request);
+
+        Optional<StoredResponse> stored = store.find(key);
+        if (stored.isPresent() && !stored.get().isPending()) {
+            replayed.increment();
+            return replay(stored.get(), fingerprint, responseType);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return replay(await(running), fingerprint, responseType);
+        }
+        try {
+            // Held by a request on another instance, or completed since the lookup: wait for its response.
+            if (!store.claim(key, fingerprint)) {
+                StoredResponse completed = awaitClaim(key, fingerprint);
+                if (completed != null) {
+                    mine.complete(completed);
+                    return replay(completed, fingerprint, responseType);
+                }
+            }
+
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException | Error e) {
+                store.release(key);
+                throw e;
+            }
+            StoredResponse completed = new StoredResponse(fingerprint, response.getStatusCode().value(),
+                    objectMapper.writeValueAsString(response.getBody()), Instant.now());
+            if (response.getStatusCode().is2xxSuccessful()) {
+                store.save(key, completed);
+            } else {
+                store.release(key);
+            }
+            mine.complete(completed);
+            return response;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Polls the store until the request holding the claim on another instance completes. If that request
+     * failed and released the key, or its claim timed out, this request claims the key instead.
+     *
+     * @return the completed response, or {@code null} if this request now holds the claim
+     */
+    private StoredResponse awaitClaim(String key, String fingerprint) {
+        long deadline = System.nanoTime() + inFlightTimeoutNanos;
+        coalesced.increment();
+        while (true) {
+            Optional<StoredResponse> stored = store.find(key);
+            if (stored.isEmpty()) {
+                if (store.claim(key, fingerprint)) {
+                    return null;
+                }
+            } else if (!stored.get().isPending()) {
+                replayed.increment();
+                return stored.get();
+            } else {
+                checkFingerprint(stored.get(), fingerprint);
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw inFlightConflict();
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting", e);
+            }
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(inFlightTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw inFlightConflict();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting", e);
+        } catch (ExecutionException e) {
+            // The request we waited for failed; fail the same way, the client may retry with the same key.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String fingerprint, Class<T> responseType) {
+        checkFingerprint(stored, fingerprint);
+        return ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true")
+                .body(objectMapper.readValue(stored.body(), responseType));
+    }
+
+    private static void checkFingerprint(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT,
+                    HEADER + " was already used for a different request");
+        }
+    }
+
+    private static ResponseStatusException inFlightConflict() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "A request with this " + HEADER + " is still being processed");
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
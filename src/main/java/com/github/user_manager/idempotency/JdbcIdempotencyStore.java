@@ -0,0 +1,127 @@
+package com.github.user_manager.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps responses in the {@code idempotency_keys} table, so replays work across instances and restarts.
+ * Enabled with {@code user-manager.idempotency.store=jdbc}.
+ * <p>
+ * A request claims its key by inserting a pending row; the primary key lets exactly one instance win, and the
+ * others wait for the row to be completed. A pending row older than {@code claim-timeout} is from an instance
+ * that died mid-request and may be claimed again.
+ * <p>
+ * Expired rows are ignored on read and deleted in bulk at most once per {@link #PURGE_INTERVAL}, which bounds
+ * the table to roughly one TTL worth of keys.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-manager.idempotency", name = "store", havingValue = "jdbc")
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    // Parameters: key, claim cutoff, TTL cutoff. A row is live until its claim or, once completed, its TTL runs out.
+    private static final String SELECT = """
+            SELECT fingerprint, status, body, created_at FROM idempotency_keys
+            WHERE idempotency_key = ?
+              AND ((status = 0 AND created_at > ?) OR (status <> 0 AND created_at > ?))
+            """;
+
+    // Takes over a row that is no longer live; a live one is never replaced.
+    private static final String CLAIM_EXPIRED = """
+            UPDATE idempotency_keys SET fingerprint = ?, status = 0, body = NULL, created_at = ?
+            WHERE idempotency_key = ? AND ((status = 0 AND created_at <= ?) OR created_at <= ?)
+            """;
+
+    private static final String CLAIM = """
+            INSERT INTO idempotency_keys (idempotency_key, fingerprint, status, body, created_at)
+            VALUES (?, ?, 0, NULL, ?)
+            """;
+
+    private static final String COMPLETE = """
+            UPDATE idempotency_keys SET fingerprint = ?, status = ?, body = ?, created_at = ?
+            WHERE idempotency_key = ? AND status = 0 AND fingerprint = ?
+            """;
+
+    private static final String RELEASE = "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND status = 0";
+
+    private static final String PURGE = "DELETE FROM idempotency_keys WHERE created_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration claimTimeout;
+    private final AtomicLong nextPurge = new AtomicLong(System.nanoTime());
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, IdempotencyProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = properties.getTtl();
+        this.claimTimeout = properties.getClaimTimeout();
+    }
+
+    @Override
+    public Optional<StoredResponse> find(String key) {
+        return jdbcTemplate.query(SELECT,
+                (resultSet, rowNum) -> new StoredResponse(
+                        resultSet.getString("fingerprint"),
+                        resultSet.getInt("status"),
+                        resultSet.getString("body"),
+                        resultSet.getTimestamp("created_at").toInstant()),
+                key, cutoff(claimTimeout), cutoff(ttl)).stream().findFirst();
+    }
+
+    @Override
+    public boolean claim(String key, String fingerprint) {
+        Timestamp now = Timestamp.from(Instant.now());
+        if (jdbcTemplate.update(CLAIM_EXPIRED, fingerprint, now, key, cutoff(claimTimeout), cutoff(ttl)) > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update(CLAIM, key, fingerprint, now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void save(String key, StoredResponse response) {
+        int updated = jdbcTemplate.update(COMPLETE, response.fingerprint(), response.status(), response.body(),
+                Timestamp.from(response.createdAt()), key, response.fingerprint());
+        if (updated == 0) {
+            // The claim outlived claim-timeout and was taken over; the request that took it decides the response.
+            log.warn("Idempotency key {} was claimed again before its request completed", key);
+        }
+        purgeExpired();
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update(RELEASE, key);
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        long due = nextPurge.get();
+        if (now - due < 0 || !nextPurge.compareAndSet(due, now + PURGE_INTERVAL.toNanos())) {
+            return;
+        }
+        int purged = jdbcTemplate.update(PURGE, cutoff(ttl));
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private static Timestamp cutoff(Duration age) {
+        return Timestamp.from(Instant.now().minus(age));
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.user_manager.idempotency;
+
+import java.time.Instant;
+
+/**
+ * Response of a completed idempotent request, or the claim of one still running.
+ *
+ * @param fingerprint SHA-256 of the request body, so a key reused for a different request is detected
+ * @param status      HTTP status of the original response; {@value #PENDING} while the request is running
+ * @param body        response body as JSON; {@code null} while the request is running
+ */
+public record StoredResponse(String fingerprint, int status, String body, Instant createdAt) {
+
+    public static final int PENDING = 0;
+
+    /**
+     * Claim of a key by a request that is about to run.
+     */
+    public static StoredResponse pending(String fingerprint) {
+        return new StoredResponse(fingerprint, PENDING, null, Instant.now());
+    }
+
+    public boolean isPending() {
+        return status == PENDING;
+    }
+}
@@ -0,0 +1,227 @@
+package com.github.user_manager.loader;
+
+import com.github.user_manager.datasource.ReadYourWritesContext;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.repository.UserProfilesRepository;
+import com.github.user_manager.sharding.Shards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads profiles by id with request coalescing and micro-batching.
+ * <p>
+ * Concurrent loads of the same id share one pending result (single flight). Distinct ids requested within
+ * {@code window} of each other, up to {@code max-batch-size}, are fetched by one
+ * {@code WHERE id IN (...)} query in a read-only transaction. Under load, many point lookups thus become a
+ * few queries; when idle, a lookup pays at most the window in extra latency.
+ * <p>
+ * A result is shared only while its query is running: once it completes, the next load of the id queries
+ * again, so this never serves data older than the query that produced it.
+ * <p>
+ * Sharded, a batch is queried on every shard in parallel, since a profile id does not tell its shard.
+ */
+@Component
+public class ProfileLoader implements AutoCloseable {
+
+    private final UserProfilesRepository userProfilesRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Shards shards;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutNanos;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService queries;
+
+    private final Map<Integer, CompletableFuture<Optional<UserProfiles>>> pending = new ConcurrentHashMap<>();
+    private final Object batchLock = new Object();
+    private Batch openBatch;
+
+    private final DistributionSummary batchSizes;
+    private final Timer queryTimer;
+    private final Counter coalesced;
+
+    public ProfileLoader(UserProfilesRepository userProfilesRepository,
+                         PlatformTransactionManager transactionManager,
+                         ProfileLoaderProperties properties,
+                         MeterRegistry meterRegistry,
+                         ObjectProvider<Shards> shards) {
+        this.userProfilesRepository = userProfilesRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.shards = shards.getIfAvailable();
+        this.windowNanos = properties.getWindow().toNanos();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.timeoutNanos = properties.getTimeout().toNanos();
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("profile-loader-timer")
+                .daemon(true)
+                .factory());
+        this.queries = Executors.newFixedThreadPool(properties.getConcurrency(), Thread.ofPlatform()
+                .name("profile-loader-", 0)
+                .daemon(true)
+                .factory());
+        this.batchSizes = DistributionSummary.builder("user_manager.profile_loader.batch_size")
+                .description("Distinct profile ids fetched per query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queryTimer = Timer.builder("user_manager.profile_loader.query")
+                .description("Duration of batched profile queries")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("user_manager.profile_loader.coalesced")
+                .description("Profile loads that joined a pending load of the same id")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The profile with its owning user, or empty if there is none. Blocks until the batch holding the id
+     * has been queried, at most {@code timeout}; a load still waiting then fails with 503, and its batch
+     * completes for whoever still waits on it.
+     */
+    public Optional<UserProfiles> load(int id) {
+        if (ReadYourWritesContext.isPinnedToPrimary()) {
+            // The pin is thread-local and the batch runs elsewhere, so a client reading its own write
+            // queries on its own thread, where the pin routes it to the primary.
+            return readOnlyTransaction.execute(status -> userProfilesRepository.findWithUserById(id));
+        }
+        try {
+            return enqueue(id).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out loading profile " + id, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while loading profile", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private CompletableFuture<Optional<UserProfiles>> enqueue(int id) {
+        CompletableFuture<Optional<UserProfiles>> existing = pending.get(id);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        CompletableFuture<Optional<UserProfiles>> result;
+        Batch ready = null;
+        synchronized (batchLock) {
+            existing = pending.get(id);
+            if (existing != null) {
+                coalesced.increment();
+                return existing;
+            }
+            result = new CompletableFuture<>();
+            pending.put(id, result);
+
+            if (openBatch == null) {
+                openBatch = new Batch();
+                if (windowNanos > 0) {
+                    Batch scheduled = openBatch;
+                    timer.schedule(() -> windowElapsed(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            openBatch.results.put(id, result);
+            if (windowNanos == 0 || openBatch.results.size() >= maxBatchSize) {
+                ready = openBatch;
+                openBatch = null;
+            }
+        }
+        if (ready != null) {
+            submit(ready);
+        }
+        return result;
+    }
+
+    private void windowElapsed(Batch batch) {
+        synchronized (batchLock) {
+            if (openBatch != batch) {
+                return; // Already sent because it filled up.
+            }
+            openBatch = null;
+        }
+        submit(batch);
+    }
+
+    private void submit(Batch batch) {
+        try {
+            queries.execute(() -> query(batch));
+        } catch (RuntimeException e) {
+            batch.fail(e);
+        }
+    }
+
+    private void query(Batch batch) {
+        batchSizes.record(batch.results.size());
+        try {
+            List<Integer> ids = List.copyOf(batch.results.keySet());
+            Map<Integer, UserProfiles> profiles = queryTimer.record(() -> fetch(ids).stream()
+                    .collect(Collectors.toMap(UserProfiles::getId, Function.identity())));
+            batch.results.forEach((id, result) -> {
+                pending.remove(id, result);
+                result.complete(Optional.ofNullable(profiles.get(id)));
+            });
+        } catch (RuntimeException | Error e) {
+            batch.fail(e);
+        }
+    }
+
+    private List<UserProfiles> fetch(List<Integer> ids) {
+        if (shards == null) {
+            return readOnlyTransaction.execute(status -> userProfilesRepository.findAllWithUserByIdIn(ids));
+        }
+        return shards.gather(() -> userProfilesRepository.findAllWithUserByIdIn(ids)).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        queries.shutdownNow();
+        IllegalStateException closed = new IllegalStateException("Profile loader is shut down");
+        pending.values().forEach(result -> result.completeExceptionally(closed));
+    }
+
+    /**
+     * Ids collected for one query, with the result each caller waits on.
+     */
+    private final class Batch {
+
+        final Map<Integer, CompletableFuture<Optional<UserProfiles>>> results = new LinkedHashMap<>();
+
+        void fail(Throwable e) {
+            results.forEach((id, result) -> {
+                pending.remove(id, result);
+                result.completeExceptionally(e);
+            });
+        }
+    }
+}
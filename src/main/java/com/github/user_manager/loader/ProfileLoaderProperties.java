@@ -0,0 +1,40 @@
+package com.github.user_manager.loader;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings of {@link ProfileLoader}, bound from {@code user-manager.profile-loader.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.profile-loader")
+public class ProfileLoaderProperties {
+
+    /**
+     * How long the first id of a batch waits for others; {@code 0} queries every id on its own (concurrent
+     * requests for the same id are still coalesced).
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * Ids per {@code IN} query; a full batch is sent without waiting for the window to end.
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * Batch queries running at the same time, each on its own connection.
+     */
+    private int concurrency = 4;
+
+    /**
+     * How long a load waits for its batch, queued behind others or stuck on a slow query, before the request
+     * fails with 503.
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,22 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.entity.ChangeEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    /**
+     * Oldest events the relay has not published yet, in insert order.
+     */
+    List<ChangeEvent> findByPublishedAtIsNullOrderByInsertOrderAsc(Limit limit);
+
+    /**
+     * Published events after {@code position}, in feed order.
+     */
+    List<ChangeEvent> findByPositionGreaterThanOrderByPositionAsc(long position, Limit limit);
+}
@@ -0,0 +1,19 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.entity.ChangeRelayState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChangeRelayStateRepository extends JpaRepository<ChangeRelayState, Integer> {
+
+    /**
+     * The relay state row, locked until the end of the transaction ({@code SELECT ... FOR UPDATE}).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ChangeRelayState> findLockedById(int id);
+}
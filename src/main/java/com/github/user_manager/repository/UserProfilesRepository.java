@@ -1,9 +1,26 @@
 package com.github.user_manager.repository;
 
 import com.github.user_manager.entity.UserProfiles;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface UserProfilesRepository extends JpaRepository<UserProfiles, Integer> {
+public interface UserProfilesRepository extends JpaRepository<UserProfiles, Integer>, UserProfilesViewRepository {
+
+    /**
+     * Single profile with the owning user loaded in the same statement.
+     */
+    @EntityGraph(attributePaths = "user")
+    Optional<UserProfiles> findWithUserById(int id);
+
+    /**
+     * Profiles with the given ids and their owning users in one statement; missing ids are skipped.
+     */
+    @EntityGraph(attributePaths = "user")
+    List<UserProfiles> findAllWithUserByIdIn(Collection<Integer> ids);
 }
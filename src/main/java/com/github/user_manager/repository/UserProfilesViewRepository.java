@@ -0,0 +1,18 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.ProfileView;
+
+import java.util.List;
+
+/**
+ * Read-model fragment of {@link UserProfilesRepository}: profiles as {@link ProfileView}s, without managed
+ * entities.
+ */
+public interface UserProfilesViewRepository {
+
+    /**
+     * All profiles ordered by id, with the attributes in {@code fields}. The id is always included.
+     */
+    List<ProfileView> findAllViews(FieldSet fields);
+}
@@ -0,0 +1,41 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.ProfileView;
+import com.github.user_manager.entity.UserProfiles;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+import java.util.List;
+
+/**
+ * Tuple query over the selected profile columns only; unlike the entity listing it does not join the
+ * owning user, which the response never contained anyway.
+ */
+public class UserProfilesViewRepositoryImpl implements UserProfilesViewRepository {
+
+    private final EntityManager entityManager;
+
+    public UserProfilesViewRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<ProfileView> findAllViews(FieldSet fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<UserProfiles> profile = query.from(UserProfiles.class);
+
+        ViewSelection selection = new ViewSelection();
+        selection.addProfile("", profile, fields);
+        query.select(cb.tuple(selection.selections())).orderBy(cb.asc(profile.get("id")));
+
+        return entityManager.createQuery(query)
+                .getResultList().stream()
+                .map(tuple -> ViewSelection.profile(selection.values(tuple), "", true))
+                .toList();
+    }
+}
@@ -0,0 +1,336 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.PageRevision;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to users and their profiles for paths where going through the persistence context would
+ * cost too much, e.g. walking the whole table or updating a row in a single round-trip.
+ */
+@Repository
+public class UsersJdbcRepository {
+
+    /**
+     * Rows pulled from the server per round-trip while streaming.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String SELECT_USERS_WITH_PROFILES = """
+            SELECT u.id, u.first_name, u.last_name, u.version,
+                   p.id AS profile_id, p.unit, p.team, p.phone_number, p.created_at, p.version AS profile_version
+            FROM users u
+            LEFT JOIN user_profiles p ON p.id = u.profile_id
+            ORDER BY u.id
+            """;
+
+    /**
+     * Updates the user and its profile and returns both, in one statement. The profile {@code UPDATE} joins
+     * the user's {@code RETURNING} rows, so it only touches the profile actually linked to the user. A user
+     * without a profile is left untouched: attaching one is not a single statement.
+     */
+    private static final String UPDATE_USER_AND_PROFILE = """
+            WITH u AS (
+                UPDATE users SET first_name = ?, last_name = ?, version = version + 1
+                WHERE id = ? AND profile_id IS NOT NULL
+                RETURNING id, first_name, last_name, version, profile_id
+            ), p AS (
+                UPDATE user_profiles SET unit = ?, team = ?, phone_number = ?, version = user_profiles.version + 1
+                FROM u
+                WHERE user_profiles.id = u.profile_id
+                RETURNING user_profiles.id, user_profiles.unit, user_profiles.team, user_profiles.phone_number,
+                          user_profiles.created_at, user_profiles.version
+            )
+            SELECT u.id, u.first_name, u.last_name, u.version,
+                   p.id AS profile_id, p.unit, p.team, p.phone_number, p.created_at, p.version AS profile_version
+            FROM u
+            LEFT JOIN p ON p.id = u.profile_id
+            """;
+
+    private static final String UPDATE_USER = """
+            WITH u AS (
+                UPDATE users SET first_name = ?, last_name = ?, version = version + 1
+                WHERE id = ?
+                RETURNING id, first_name, last_name, version, profile_id
+            )
+            SELECT u.id, u.first_name, u.last_name, u.version,
+                   p.id AS profile_id, p.unit, p.team, p.phone_number, p.created_at, p.version AS profile_version
+            FROM u
+            LEFT JOIN user_profiles p ON p.id = u.profile_id
+            """;
+
+    private static final String UPDATE_PROFILE = """
+            UPDATE user_profiles SET unit = ?, team = ?, phone_number = ?, version = version + 1
+            WHERE id = ?
+            RETURNING id AS profile_id, unit, team, phone_number, created_at, version AS profile_version,
+                      (SELECT u.id FROM users u WHERE u.profile_id = user_profiles.id) AS user_id
+            """;
+
+    /**
+     * {@link PageRevision} of the {@code GET /users} page after a cursor, aggregated in the database so the
+     * page itself is never read. {@code %s} is the page window, one of the two below.
+     */
+    private static final String PAGE_REVISION = """
+            SELECT a.row_count, a.id_sum, a.last_id, a.version_sum, a.profile_id_sum, a.profile_version_sum,
+                   EXISTS (SELECT 1 FROM users n WHERE n.id > a.last_id) AS has_next
+            FROM (
+                SELECT count(*) AS row_count, coalesce(sum(w.id), 0) AS id_sum, max(w.id) AS last_id,
+                       coalesce(sum(w.version), 0) AS version_sum,
+                       coalesce(sum(w.profile_id), 0) AS profile_id_sum,
+                       coalesce(sum(w.profile_version), 0) AS profile_version_sum
+                FROM (%s) w
+            ) a
+            """;
+
+    private static final String PAGE_WINDOW_WITH_PROFILES = """
+            SELECT u.id, u.version, p.id AS profile_id, p.version AS profile_version
+            FROM users u
+            LEFT JOIN user_profiles p ON p.id = u.profile_id
+            WHERE u.id > ?
+            ORDER BY u.id
+            LIMIT ?
+            """;
+
+    private static final String PAGE_WINDOW = """
+            SELECT u.id, u.version, CAST(NULL AS BIGINT) AS profile_id, CAST(NULL AS BIGINT) AS profile_version
+            FROM users u
+            WHERE u.id > ?
+            ORDER BY u.id
+            LIMIT ?
+            """;
+
+    /**
+     * Patchable attributes and their columns; generated SQL only ever contains these names.
+     */
+    private static final Map<String, String> USER_COLUMNS = Map.of(
+            "firstName", "first_name",
+            "lastName", "last_name");
+    private static final Map<String, String> PROFILE_COLUMNS = Map.of(
+            "unit", "unit",
+            "team", "team",
+            "phoneNumber", "phone_number");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Whether the database understands {@code UPDATE ... RETURNING} in a {@code WITH} clause; resolved on
+     * first use.
+     */
+    private volatile Boolean updateReturningSupported;
+
+    public UsersJdbcRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Reads every user with its profile through a forward-only cursor and hands each row to {@code consumer}
+     * as soon as it is read. Rows are not retained, so memory use does not grow with the table.
+     * <p>
+     * The PostgreSQL driver only honours the fetch size inside a transaction, hence the read-only transaction.
+     */
+    public void streamAll(Consumer<Users> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            SELECT_USERS_WITH_PROFILES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(STREAM_FETCH_SIZE);
+                    return statement;
+                },
+                (RowCallbackHandler) resultSet -> consumer.accept(mapUser(resultSet))
+        ));
+    }
+
+    /**
+     * Whether {@link #updateUser} and {@link #updateProfile} can be used. They rely on PostgreSQL's
+     * data-modifying {@code WITH} and {@code RETURNING}; other databases (H2 in the benchmark and replica
+     * demo profiles) have to go through JPA.
+     */
+    public boolean supportsUpdateReturning() {
+        Boolean supported = updateReturningSupported;
+        if (supported == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            supported = "PostgreSQL".equals(product);
+            updateReturningSupported = supported;
+        }
+        return supported;
+    }
+
+    /**
+     * The {@link PageRevision} of the {@code limit} users after {@code after}, as {@link PageRevision#of} would
+     * compute it from {@link UsersViewRepository#findViews} with and without profiles, in one aggregate query.
+     */
+    public PageRevision findPageRevision(int after, int limit, boolean withProfiles) {
+        String sql = PAGE_REVISION.formatted(withProfiles ? PAGE_WINDOW_WITH_PROFILES : PAGE_WINDOW);
+        return jdbcTemplate.queryForObject(sql, (resultSet, rowNum) -> new PageRevision(
+                resultSet.getLong("row_count"),
+                resultSet.getLong("id_sum"),
+                resultSet.getLong("last_id"),
+                resultSet.getLong("version_sum"),
+                resultSet.getLong("profile_id_sum"),
+                resultSet.getLong("profile_version_sum"),
+                resultSet.getBoolean("has_next")), after, limit);
+    }
+
+    /**
+     * Overwrites the names of user {@code id} and, when {@code changes} carries a profile, the fields of the
+     * profile already linked to it, in one round-trip. Both versions are incremented like JPA would.
+     *
+     * @return the updated user with its current profile, or empty if no user has that id or, when
+     * {@code changes} carries a profile, the user has none yet. Nothing is written in either case, so the
+     * caller can take another path without incrementing the version twice.
+     */
+    public Optional<Users> updateUser(int id, Users changes) {
+        UserProfiles profile = changes.getUserProfiles();
+        List<Users> updated = profile == null
+                ? jdbcTemplate.query(UPDATE_USER, (resultSet, rowNum) -> mapUser(resultSet),
+                        changes.getFirstName(), changes.getLastName(), id)
+                : jdbcTemplate.query(UPDATE_USER_AND_PROFILE, (resultSet, rowNum) -> mapUser(resultSet),
+                        changes.getFirstName(), changes.getLastName(), id,
+                        profile.getUnit(), profile.getTeam(), profile.getPhoneNumber());
+        return updated.stream().findFirst();
+    }
+
+    /**
+     * Overwrites the fields of profile {@code id} in one round-trip and increments its version.
+     *
+     * @return the updated profile, with {@link UserProfiles#getUser()} set to an id-only owner if it has one,
+     * or empty if no profile has that id
+     */
+    public Optional<UserProfiles> updateProfile(int id, UserProfiles changes) {
+        List<UserProfiles> updated = jdbcTemplate.query(UPDATE_PROFILE,
+                (resultSet, rowNum) -> mapProfileWithOwner(resultSet),
+                changes.getUnit(), changes.getTeam(), changes.getPhoneNumber(), id);
+        return updated.stream().findFirst();
+    }
+
+    /**
+     * Like {@link #updateUser} but writes only the given attributes ({@code Users} attribute name to value) of
+     * the user and of its linked profile. A side without changes is read instead of updated, and its version
+     * stays as it is.
+     */
+    public Optional<Users> patchUser(int id, Map<String, String> userChanges, Map<String, String> profileChanges) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("WITH u AS (\n");
+        if (userChanges.isEmpty()) {
+            sql.append("SELECT id, first_name, last_name, version, profile_id FROM users WHERE id = ?\n");
+        } else {
+            sql.append("UPDATE users SET ").append(assignments(userChanges, USER_COLUMNS, args))
+                    .append("version = version + 1 WHERE id = ?\n")
+                    .append("RETURNING id, first_name, last_name, version, profile_id\n");
+        }
+        args.add(id);
+        sql.append(")\n");
+
+        if (!profileChanges.isEmpty()) {
+            sql.append(", p AS (\n")
+                    .append("UPDATE user_profiles SET ").append(assignments(profileChanges, PROFILE_COLUMNS, args))
+                    .append("version = user_profiles.version + 1\n")
+                    .append("FROM u WHERE user_profiles.id = u.profile_id\n")
+                    .append("RETURNING user_profiles.id, user_profiles.unit, user_profiles.team, ")
+                    .append("user_profiles.phone_number, user_profiles.created_at, user_profiles.version\n")
+                    .append(")\n");
+        }
+        sql.append("""
+                SELECT u.id, u.first_name, u.last_name, u.version,
+                       p.id AS profile_id, p.unit, p.team, p.phone_number, p.created_at, p.version AS profile_version
+                FROM u
+                """);
+        sql.append(profileChanges.isEmpty() ? "LEFT JOIN user_profiles p" : "LEFT JOIN p")
+                .append(" ON p.id = u.profile_id");
+
+        return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> mapUser(resultSet), args.toArray())
+                .stream().findFirst();
+    }
+
+    /**
+     * Like {@link #updateProfile} but writes only the given attributes ({@code UserProfiles} attribute name to
+     * value).
+     */
+    public Optional<UserProfiles> patchProfile(int id, Map<String, String> changes) {
+        List<Object> args = new ArrayList<>();
+        String sql = changes.isEmpty()
+                ? "SELECT id AS profile_id, unit, team, phone_number, created_at, version AS profile_version,\n"
+                  + "(SELECT u.id FROM users u WHERE u.profile_id = user_profiles.id) AS user_id\n"
+                  + "FROM user_profiles WHERE id = ?"
+                : "UPDATE user_profiles SET " + assignments(changes, PROFILE_COLUMNS, args)
+                  + "version = version + 1 WHERE id = ?\n"
+                  + "RETURNING id AS profile_id, unit, team, phone_number, created_at, version AS profile_version,\n"
+                  + "(SELECT u.id FROM users u WHERE u.profile_id = user_profiles.id) AS user_id";
+        args.add(id);
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> mapProfileWithOwner(resultSet), args.toArray())
+                .stream().findFirst();
+    }
+
+    /**
+     * Renders {@code column = ?, } for each change and appends its value to {@code args}.
+     */
+    private static String assignments(Map<String, String> changes, Map<String, String> columns, List<Object> args) {
+        StringBuilder assignments = new StringBuilder();
+        changes.forEach((attribute, value) -> {
+            String column = columns.get(attribute);
+            if (column == null) {
+                throw new IllegalArgumentException("Not a patchable attribute: " + attribute);
+            }
+            assignments.append(column).append(" = ?, ");
+            args.add(value);
+        });
+        return assignments.toString();
+    }
+
+    private static Users mapUser(ResultSet resultSet) throws SQLException {
+        Users user = new Users();
+        user.setId(resultSet.getInt("id"));
+        user.setFirstName(resultSet.getString("first_name"));
+        user.setLastName(resultSet.getString("last_name"));
+        user.setVersion(resultSet.getLong("version"));
+
+        if (resultSet.getObject("profile_id", Integer.class) != null) {
+            user.setUserProfiles(mapProfile(resultSet));
+        }
+        return user;
+    }
+
+    /**
+     * Maps a profile row that also has a {@code user_id} column; the owner is set as an id-only user.
+     */
+    private static UserProfiles mapProfileWithOwner(ResultSet resultSet) throws SQLException {
+        UserProfiles profile = mapProfile(resultSet);
+        Integer userId = resultSet.getObject("user_id", Integer.class);
+        if (userId != null) {
+            Users owner = new Users();
+            owner.setId(userId);
+            profile.setUser(owner);
+        }
+        return profile;
+    }
+
+    private static UserProfiles mapProfile(ResultSet resultSet) throws SQLException {
+        UserProfiles profile = new UserProfiles();
+        profile.setId(resultSet.getInt("profile_id"));
+        profile.setUnit(resultSet.getString("unit"));
+        profile.setTeam(resultSet.getString("team"));
+        profile.setPhoneNumber(resultSet.getString("phone_number"));
+        profile.setCreatedAt(resultSet.getTimestamp("created_at"));
+        profile.setVersion(resultSet.getLong("profile_version"));
+        return profile;
+    }
+}
@@ -1,9 +1,39 @@
 package com.github.user_manager.repository;
 
 import com.github.user_manager.entity.Users;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface UsersRepository extends JpaRepository<Users, Integer> {
+public interface UsersRepository extends JpaRepository<Users, Integer>, UsersSearchRepository, UsersViewRepository {
+
+    /**
+     * Keyset page: users with an id greater than {@code id}, ordered by id, with profiles joined in.
+     */
+    @EntityGraph(attributePaths = "userProfiles")
+    List<Users> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    /**
+     * Single user with the profile loaded in the same statement.
+     */
+    @EntityGraph(attributePaths = "userProfiles")
+    Optional<Users> findWithProfileById(int id);
+
+    /**
+     * Users with the given ids, profiles joined in; missing ids are simply absent from the result.
+     */
+    @EntityGraph(attributePaths = "userProfiles")
+    List<Users> findAllWithProfileByIdIn(Collection<Integer> ids);
+
+    /**
+     * Users owning the given profiles, profiles joined in.
+     */
+    @EntityGraph(attributePaths = "userProfiles")
+    List<Users> findAllWithProfileByUserProfilesIdIn(Collection<Integer> profileIds);
 }
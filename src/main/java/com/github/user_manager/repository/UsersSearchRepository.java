@@ -0,0 +1,13 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.UserSearchCriteria;
+import com.github.user_manager.dto.UserSummary;
+
+/**
+ * Criteria-based search fragment of {@link UsersRepository}.
+ */
+public interface UsersSearchRepository {
+
+    CursorPage<UserSummary> search(UserSearchCriteria criteria);
+}
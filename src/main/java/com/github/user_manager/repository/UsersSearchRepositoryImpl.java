@@ -0,0 +1,139 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.UserSearchCriteria;
+import com.github.user_manager.dto.UserSearchCriteria.SortKey;
+import com.github.user_manager.dto.UserSummary;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Builds the search as a Criteria query that selects only the {@link UserSummary} columns.
+ * <p>
+ * Paging is keyset-based on {@code (sort attribute, id)}: the cursor carries both values of the last row and
+ * the next page starts strictly after them, so every page is an index range scan (see the indexes on
+ * {@link Users} and {@link UserProfiles}) no matter how deep the client pages.
+ */
+public class UsersSearchRepositoryImpl implements UsersSearchRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final EntityManager entityManager;
+
+    public UsersSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public CursorPage<UserSummary> search(UserSearchCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> query = cb.createQuery(UserSummary.class);
+        Root<Users> user = query.from(Users.class);
+        Join<Users, UserProfiles> profile = user.join("userProfiles", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.team() != null) {
+            predicates.add(cb.equal(profile.get("team"), criteria.team()));
+        }
+        if (criteria.unit() != null) {
+            predicates.add(cb.equal(profile.get("unit"), criteria.unit()));
+        }
+        if (criteria.name() != null) {
+            String pattern = escapeLike(criteria.name().toLowerCase()) + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(user.get("firstName")), pattern, LIKE_ESCAPE),
+                    cb.like(cb.lower(user.get("lastName")), pattern, LIKE_ESCAPE)
+            ));
+        }
+
+        boolean ascending = criteria.direction() == Sort.Direction.ASC;
+        Path<Integer> id = user.get("id");
+        if (criteria.after() != null) {
+            predicates.add(afterCursor(cb, user, id, criteria.sort(), ascending, Cursor.decode(criteria.after())));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        if (criteria.sort() != SortKey.ID) {
+            Path<String> sortPath = user.get(criteria.sort().attribute());
+            orders.add(ascending ? cb.asc(sortPath) : cb.desc(sortPath));
+        }
+        orders.add(ascending ? cb.asc(id) : cb.desc(id));
+
+        query.select(cb.construct(UserSummary.class,
+                        id, user.get("firstName"), user.get("lastName"), profile.get("unit"), profile.get("team")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(orders);
+
+        List<UserSummary> rows = entityManager.createQuery(query)
+                .setMaxResults(criteria.limit() + 1)
+                .getResultList();
+
+        if (rows.size() <= criteria.limit()) {
+            return new CursorPage<>(rows, null);
+        }
+        List<UserSummary> page = List.copyOf(rows.subList(0, criteria.limit()));
+        return new CursorPage<>(page, Cursor.of(page.getLast(), criteria.sort()).encode());
+    }
+
+    /**
+     * The cursor of a page ending with {@code last}; used when pages from several shards are merged into one.
+     */
+    public static String cursorAfter(UserSummary last, SortKey sort) {
+        return Cursor.of(last, sort).encode();
+    }
+
+    private static Predicate afterCursor(CriteriaBuilder cb, Root<Users> user, Path<Integer> id,
+                                         SortKey sort, boolean ascending, Cursor cursor) {
+        Predicate idAfter = ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+        if (sort == SortKey.ID) {
+            return idAfter;
+        }
+        Path<String> sortPath = user.get(sort.attribute());
+        Predicate valueAfter = ascending
+                ? cb.greaterThan(sortPath, cursor.value())
+                : cb.lessThan(sortPath, cursor.value());
+        return cb.or(valueAfter, cb.and(cb.equal(sortPath, cursor.value()), idAfter));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Position after the last row of a page: its id and, for name sorts, its sort value.
+     * Encoded as URL-safe Base64 of {@code id:value}.
+     */
+    private record Cursor(int id, String value) {
+
+        static Cursor of(UserSummary last, SortKey sort) {
+            return switch (sort) {
+                case ID -> new Cursor(last.id(), "");
+                case FIRST_NAME -> new Cursor(last.id(), last.firstName());
+                case LAST_NAME -> new Cursor(last.id(), last.lastName());
+            };
+        }
+
+        static Cursor decode(String encoded) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf(':');
+                return new Cursor(Integer.parseInt(decoded.substring(0, separator)), decoded.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + encoded, e);
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((id + ":" + value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
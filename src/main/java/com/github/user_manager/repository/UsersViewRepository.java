@@ -0,0 +1,18 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.UserView;
+
+import java.util.List;
+
+/**
+ * Read-model fragment of {@link UsersRepository}: users as {@link UserView}s, without managed entities.
+ */
+public interface UsersViewRepository {
+
+    /**
+     * Up to {@code limit} users with an id greater than {@code after}, ordered by id, with the attributes in
+     * {@code fields}. The id is always included since it is the cursor.
+     */
+    List<UserView> findViews(int after, int limit, FieldSet fields);
+}
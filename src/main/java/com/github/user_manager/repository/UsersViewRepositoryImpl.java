@@ -0,0 +1,71 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.UserView;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tuple query over the selected columns only. Rows never enter the persistence context, so there is no
+ * dirty-checking snapshot and no lazy association to trip over during serialization.
+ */
+public class UsersViewRepositoryImpl implements UsersViewRepository {
+
+    private static final String PROFILE = "userProfiles.";
+
+    // Version columns selected for UserView.revision even when the fieldset leaves them out.
+    private static final String REVISION = "revision";
+
+    private final EntityManager entityManager;
+
+    public UsersViewRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<UserView> findViews(int after, int limit, FieldSet fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Users> user = query.from(Users.class);
+
+        ViewSelection selection = new ViewSelection();
+        selection.add("id", user.get("id"));
+        selection.add(REVISION, user.get("version"));
+        for (String attribute : List.of("firstName", "lastName", "version")) {
+            if (fields.includes(attribute)) {
+                selection.add(attribute, user.get(attribute));
+            }
+        }
+        if (fields.includesAnyOf("userProfiles")) {
+            Join<Users, UserProfiles> profile = user.join("userProfiles", JoinType.LEFT);
+            selection.addProfile(PROFILE, profile, fields);
+            selection.add(PROFILE + REVISION, profile.get("version"));
+        }
+
+        query.select(cb.tuple(selection.selections()))
+                .where(cb.greaterThan(user.get("id"), after))
+                .orderBy(cb.asc(user.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList().stream()
+                .map(tuple -> {
+                    Map<String, Object> values = selection.values(tuple);
+                    return new UserView(
+                            (Integer) values.get("id"),
+                            (String) values.get("firstName"),
+                            (String) values.get("lastName"),
+                            (Long) values.get("version"),
+                            ViewSelection.profile(values, PROFILE, fields.includes(PROFILE + "id")),
+                            new UserView.Revision((Long) values.get(REVISION),
+                                    (Integer) values.get(PROFILE + "id"), (Long) values.get(PROFILE + REVISION)));
+                })
+                .toList();
+    }
+}
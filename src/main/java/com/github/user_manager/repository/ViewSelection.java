@@ -0,0 +1,74 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.ProfileView;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Selection;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The columns a view query selects for a {@link FieldSet}, in order, and the mapping of its result tuples
+ * back to view attributes. Only selected attributes become columns, so a narrow fieldset means a narrow
+ * {@code SELECT} and, without profile fields, no join at all.
+ */
+final class ViewSelection {
+
+    private static final List<String> PROFILE_ATTRIBUTES = List.of(
+            "unit", "team", "phoneNumber", "createdAt", "version");
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<Selection<?>> selections = new ArrayList<>();
+
+    void add(String key, Path<?> path) {
+        keys.add(key);
+        selections.add(path);
+    }
+
+    /**
+     * Selects the profile's id (always, to tell a missing profile apart) and its attributes included under
+     * {@code prefix}, keyed {@code prefix + attribute}.
+     */
+    void addProfile(String prefix, Path<?> profile, FieldSet fields) {
+        add(prefix + "id", profile.get("id"));
+        for (String attribute : PROFILE_ATTRIBUTES) {
+            if (fields.includes(prefix + attribute)) {
+                add(prefix + attribute, profile.get(attribute));
+            }
+        }
+    }
+
+    List<Selection<?>> selections() {
+        return selections;
+    }
+
+    Map<String, Object> values(Tuple tuple) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            values.put(keys.get(i), tuple.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * The profile keyed under {@code prefix}, or {@code null} if the row has none.
+     */
+    static ProfileView profile(Map<String, Object> values, String prefix, boolean withId) {
+        Integer id = (Integer) values.get(prefix + "id");
+        if (id == null) {
+            return null;
+        }
+        return new ProfileView(
+                withId ? id : null,
+                (String) values.get(prefix + "unit"),
+                (String) values.get(prefix + "team"),
+                (String) values.get(prefix + "phoneNumber"),
+                (Timestamp) values.get(prefix + "createdAt"),
+                (Long) values.get(prefix + "version"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.user_manager.service;
+
+import com.github.user_manager.changes.ChangeStreamBroadcaster;
+import com.github.user_manager.concurrency.ConcurrencyLimited;
+import com.github.user_manager.dto.ChangeEventView;
+import com.github.user_manager.dto.ChangeFeedPage;
+import com.github.user_manager.entity.ChangeRelayState;
+import com.github.user_manager.repository.ChangeEventRepository;
+import com.github.user_manager.repository.ChangeRelayStateRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Read side of the change outbox: published changes by position, polled or streamed.
+ * <p>
+ * Published changes are kept for {@code user-manager.changes.retention}. A cursor before the oldest change
+ * still kept is answered with {@code 410 Gone}: the client has missed changes and has to start over from the
+ * current state. Without a cursor the feed starts at the oldest change kept.
+ */
+@Service
+public class ChangeFeedService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final ChangeEventRepository changeEventRepository;
+    private final ChangeRelayStateRepository relayStateRepository;
+    private final ChangeStreamBroadcaster broadcaster;
+    private final TransactionTemplate primaryTransaction;
+
+    public ChangeFeedService(ChangeEventRepository changeEventRepository,
+                             ChangeRelayStateRepository relayStateRepository,
+                             ChangeStreamBroadcaster broadcaster,
+                             PlatformTransactionManager transactionManager) {
+        this.changeEventRepository = changeEventRepository;
+        this.relayStateRepository = relayStateRepository;
+        this.broadcaster = broadcaster;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Published changes after position {@code since} (from the start if {@code null}).
+     * One extra row is fetched to know whether more changes are waiting.
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeedPage getChanges(Long since, Integer limit) {
+        long after = since == null ? 0 : since;
+        checkRetained(since, findPrunedPosition());
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<ChangeEventView> changes = findAfter(after, pageSize + 1);
+
+        if (changes.size() <= pageSize) {
+            return new ChangeFeedPage(changes, changes.isEmpty() ? after : changes.getLast().position(), false);
+        }
+        List<ChangeEventView> page = List.copyOf(changes.subList(0, pageSize));
+        return new ChangeFeedPage(page, page.getLast().position(), true);
+    }
+
+    /**
+     * Server-Sent Events stream of changes after position {@code since}: the backlog first, then live changes.
+     * <p>
+     * The backlog is read in a read-write transaction so it comes from the primary: a lagging replica could
+     * miss changes that were broadcast just before the stream subscribed.
+     */
+    @ConcurrencyLimited
+    public SseEmitter streamChanges(Long since) {
+        checkRetained(since, prunedPosition());
+        return broadcaster.subscribe(since == null ? 0 : since,
+                after -> primaryTransaction.execute(status -> findAfter(after, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Position of the last published change, 0 before the first. Changes up to it are committed, so a read
+     * that starts afterwards sees all of them.
+     */
+    @ConcurrencyLimited
+    public long headPosition() {
+        return primaryTransaction.execute(status -> relayStateRepository.findById(ChangeRelayState.ID)
+                .map(ChangeRelayState::getLastPosition)
+                .orElse(0L));
+    }
+
+    /**
+     * Last position deleted after the retention period, read from the primary; changes after it are all kept.
+     */
+    @ConcurrencyLimited
+    public long prunedPosition() {
+        return primaryTransaction.execute(status -> findPrunedPosition());
+    }
+
+    /**
+     * Up to {@code limit} published changes after {@code position}, read from the primary like the SSE backlog.
+     */
+    @ConcurrencyLimited
+    public List<ChangeEventView> changesAfter(long position, int limit) {
+        return primaryTransaction.execute(status -> findAfter(position, limit));
+    }
+
+    private long findPrunedPosition() {
+        return relayStateRepository.findById(ChangeRelayState.ID)
+                .map(ChangeRelayState::getPrunedPosition)
+                .orElse(0L);
+    }
+
+    private static void checkRetained(Long since, long prunedPosition) {
+        if (since != null && since < prunedPosition) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Changes up to position " + prunedPosition
+                    + " were deleted after the retention period");
+        }
+    }
+
+    private List<ChangeEventView> findAfter(long position, int limit) {
+        return changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(position, Limit.of(limit)).stream()
+                .map(ChangeEventView::of)
+                .toList();
+    }
+}
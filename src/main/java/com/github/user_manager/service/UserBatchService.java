@@ -0,0 +1,276 @@
+package com.github.user_manager.service;
+
+import com.github.user_manager.cache.EntityCaches;
+import com.github.user_manager.changes.ChangeEvents;
+import com.github.user_manager.concurrency.ConcurrencyLimited;
+import com.github.user_manager.dto.BatchItemResult;
+import com.github.user_manager.dto.BatchItemResult.Status;
+import com.github.user_manager.dto.BatchResult;
+import com.github.user_manager.entity.ChangeEvent.Type;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.repository.UsersRepository;
+import com.github.user_manager.sharding.GlobalIds;
+import com.github.user_manager.sharding.Shards;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk create/update/delete of users.
+ * <p>
+ * Items are written in chunks, one transaction per chunk. Within a chunk Hibernate groups the statements
+ * into JDBC batches ({@code hibernate.jdbc.batch_size}, ordered inserts/updates), and the persistence
+ * context is cleared after every chunk so memory stays bounded. A failing chunk is rolled back and retried in
+ * halves until the failing items are isolated: only those are reported as {@link Status#FAILED}, with one of
+ * the stable {@link BatchItemResult} error codes rather than the database's message. Cache entries of touched
+ * users are evicted when their chunk commits, and their change events are written in the chunk's transaction.
+ * <p>
+ * Sharded, the items are first split by shard and each shard's items are chunked separately, so a chunk
+ * never spans two databases; results still carry the items' positions in the request.
+ */
+@Slf4j
+@Service
+public class UserBatchService {
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    /**
+     * Items per transaction; a multiple of the JDBC batch size.
+     */
+    public static final int CHUNK_SIZE = 500;
+
+    private final UsersRepository usersRepository;
+    private final EntityManager entityManager;
+    private final EntityCaches entityCaches;
+    private final ChangeEvents changeEvents;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+
+    public UserBatchService(UsersRepository usersRepository,
+                            EntityManager entityManager,
+                            EntityCaches entityCaches,
+                            ChangeEvents changeEvents,
+                            PlatformTransactionManager transactionManager,
+                            ObjectProvider<Shards> shards) {
+        this.usersRepository = usersRepository;
+        this.entityManager = entityManager;
+        this.entityCaches = entityCaches;
+        this.changeEvents = changeEvents;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = shards.getIfAvailable();
+    }
+
+    @ConcurrencyLimited
+    public BatchResult createUsers(List<Users> users) {
+        // Sharded, ids are drawn up front: a new user's id decides the shard it is written to.
+        Map<Users, Integer> reservedIds = new IdentityHashMap<>();
+        if (shards != null) {
+            users.forEach(user -> reservedIds.put(user, shards.nextId(Users.ID_SEQUENCE)));
+        }
+        return inChunks(users, (offset, chunk) -> {
+            List<BatchItemResult> results = new ArrayList<>(chunk.size());
+            for (Users user : chunk) {
+                // A retry after a failed chunk persists the same objects again; the rolled-back ids are void.
+                resetIds(user);
+                persist(user, reservedIds.get(user));
+                changeEvents.userChanged(Type.CREATED, user);
+                if (user.getUserProfiles() != null) {
+                    changeEvents.profileChanged(Type.CREATED, user.getUserProfiles());
+                }
+            }
+            entityManager.flush();
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(BatchItemResult.of(offset + i, chunk.get(i).getId(), Status.CREATED));
+            }
+            return results;
+        }, user -> null, reservedIds::get);
+    }
+
+    @ConcurrencyLimited
+    public BatchResult updateUsers(List<Users> users) {
+        return inChunks(users, (offset, chunk) -> {
+            Map<Integer, Users> existingById = loadExisting(chunk.stream().map(Users::getId).toList());
+            List<BatchItemResult> results = new ArrayList<>(chunk.size());
+            List<Users> updated = new ArrayList<>(chunk.size());
+            List<Type> profileTypes = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Users user = chunk.get(i);
+                Users existingUser = existingById.get(user.getId());
+                if (existingUser == null) {
+                    results.add(BatchItemResult.of(offset + i, user.getId(), Status.NOT_FOUND));
+                    continue;
+                }
+                boolean hadProfile = existingUser.getUserProfiles() != null;
+                UserManagerService.copyChanges(user, existingUser);
+                updated.add(existingUser);
+                profileTypes.add(user.getUserProfiles() == null ? null : hadProfile ? Type.UPDATED : Type.CREATED);
+                entityCaches.evictUser(existingUser);
+                results.add(BatchItemResult.of(offset + i, user.getId(), Status.UPDATED));
+            }
+            // Events are recorded after the flush so their payloads carry the incremented versions.
+            entityManager.flush();
+            for (int i = 0; i < updated.size(); i++) {
+                changeEvents.userChanged(Type.UPDATED, updated.get(i));
+                if (profileTypes.get(i) != null) {
+                    changeEvents.profileChanged(profileTypes.get(i), updated.get(i).getUserProfiles());
+                }
+            }
+            entityManager.flush();
+            return results;
+        }, Users::getId);
+    }
+
+    @ConcurrencyLimited
+    public BatchResult deleteUsers(List<Integer> ids) {
+        return inChunks(ids, (offset, chunk) -> {
+            Map<Integer, Users> existingById = loadExisting(chunk);
+            List<BatchItemResult> results = new ArrayList<>(chunk.size());
+            List<Users> deleted = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Integer id = chunk.get(i);
+                Users existingUser = existingById.remove(id);
+                if (existingUser == null) {
+                    results.add(BatchItemResult.of(offset + i, id, Status.NOT_FOUND));
+                    continue;
+                }
+                entityManager.remove(existingUser);
+                deleted.add(existingUser);
+                entityCaches.evictUser(existingUser);
+                results.add(BatchItemResult.of(offset + i, id, Status.DELETED));
+            }
+            // Events are recorded after the deletes are flushed, see ChangeEvents.
+            entityManager.flush();
+            for (Users user : deleted) {
+                changeEvents.userChanged(Type.DELETED, user);
+                if (user.getUserProfiles() != null) {
+                    changeEvents.profileChanged(Type.DELETED, user.getUserProfiles());
+                }
+            }
+            entityManager.flush();
+            return results;
+        }, Function.identity());
+    }
+
+    private static void resetIds(Users user) {
+        user.setId(0);
+        if (user.getUserProfiles() != null) {
+            user.getUserProfiles().setId(0);
+        }
+    }
+
+    private void persist(Users user, Integer reservedId) {
+        if (reservedId == null) {
+            entityManager.persist(user);
+            return;
+        }
+        GlobalIds.reserve(Users.ID_SEQUENCE, reservedId);
+        try {
+            entityManager.persist(user);
+        } finally {
+            GlobalIds.clearReserved();
+        }
+    }
+
+    private Map<Integer, Users> loadExisting(List<Integer> ids) {
+        return usersRepository.findAllWithProfileByIdIn(ids).stream()
+                .collect(Collectors.toMap(Users::getId, Function.identity()));
+    }
+
+    private <T> BatchResult inChunks(List<T> items, ChunkWriter<T> writer, Function<T, Integer> idOf) {
+        return inChunks(items, writer, idOf, idOf);
+    }
+
+    /**
+     * @param shardKeyOf the user id that decides an item's shard; only used when sharded
+     */
+    private <T> BatchResult inChunks(List<T> items, ChunkWriter<T> writer,
+                                     Function<T, Integer> idOf, Function<T, Integer> shardKeyOf) {
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch size " + items.size() + " exceeds the maximum of " + MAX_BATCH_SIZE);
+        }
+        if (shards == null) {
+            return BatchResult.of(writeChunks(items, writer, idOf));
+        }
+
+        Map<String, List<Integer>> indexesByShard = new TreeMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Integer key = shardKeyOf.apply(items.get(i));
+            String shard = key == null ? shards.home() : shards.shardOf(key);
+            indexesByShard.computeIfAbsent(shard, name -> new ArrayList<>()).add(i);
+        }
+        BatchItemResult[] results = new BatchItemResult[items.size()];
+        indexesByShard.forEach((shard, indexes) -> {
+            List<T> shardItems = indexes.stream().map(items::get).toList();
+            for (BatchItemResult result : shards.callOn(shard, () -> writeChunks(shardItems, writer, idOf))) {
+                int index = indexes.get(result.index());
+                results[index] = new BatchItemResult(index, result.id(), result.status(), result.error());
+            }
+        });
+        return BatchResult.of(Arrays.asList(results));
+    }
+
+    private <T> List<BatchItemResult> writeChunks(List<T> items, ChunkWriter<T> writer, Function<T, Integer> idOf) {
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        for (int offset = 0; offset < items.size(); offset += CHUNK_SIZE) {
+            List<T> chunk = items.subList(offset, Math.min(offset + CHUNK_SIZE, items.size()));
+            results.addAll(writeChunk(offset, chunk, writer, idOf));
+        }
+        return results;
+    }
+
+    /**
+     * Writes {@code chunk} in one transaction. If that fails, each half is retried on its own, down to single
+     * items, so a bad item costs the others in its chunk a few retries but not their result.
+     */
+    private <T> List<BatchItemResult> writeChunk(int offset, List<T> chunk, ChunkWriter<T> writer,
+                                                 Function<T, Integer> idOf) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<BatchItemResult> chunkResults = writer.write(offset, chunk);
+                entityManager.clear();
+                return chunkResults;
+            });
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                log.debug("Batch item {} failed", offset, e);
+                return List.of(BatchItemResult.failed(offset, idOf.apply(chunk.getFirst()), errorCodeOf(e)));
+            }
+            int half = chunk.size() / 2;
+            List<BatchItemResult> results = new ArrayList<>(writeChunk(offset, chunk.subList(0, half), writer, idOf));
+            results.addAll(writeChunk(offset + half, chunk.subList(half, chunk.size()), writer, idOf));
+            return results;
+        }
+    }
+
+    private static String errorCodeOf(RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException) {
+            return BatchItemResult.CONSTRAINT_VIOLATION;
+        }
+        if (e instanceof ConcurrencyFailureException) {
+            return BatchItemResult.CONCURRENT_MODIFICATION;
+        }
+        return BatchItemResult.WRITE_FAILED;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        List<BatchItemResult> write(int offset, List<T> chunk);
+    }
+}
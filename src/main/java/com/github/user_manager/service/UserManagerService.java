@@ -1,52 +1,390 @@
 package com.github.user_manager.service;
 
+import com.github.user_manager.cache.EntityCaches;
+import com.github.user_manager.changes.ChangeEvents;
+import com.github.user_manager.concurrency.ConcurrencyLimited;
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.MergePatch;
+import com.github.user_manager.dto.PageRevision;
+import com.github.user_manager.dto.UserSearchCriteria;
+import com.github.user_manager.dto.UserSummary;
+import com.github.user_manager.dto.UserView;
+import com.github.user_manager.entity.ChangeEvent.Type;
+import com.github.user_manager.error.UserNotFoundException;
 import com.github.user_manager.entity.Users;
+import com.github.user_manager.repository.UsersJdbcRepository;
 import com.github.user_manager.repository.UsersRepository;
+import com.github.user_manager.repository.UsersSearchRepositoryImpl;
+import com.github.user_manager.sharding.ShardKey;
+import com.github.user_manager.sharding.Shards;
+import com.github.user_manager.web.ETags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.JsonNode;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class UserManagerService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final UsersRepository usersRepository;
+    private final UsersJdbcRepository usersJdbcRepository;
+    private final EntityCaches entityCaches;
+    private final ChangeEvents changeEvents;
+    // null unless user-manager.sharding.enabled; listings then query every shard and merge.
+    private final Shards shards;
 
-    public UserManagerService(UsersRepository usersRepository) {
+    public UserManagerService(UsersRepository usersRepository,
+                              UsersJdbcRepository usersJdbcRepository,
+                              EntityCaches entityCaches,
+                              ChangeEvents changeEvents,
+                              ObjectProvider<Shards> shards) {
         this.usersRepository = usersRepository;
+        this.usersJdbcRepository = usersJdbcRepository;
+        this.entityCaches = entityCaches;
+        this.changeEvents = changeEvents;
+        this.shards = shards.getIfAvailable();
+    }
+
+    /**
+     * Returns one keyset page of users ordered by id, starting after the given cursor, as read-model views
+     * with the attributes selected by {@code fields}.
+     * One extra row is fetched to know whether a next page exists without a count query.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserView> getUsers(Integer limit, Integer after, String fields) {
+        return findViewPage(limit, after, parseFields(fields, FieldSet.USER_FIELDS));
+    }
+
+    /**
+     * The {@link PageRevision} of the page {@link #getUsers} would return, for revalidating it without loading
+     * it: one aggregate query, or on a sharded store the ids and versions of the page.
+     */
+    @Transactional(readOnly = true)
+    public PageRevision getUsersRevision(Integer limit, Integer after, String fields) {
+        boolean withProfiles = parseFields(fields, FieldSet.USER_FIELDS).includesAnyOf("userProfiles");
+        if (shards == null) {
+            return usersJdbcRepository.findPageRevision(after == null ? 0 : after, pageSize(limit), withProfiles);
+        }
+        FieldSet revisionFields = FieldSet.parse(withProfiles ? "id,userProfiles.id" : "id", FieldSet.USER_FIELDS);
+        return PageRevision.of(findViewPage(limit, after, revisionFields));
+    }
+
+    private CursorPage<UserView> findViewPage(Integer limit, Integer after, FieldSet fieldSet) {
+        int pageSize = pageSize(limit);
+        int afterId = after == null ? 0 : after;
+        List<UserView> users = shards == null
+                ? usersRepository.findViews(afterId, pageSize + 1, fieldSet)
+                : shards.gatherSorted(() -> usersRepository.findViews(afterId, pageSize + 1, fieldSet),
+                Comparator.comparing(UserView::id), pageSize + 1);
+
+        if (users.size() <= pageSize) {
+            return new CursorPage<>(users, null);
+        }
+        List<UserView> page = List.copyOf(users.subList(0, pageSize));
+        return new CursorPage<>(page, String.valueOf(page.getLast().id()));
     }
 
-    public List<Users> getAllUsers() {
-        return usersRepository.findAll();
+    private static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
     }
 
-    public Users saveUser(Users user) {
-        return usersRepository.save(user);
+    /**
+     * Number of users, over all shards.
+     */
+    @ConcurrencyLimited
+    public long countUsers() {
+        if (shards == null) {
+            return usersRepository.count();
+        }
+        return shards.gather(usersRepository::count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Searches users by profile team/unit and name prefix, returning one keyset page of summaries.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserSummary> searchUsers(String team, String unit, String name,
+                                               String sort, String direction, Integer limit, String after) {
+        try {
+            UserSearchCriteria criteria = new UserSearchCriteria(
+                    blankToNull(team),
+                    blankToNull(unit),
+                    blankToNull(name),
+                    sort == null ? UserSearchCriteria.SortKey.ID : UserSearchCriteria.SortKey.fromAttribute(sort),
+                    direction == null ? Sort.Direction.ASC : Sort.Direction.fromString(direction),
+                    pageSize(limit),
+                    blankToNull(after));
+            return shards == null ? usersRepository.search(criteria) : searchShards(criteria);
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException e) {
+            // The repository proxy translates an invalid cursor into InvalidDataAccessApiUsageException.
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Merges the pages each shard returns for the same criteria. Every shard returns up to {@code limit} rows
+     * after the cursor, so the first {@code limit} merged rows are the page; the next cursor is recomputed
+     * from its last row. Name sorts compare in Java string order, which matches the database only under a
+     * binary ({@code C}) collation.
+     */
+    private CursorPage<UserSummary> searchShards(UserSearchCriteria criteria) {
+        List<CursorPage<UserSummary>> pages = shards.gather(() -> usersRepository.search(criteria));
+        Comparator<UserSummary> order = switch (criteria.sort()) {
+            case ID -> Comparator.comparing(UserSummary::id);
+            case FIRST_NAME -> Comparator.comparing(UserSummary::firstName).thenComparing(UserSummary::id);
+            case LAST_NAME -> Comparator.comparing(UserSummary::lastName).thenComparing(UserSummary::id);
+        };
+        if (criteria.direction() == Sort.Direction.DESC) {
+            order = order.reversed();
+        }
+        List<UserSummary> merged = Shards.merge(pages.stream().map(CursorPage::items).toList(),
+                order, criteria.limit() + 1);
+        boolean hasMore = merged.size() > criteria.limit()
+                || pages.stream().anyMatch(page -> page.nextCursor() != null);
+        if (!hasMore) {
+            return new CursorPage<>(merged, null);
+        }
+        List<UserSummary> page = List.copyOf(merged.subList(0, Math.min(merged.size(), criteria.limit())));
+        return new CursorPage<>(page, UsersSearchRepositoryImpl.cursorAfter(page.getLast(), criteria.sort()));
     }
 
-    public Users updateUser(Integer id, Users user) {
-        Users existingUser = usersRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+    /**
+     * Streams every user to {@code consumer} in id order without materializing the table. Sharded, the
+     * shards are streamed one after the other, each in id order.
+     */
+    public void streamUsers(Consumer<Users> consumer) {
+        if (shards == null) {
+            usersJdbcRepository.streamAll(consumer);
+        } else {
+            shards.forEach(() -> usersJdbcRepository.streamAll(consumer));
+        }
+    }
+
+    /**
+     * Current state of the users with the given ids and of the users owning the given profiles, over all
+     * shards. Missing ids are simply absent from the result.
+     */
+    @Transactional(readOnly = true)
+    public List<Users> findUsers(Collection<Integer> ids, Collection<Integer> profileIds) {
+        Supplier<List<Users>> query = () -> {
+            List<Users> users = new ArrayList<>();
+            if (!ids.isEmpty()) {
+                users.addAll(usersRepository.findAllWithProfileByIdIn(ids));
+            }
+            if (!profileIds.isEmpty()) {
+                users.addAll(usersRepository.findAllWithProfileByUserProfilesIdIn(profileIds));
+            }
+            return users;
+        };
+        if (shards == null) {
+            return query.get();
+        }
+        return shards.gather(query).stream().flatMap(List::stream).toList();
+    }
+
+    @Cacheable(cacheNames = EntityCaches.USERS, key = "#id")
+    @Transactional(readOnly = true)
+    public Users getUserById(@ShardKey Integer id) {
+        return usersRepository.findWithProfileById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    @Transactional
+    public Users saveUser(@ShardKey Users user) {
+        Users savedUser = usersRepository.save(user);
+        changeEvents.userChanged(Type.CREATED, savedUser);
+        if (savedUser.getUserProfiles() != null) {
+            changeEvents.profileChanged(Type.CREATED, savedUser.getUserProfiles());
+        }
+        entityCaches.evictUser(savedUser);
+        return savedUser;
+    }
+
+    /**
+     * Updates the user; {@code ifMatch} is the client's {@code If-Match} header, or {@code null} to skip the check.
+     * <p>
+     * Without {@code If-Match} on PostgreSQL this is a single {@code UPDATE ... RETURNING} for user and profile.
+     * Conditional updates and other databases take the JPA read-modify-write path, as does attaching a profile
+     * to a user that has none: that statement matches no row, so the user is still written only once.
+     */
+    @Transactional
+    public Users updateUser(@ShardKey Integer id, Users user, String ifMatch) {
+        if (ifMatch == null && usersJdbcRepository.supportsUpdateReturning()) {
+            Optional<Users> updated = usersJdbcRepository.updateUser(id, user);
+            if (updated.isPresent()) {
+                Users updatedUser = updated.get();
+                changeEvents.userChanged(Type.UPDATED, updatedUser);
+                if (user.getUserProfiles() != null) {
+                    changeEvents.profileChanged(Type.UPDATED, updatedUser.getUserProfiles());
+                }
+                entityCaches.evictUser(updatedUser);
+                return updatedUser;
+            }
+            if (user.getUserProfiles() == null) {
+                throw new UserNotFoundException(id);
+            }
+            // Nothing was written: the user is missing or has no profile to update yet. The JPA path below
+            // reports the former and attaches the profile in the latter, with a single version increment.
+        }
+
+        Users existingUser = usersRepository.findWithProfileById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+        checkPrecondition(ifMatch, ETags.of(existingUser));
+        boolean hadProfile = existingUser.getUserProfiles() != null;
 
-        existingUser.setFirstName(user.getFirstName());
-        existingUser.setLastName(user.getLastName());
+        copyChanges(user, existingUser);
 
+        // Flushed so the change event carries the incremented versions.
+        Users updatedUser = usersRepository.saveAndFlush(existingUser);
+        changeEvents.userChanged(Type.UPDATED, updatedUser);
         if (user.getUserProfiles() != null) {
-            if (existingUser.getUserProfiles() != null) {
-                existingUser.getUserProfiles().setUnit(user.getUserProfiles().getUnit());
-                existingUser.getUserProfiles().setTeam(user.getUserProfiles().getTeam());
-                existingUser.getUserProfiles().setPhoneNumber(user.getUserProfiles().getPhoneNumber());
-            } else {
-                existingUser.setUserProfiles(user.getUserProfiles());
+            changeEvents.profileChanged(hadProfile ? Type.UPDATED : Type.CREATED, updatedUser.getUserProfiles());
+        }
+        entityCaches.evictUser(updatedUser);
+        return updatedUser;
+    }
+
+    /**
+     * Applies an RFC 7396 merge patch to the user and its profile, writing only the columns it sets.
+     * Takes the same single-statement or JPA path as {@link #updateUser}.
+     */
+    @Transactional
+    public Users patchUser(@ShardKey Integer id, JsonNode patch, String ifMatch) {
+        MergePatch changes = parsePatch(() -> MergePatch.ofUser(patch));
+
+        if (ifMatch == null && usersJdbcRepository.supportsUpdateReturning()) {
+            Users patchedUser = usersJdbcRepository.patchUser(id, changes.user(), changes.profile())
+                    .orElseThrow(() -> new UserNotFoundException(id));
+            requireProfileFor(changes, patchedUser);
+            recordPatch(changes, patchedUser);
+            entityCaches.evictUser(patchedUser);
+            return patchedUser;
+        }
+
+        Users existingUser = usersRepository.findWithProfileById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+        checkPrecondition(ifMatch, ETags.of(existingUser));
+        requireProfileFor(changes, existingUser);
+
+        changes.user().forEach((attribute, value) -> {
+            switch (attribute) {
+                case "firstName" -> existingUser.setFirstName(value);
+                case "lastName" -> existingUser.setLastName(value);
+                default -> throw new IllegalArgumentException("Not a patchable attribute: " + attribute);
             }
+        });
+        if (!changes.profile().isEmpty()) {
+            UserProfilesService.applyPatch(changes.profile(), existingUser.getUserProfiles());
         }
 
-        return usersRepository.save(existingUser);
+        Users patchedUser = usersRepository.saveAndFlush(existingUser);
+        recordPatch(changes, patchedUser);
+        entityCaches.evictUser(patchedUser);
+        return patchedUser;
     }
 
-    public void deleteUser(Integer id) {
-        Users user = usersRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+    @Transactional
+    public void deleteUser(@ShardKey Integer id, String ifMatch) {
+        Users user = usersRepository.findWithProfileById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+        checkPrecondition(ifMatch, ETags.of(user));
         usersRepository.delete(user);
+        usersRepository.flush();
+        changeEvents.userChanged(Type.DELETED, user);
+        if (user.getUserProfiles() != null) {
+            changeEvents.profileChanged(Type.DELETED, user.getUserProfiles());
+        }
+        entityCaches.evictUser(user);
+    }
+
+    /**
+     * One event per table the patch wrote to.
+     */
+    private void recordPatch(MergePatch changes, Users patchedUser) {
+        if (!changes.user().isEmpty()) {
+            changeEvents.userChanged(Type.UPDATED, patchedUser);
+        }
+        if (!changes.profile().isEmpty()) {
+            changeEvents.profileChanged(Type.UPDATED, patchedUser.getUserProfiles());
+        }
+    }
+
+    private static void checkPrecondition(String ifMatch, String currentETag) {
+        if (!ETags.isPreconditionMet(ifMatch, currentETag)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "User was modified, current ETag is " + currentETag);
+        }
+    }
+
+    /**
+     * A patch can change a profile but not create one, since a new profile needs every field; that is what
+     * {@code PUT} is for. Throwing also rolls back a user update already made in this transaction.
+     */
+    private static void requireProfileFor(MergePatch changes, Users user) {
+        if (!changes.profile().isEmpty() && user.getUserProfiles() == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "User " + user.getId() + " has no profile to patch; use PUT to attach one");
+        }
+    }
+
+    static MergePatch parsePatch(Supplier<MergePatch> parser) {
+        try {
+            return parser.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses a {@code ?fields=} parameter against the attributes of the resource; unknown fields are a 400.
+     */
+    static FieldSet parseFields(String fields, List<String> allowed) {
+        try {
+            return FieldSet.parse(fields, allowed);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    /**
+     * Applies the updatable fields of {@code source} to {@code target}, attaching the profile if
+     * {@code target} has none yet.
+     */
+    static void copyChanges(Users source, Users target) {
+        target.setFirstName(source.getFirstName());
+        target.setLastName(source.getLastName());
+
+        if (source.getUserProfiles() != null) {
+            if (target.getUserProfiles() != null) {
+                target.getUserProfiles().setUnit(source.getUserProfiles().getUnit());
+                target.getUserProfiles().setTeam(source.getUserProfiles().getTeam());
+                target.getUserProfiles().setPhoneNumber(source.getUserProfiles().getPhoneNumber());
+            } else {
+                target.setUserProfiles(source.getUserProfiles());
+            }
+        }
     }
 
 }
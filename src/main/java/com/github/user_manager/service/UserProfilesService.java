@@ -1,48 +1,178 @@
 package com.github.user_manager.service;
 
+import com.github.user_manager.cache.EntityCaches;
+import com.github.user_manager.changes.ChangeEvents;
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.MergePatch;
+import com.github.user_manager.dto.ProfileView;
+import com.github.user_manager.entity.ChangeEvent.Type;
 import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.error.ProfileNotFoundException;
+import com.github.user_manager.loader.ProfileLoader;
 import com.github.user_manager.repository.UserProfilesRepository;
+import com.github.user_manager.repository.UsersJdbcRepository;
+import com.github.user_manager.sharding.ShardKey;
+import com.github.user_manager.sharding.Shards;
+import com.github.user_manager.web.ETags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.JsonNode;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class UserProfilesService {
 
     private final UserProfilesRepository userProfilesRepository;
+    private final UsersJdbcRepository usersJdbcRepository;
+    private final EntityCaches entityCaches;
+    private final ChangeEvents changeEvents;
+    private final ProfileLoader profileLoader;
+    private final Shards shards;
 
-    public UserProfilesService(UserProfilesRepository userProfilesRepository) {
+    public UserProfilesService(UserProfilesRepository userProfilesRepository,
+                               UsersJdbcRepository usersJdbcRepository,
+                               EntityCaches entityCaches,
+                               ChangeEvents changeEvents,
+                               ProfileLoader profileLoader,
+                               ObjectProvider<Shards> shards) {
         this.userProfilesRepository = userProfilesRepository;
+        this.usersJdbcRepository = usersJdbcRepository;
+        this.entityCaches = entityCaches;
+        this.changeEvents = changeEvents;
+        this.profileLoader = profileLoader;
+        this.shards = shards.getIfAvailable();
     }
 
-    public List<UserProfiles> getAllProfiles() {
-        return userProfilesRepository.findAll();
+    /**
+     * All profiles as read-model views with the attributes selected by {@code fields}, in id order.
+     */
+    @Transactional(readOnly = true)
+    public List<ProfileView> getAllProfiles(String fields) {
+        FieldSet fieldSet = UserManagerService.parseFields(fields, FieldSet.PROFILE_FIELDS);
+        if (shards == null) {
+            return userProfilesRepository.findAllViews(fieldSet);
+        }
+        return shards.gatherSorted(() -> userProfilesRepository.findAllViews(fieldSet),
+                Comparator.comparing(ProfileView::id), Integer.MAX_VALUE);
     }
 
+    /**
+     * Cache misses go through the {@link ProfileLoader}, which coalesces and batches them. Not transactional:
+     * the loader runs the query in its own read-only transaction, so waiting for a batch holds no connection.
+     */
+    @Cacheable(cacheNames = EntityCaches.PROFILES, key = "#id")
     public UserProfiles getProfileById(Integer id) {
-        return userProfilesRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Profile not found with id: " + id));
+        return profileLoader.load(id)
+                .orElseThrow(() -> new ProfileNotFoundException(id));
     }
 
-    public UserProfiles saveProfile(UserProfiles profile) {
-        return userProfilesRepository.save(profile);
+    @Transactional
+    public UserProfiles saveProfile(@ShardKey UserProfiles profile) {
+        UserProfiles savedProfile = userProfilesRepository.save(profile);
+        changeEvents.profileChanged(Type.CREATED, savedProfile);
+        return savedProfile;
     }
 
-    public UserProfiles updateProfile(Integer id, UserProfiles profile) {
-        UserProfiles existingProfile = userProfilesRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Profile not found with id: " + id));
+    /**
+     * Updates the profile; {@code ifMatch} is the client's {@code If-Match} header, or {@code null} to skip the check.
+     * <p>
+     * Without {@code If-Match} on PostgreSQL this is a single {@code UPDATE ... RETURNING}; otherwise the profile
+     * is read, checked and written through JPA.
+     */
+    @Transactional
+    public UserProfiles updateProfile(@ShardKey(ShardKey.Kind.PROFILE) Integer id, UserProfiles profile,
+                                      String ifMatch) {
+        if (ifMatch == null && usersJdbcRepository.supportsUpdateReturning()) {
+            UserProfiles updatedProfile = usersJdbcRepository.updateProfile(id, profile)
+                    .orElseThrow(() -> new ProfileNotFoundException(id));
+            changeEvents.profileChanged(Type.UPDATED, updatedProfile);
+            entityCaches.evictProfile(updatedProfile);
+            return updatedProfile;
+        }
+
+        UserProfiles existingProfile = userProfilesRepository.findWithUserById(id)
+                .orElseThrow(() -> new ProfileNotFoundException(id));
+        checkPrecondition(ifMatch, ETags.of(existingProfile));
 
         existingProfile.setUnit(profile.getUnit());
         existingProfile.setTeam(profile.getTeam());
         existingProfile.setPhoneNumber(profile.getPhoneNumber());
 
-        return userProfilesRepository.save(existingProfile);
+        // Flushed so the change event carries the incremented version.
+        UserProfiles updatedProfile = userProfilesRepository.saveAndFlush(existingProfile);
+        changeEvents.profileChanged(Type.UPDATED, updatedProfile);
+        entityCaches.evictProfile(existingProfile);
+        return updatedProfile;
+    }
+
+    /**
+     * Applies an RFC 7396 merge patch to the profile, writing only the columns it sets.
+     * Takes the same single-statement or JPA path as {@link #updateProfile}.
+     */
+    @Transactional
+    public UserProfiles patchProfile(@ShardKey(ShardKey.Kind.PROFILE) Integer id, JsonNode patch, String ifMatch) {
+        MergePatch changes = UserManagerService.parsePatch(() -> MergePatch.ofProfile(patch));
+
+        if (ifMatch == null && usersJdbcRepository.supportsUpdateReturning()) {
+            UserProfiles patchedProfile = usersJdbcRepository.patchProfile(id, changes.profile())
+                    .orElseThrow(() -> new ProfileNotFoundException(id));
+            if (!changes.profile().isEmpty()) {
+                changeEvents.profileChanged(Type.UPDATED, patchedProfile);
+            }
+            entityCaches.evictProfile(patchedProfile);
+            return patchedProfile;
+        }
+
+        UserProfiles existingProfile = userProfilesRepository.findWithUserById(id)
+                .orElseThrow(() -> new ProfileNotFoundException(id));
+        checkPrecondition(ifMatch, ETags.of(existingProfile));
+        applyPatch(changes.profile(), existingProfile);
+
+        UserProfiles patchedProfile = userProfilesRepository.saveAndFlush(existingProfile);
+        if (!changes.profile().isEmpty()) {
+            changeEvents.profileChanged(Type.UPDATED, patchedProfile);
+        }
+        entityCaches.evictProfile(existingProfile);
+        return patchedProfile;
     }
 
-    public void deleteProfile(Integer id) {
-        UserProfiles profile = userProfilesRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Profile not found with id: " + id));
+    @Transactional
+    public void deleteProfile(@ShardKey(ShardKey.Kind.PROFILE) Integer id, String ifMatch) {
+        UserProfiles profile = userProfilesRepository.findWithUserById(id)
+                .orElseThrow(() -> new ProfileNotFoundException(id));
+        checkPrecondition(ifMatch, ETags.of(profile));
         userProfilesRepository.delete(profile);
+        userProfilesRepository.flush();
+        changeEvents.profileChanged(Type.DELETED, profile);
+        entityCaches.evictProfile(profile);
+    }
+
+    /**
+     * Sets the patched attributes on a managed profile; with {@code @DynamicUpdate} only those columns are written.
+     */
+    static void applyPatch(Map<String, String> changes, UserProfiles profile) {
+        changes.forEach((attribute, value) -> {
+            switch (attribute) {
+                case "unit" -> profile.setUnit(value);
+                case "team" -> profile.setTeam(value);
+                case "phoneNumber" -> profile.setPhoneNumber(value);
+                default -> throw new IllegalArgumentException("Not a patchable attribute: " + attribute);
+            }
+        });
+    }
+
+    private static void checkPrecondition(String ifMatch, String currentETag) {
+        if (!ETags.isPreconditionMet(ifMatch, currentETag)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Profile was modified, current ETag is " + currentETag);
+        }
     }
 
 }
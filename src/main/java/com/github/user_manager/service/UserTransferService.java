@@ -0,0 +1,377 @@
+package com.github.user_manager.service;
+
+import com.github.user_manager.concurrency.ConcurrencyLimitAspect;
+import com.github.user_manager.dto.BatchResult;
+import com.github.user_manager.dto.BatchItemResult;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.transfer.TransferFormat;
+import com.github.user_manager.transfer.TransferJob;
+import com.github.user_manager.transfer.TransferProperties;
+import com.github.user_manager.transfer.UserCsv;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs bulk imports and exports of users as background jobs on a small bounded pool.
+ * <p>
+ * Both directions stream: an import parses the staged upload one record at a time and writes it in
+ * {@link UserBatchService#CHUNK_SIZE} chunks, an export writes rows from the {@link UserManagerService#streamUsers}
+ * cursor straight into a gzip file. Memory stays flat whatever the file size. Finished jobs and their files are
+ * dropped after {@code user-manager.transfer.retention}.
+ * <p>
+ * Workers run {@link ConcurrencyLimitAspect#exempt exempt} from the data layer concurrency limit. The pool size
+ * already bounds the connections they take, a rejected chunk would fail an import halfway, and an export holds
+ * its call for the whole file.
+ */
+@Slf4j
+@Service
+public class UserTransferService implements AutoCloseable {
+
+    private final UserBatchService userBatchService;
+    private final UserManagerService userManagerService;
+    private final ObjectMapper objectMapper;
+    private final TransferProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, TransferJob> jobs = new ConcurrentHashMap<>();
+
+    public UserTransferService(UserBatchService userBatchService,
+                               UserManagerService userManagerService,
+                               ObjectMapper objectMapper,
+                               TransferProperties properties) {
+        this.userBatchService = userBatchService;
+        this.userManagerService = userManagerService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        // Rejects instead of queueing without bound, so a burst of uploads cannot pile up on disk.
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("transfer-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stages the upload and queues its import. The file is copied first because the multipart temp file
+     * is deleted when the request ends.
+     */
+    public TransferJob startImport(MultipartFile file, String format) {
+        if (file == null || file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload a non-empty file");
+        }
+        TransferFormat transferFormat = parseFormat(format);
+        TransferJob job = new TransferJob(TransferJob.Kind.IMPORT, transferFormat,
+                newFile(transferFormat.extension()));
+        try {
+            file.transferTo(job.file());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not stage upload " + job.file(), e);
+        }
+        return submit(job, () -> runImport(job));
+    }
+
+    public TransferJob startExport(String format) {
+        TransferFormat transferFormat = parseFormat(format);
+        TransferJob job = new TransferJob(TransferJob.Kind.EXPORT, transferFormat,
+                newFile(transferFormat.extension() + ".gz"));
+        return submit(job, () -> runExport(job));
+    }
+
+    public TransferJob getJob(String id) {
+        TransferJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found with id: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * The file written by a successful export.
+     */
+    public Path getExportFile(String id) {
+        TransferJob job = getJob(id);
+        if (job.kind() != TransferJob.Kind.EXPORT) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job " + id + " is not an export");
+        }
+        if (job.status() != TransferJob.Status.SUCCEEDED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Export " + id + " is " + job.status());
+        }
+        return job.file();
+    }
+
+    private TransferJob submit(TransferJob job, Runnable task) {
+        purgeExpired();
+        jobs.put(job.id(), job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            deleteQuietly(job.file());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many transfer jobs, retry later");
+        }
+        return job;
+    }
+
+    private void run(TransferJob job, Runnable task) {
+        try {
+            ConcurrencyLimitAspect.exempt(task);
+            job.succeeded();
+        } catch (RuntimeException e) {
+            log.warn("{} job {} failed", job.kind(), job.id(), e);
+            job.failed(e.getMessage());
+            if (job.kind() == TransferJob.Kind.EXPORT) {
+                deleteQuietly(job.file());
+            }
+        } finally {
+            if (job.kind() == TransferJob.Kind.IMPORT) {
+                deleteQuietly(job.file());
+            }
+        }
+    }
+
+    private void runImport(TransferJob job) {
+        try (FileChannel channel = FileChannel.open(job.file());
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8))) {
+            job.started(channel.size());
+            RecordSource source = job.format() == TransferFormat.CSV ? csvSource(reader) : ndjsonSource(reader);
+
+            List<Users> chunk = new ArrayList<>(UserBatchService.CHUNK_SIZE);
+            long rejected = 0;
+            String lastError = null;
+            while (true) {
+                Users user;
+                try {
+                    user = source.next();
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    lastError = e.getMessage();
+                    continue;
+                }
+                if (user == null) {
+                    break;
+                }
+                chunk.add(user);
+                if (chunk.size() == UserBatchService.CHUNK_SIZE) {
+                    writeChunk(job, chunk, rejected, lastError);
+                    job.progress(channel.position());
+                    rejected = 0;
+                    lastError = null;
+                }
+            }
+            writeChunk(job, chunk, rejected, lastError);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeChunk(TransferJob job, List<Users> chunk, long rejected, String lastError) {
+        if (chunk.isEmpty()) {
+            job.processed(0, rejected, lastError);
+            return;
+        }
+        BatchResult result = userBatchService.createUsers(chunk);
+        String error = result.items().stream()
+                .map(BatchItemResult::error)
+                .filter(message -> message != null)
+                .findFirst()
+                .orElse(lastError);
+        job.processed(result.succeeded(), result.failed() + rejected, error);
+        chunk.clear();
+    }
+
+    private void runExport(TransferJob job) {
+        job.started(userManagerService.countUsers());
+        long[] exported = {0};
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(job.file()), 64 * 1024);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024)) {
+            if (job.format() == TransferFormat.CSV) {
+                UserCsv.writeHeader(writer);
+            }
+            userManagerService.streamUsers(user -> {
+                try {
+                    if (job.format() == TransferFormat.CSV) {
+                        UserCsv.write(writer, user);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(user));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                job.processed(1, 0, null);
+                job.progress(++exported[0]);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RecordSource csvSource(BufferedReader reader) {
+        UserCsv.UserReader csv = new UserCsv.UserReader(reader, properties.getMaxRecordLength(),
+                properties.getMaxFieldLength());
+        return () -> {
+            long line = csv.line();
+            try {
+                return validate(csv.next());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + line + ": " + e.getMessage(), e);
+            }
+        };
+    }
+
+    private RecordSource ndjsonSource(BufferedReader reader) {
+        long[] line = {0};
+        return () -> {
+            String text;
+            do {
+                line[0]++;
+                text = readLine(reader, line[0]);
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return validate(objectMapper.readValue(text, Users.class));
+            } catch (IllegalArgumentException | JacksonException e) {
+                throw new IllegalArgumentException("Line " + line[0] + ": " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * {@link BufferedReader#readLine()} with a length limit, so a file without line breaks cannot exhaust memory.
+     *
+     * @throws IllegalStateException if the line is longer than {@code max-record-length}
+     */
+    private String readLine(BufferedReader reader, long line) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (text.length() == properties.getMaxRecordLength()) {
+                throw new IllegalStateException("Line " + line + " is longer than "
+                        + properties.getMaxRecordLength() + " characters");
+            }
+            text.append((char) c);
+        }
+        if (c == -1 && text.isEmpty()) {
+            return null;
+        }
+        int end = text.length();
+        if (end > 0 && text.charAt(end - 1) == '\r') {
+            text.setLength(end - 1);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Rejects rows the database would refuse, so one bad row does not fail the whole chunk's transaction.
+     * Ids and versions in the file are ignored; imported users always get new ids.
+     */
+    private static Users validate(Users user) {
+        if (user == null) {
+            return null;
+        }
+        user.setId(0);
+        user.setVersion(0);
+        require("firstName", user.getFirstName(), 50);
+        require("lastName", user.getLastName(), 50);
+        UserProfiles profile = user.getUserProfiles();
+        if (profile != null) {
+            profile.setId(0);
+            profile.setVersion(0);
+            profile.setCreatedAt(null);
+            require("unit", profile.getUnit(), 25);
+            require("team", profile.getTeam(), 25);
+            require("phoneNumber", profile.getPhoneNumber(), 20);
+        }
+        return user;
+    }
+
+    private static void require(String name, String value, int maxLength) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(name + " is longer than " + maxLength + " characters");
+        }
+    }
+
+    private static TransferFormat parseFormat(String format) {
+        try {
+            return TransferFormat.fromName(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private Path newFile(String extension) {
+        try {
+            Files.createDirectories(properties.getDirectory());
+            return Files.createTempFile(properties.getDirectory(), "users-", extension);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create a file in " + properties.getDirectory(), e);
+        }
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        jobs.values().removeIf(job -> {
+            Instant finishedAt = job.finishedAt();
+            if (finishedAt == null || finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(job.file());
+            return true;
+        });
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Next parsed user, {@code null} at the end of the file.
+     */
+    @FunctionalInterface
+    private interface RecordSource {
+        Users next() throws IOException;
+    }
+}
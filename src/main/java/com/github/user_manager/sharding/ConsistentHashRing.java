@@ -0,0 +1,72 @@
+package com.github.user_manager.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maps user ids to shards by consistent hashing.
+ * <p>
+ * Every shard owns {@code virtualNodes} points on a 64-bit ring, placed by the MD5 of {@code name#n}; a user
+ * belongs to the first point at or after the hash of its id. Adding a shard thus only takes over the users
+ * just before its points, about {@code 1/(n+1)} of them, and every other user stays where it is. Placement
+ * depends only on the shard names, so all instances with the same configuration agree on it.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final Set<String> shards;
+
+    public ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one shard");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive, was " + virtualNodes);
+        }
+        this.shards = Set.copyOf(new TreeSet<>(shards));
+        // Sorted so that the rare point collision is resolved the same way on every instance.
+        for (String shard : new TreeSet<>(shards)) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.putIfAbsent(pointOf(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public String shardFor(int userId) {
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(userId));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    public Set<String> shards() {
+        return shards;
+    }
+
+    private static long pointOf(String node) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(node.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    /**
+     * MurmurHash3's 64-bit finalizer: sequential ids land far apart on the ring.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.user_manager.sharding;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out ids that are unique across all shards, from the sequences of the home shard only.
+ * <p>
+ * Each {@code nextval} reserves a block of {@code blockSize} ids, the same {@code pooled-lo} scheme Hibernate
+ * uses without sharding, so one round trip to the home shard serves a block of inserts on any shard.
+ * {@link GlobalSequenceGenerator} draws from the installed instance, which Hibernate creates itself and so
+ * cannot be injected.
+ * <p>
+ * A caller that has to know a user's id before the insert (to pick its shard) takes it with {@link #next} and
+ * {@linkplain #reserve reserves} it for the current thread; the generator then uses it for the next entity
+ * of that sequence.
+ */
+public final class GlobalIds {
+
+    private static volatile GlobalIds installed;
+
+    private static final ThreadLocal<Map<String, Long>> RESERVED = new ThreadLocal<>();
+
+    private final DataSource home;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private GlobalIds(DataSource home, int blockSize) {
+        this.home = home;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Makes {@link GlobalSequenceGenerator} allocate from {@code home} from now on.
+     */
+    public static GlobalIds install(DataSource home, int blockSize) {
+        GlobalIds globalIds = new GlobalIds(home, blockSize);
+        installed = globalIds;
+        return globalIds;
+    }
+
+    /**
+     * @return the installed instance, or {@code null} without sharding
+     */
+    static GlobalIds installed() {
+        return installed;
+    }
+
+    public void uninstall() {
+        if (installed == this) {
+            installed = null;
+        }
+    }
+
+    public long next(String sequence) {
+        Block block = blocks.computeIfAbsent(sequence, name -> new Block());
+        synchronized (block) {
+            if (block.next == block.limit) {
+                block.next = fetchNextValue(sequence);
+                block.limit = block.next + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Makes {@code id} the id of the next entity of {@code sequence} persisted on this thread.
+     */
+    public static void reserve(String sequence, long id) {
+        Map<String, Long> reserved = RESERVED.get();
+        if (reserved == null) {
+            reserved = new HashMap<>();
+            RESERVED.set(reserved);
+        }
+        reserved.put(sequence, id);
+    }
+
+    /**
+     * Drops reservations the call they were made for did not use, e.g. because it failed before persisting.
+     */
+    public static void clearReserved() {
+        RESERVED.remove();
+    }
+
+    static Long takeReserved(String sequence) {
+        Map<String, Long> reserved = RESERVED.get();
+        if (reserved == null) {
+            return null;
+        }
+        Long id = reserved.remove(sequence);
+        if (reserved.isEmpty()) {
+            RESERVED.remove();
+        }
+        return id;
+    }
+
+    private long fetchNextValue(String sequence) {
+        try (Connection connection = home.getConnection();
+             Statement statement = connection.createStatement()) {
+            String sql = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+                    ? "SELECT nextval('" + sequence + "')"
+                    : "SELECT NEXT VALUE FOR " + sequence;
+            try (ResultSet resultSet = statement.executeQuery(sql)) {
+                resultSet.next();
+                long value = resultSet.getLong(1);
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+                return value;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not allocate ids from " + sequence, e);
+        }
+    }
+
+    private static final class Block {
+        long next;
+        long limit;
+    }
+}
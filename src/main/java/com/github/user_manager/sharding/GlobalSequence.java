@@ -0,0 +1,28 @@
+package com.github.user_manager.sharding;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sequence-generated id that stays unique across shards; see {@link GlobalSequenceGenerator}.
+ * Takes the place of {@code @GeneratedValue} with a {@code @SequenceGenerator}.
+ */
+@IdGeneratorType(GlobalSequenceGenerator.class)
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GlobalSequence {
+
+    /**
+     * The database sequence.
+     */
+    String name();
+
+    /**
+     * Ids per {@code nextval}; must equal the sequence's {@code INCREMENT BY}.
+     */
+    int allocationSize() default 50;
+}
@@ -0,0 +1,54 @@
+package com.github.user_manager.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Properties;
+
+/**
+ * Hibernate's sequence generator, unless sharding is enabled.
+ * <p>
+ * Without sharding this is exactly {@code @GeneratedValue(strategy = SEQUENCE)}: ids come from the sequence on
+ * the connection of the session, in {@code pooled-lo} blocks. With sharding every shard has its own copy of the
+ * sequence, so ids come from {@link GlobalIds} instead, which only uses the home shard's sequences; an id
+ * {@linkplain GlobalIds#reserve reserved} for the entity takes precedence.
+ */
+public class GlobalSequenceGenerator extends SequenceStyleGenerator {
+
+    private final String sequenceName;
+    private final int allocationSize;
+    private final boolean intId;
+
+    public GlobalSequenceGenerator(GlobalSequence config, Member member, GeneratorCreationContext context) {
+        this.sequenceName = config.name();
+        this.allocationSize = config.allocationSize();
+        Class<?> type = member instanceof Field field ? field.getType() : ((Method) member).getReturnType();
+        this.intId = type == int.class || type == Integer.class;
+    }
+
+    @Override
+    public void configure(GeneratorCreationContext creationContext, Properties parameters) {
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        super.configure(creationContext, parameters);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        GlobalIds globalIds = GlobalIds.installed();
+        if (globalIds == null) {
+            return super.generate(session, object);
+        }
+        Long reserved = GlobalIds.takeReserved(sequenceName);
+        long id = reserved != null ? reserved : globalIds.next(sequenceName);
+        // Not a conditional expression: that would promote the int branch back to long.
+        if (intId) {
+            return Math.toIntExact(id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.user_manager.sharding;
+
+/**
+ * The shard the current thread works on; {@link ShardRoutingDataSource} opens connections there.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return the shard, or {@code null} for the home shard
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Switches to {@code shard} and returns the previous one, to be passed to {@link #restore}.
+     */
+    static String enter(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
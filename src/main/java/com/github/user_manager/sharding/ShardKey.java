@@ -0,0 +1,33 @@
+package com.github.user_manager.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the first parameter of a service method as the one that decides its shard; see
+ * {@link ShardRoutingAspect}. Has no effect without sharding.
+ * <p>
+ * The parameter is a user id, a profile id ({@link Kind#PROFILE}), or a {@code Users}/{@code UserProfiles}
+ * entity, whose id is allocated up front when it is new.
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+    Kind value() default Kind.USER;
+
+    enum Kind {
+        /**
+         * A user id: the hash ring gives the shard.
+         */
+        USER,
+        /**
+         * A profile id: profiles live with their user, so the shard is looked up.
+         */
+        PROFILE
+    }
+}
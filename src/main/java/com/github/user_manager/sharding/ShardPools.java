@@ -0,0 +1,22 @@
+package com.github.user_manager.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.SortedMap;
+
+/**
+ * One pool per shard, by shard name, behind {@link ShardRoutingDataSource}; closes them on shutdown.
+ *
+ * @param home name of the shard with the unsharded tables and the id sequences
+ */
+public record ShardPools(SortedMap<String, HikariDataSource> pools, String home) implements AutoCloseable {
+
+    public HikariDataSource homePool() {
+        return pools.get(home);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.user_manager.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Moves users, with their profiles, to the shard the ring assigns them after shards were added or removed.
+ * <p>
+ * Every shard is scanned in id order, {@value #BATCH_SIZE} users at a time. Users the ring places elsewhere
+ * are copied to their shard in one transaction and then deleted from the source in another; ids and versions
+ * are kept, so ETags stay valid. A user that already exists on the target is left as it is there: requests
+ * for it are routed to the target as soon as the new ring is configured, so that copy is the newer one. A
+ * rebalance interrupted between the two steps is therefore completed by running it again.
+ * <p>
+ * Until a user is moved, its requests reach a shard that does not have it yet and answer 404. Profiles
+ * without a user have no shard key and stay where they are.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-manager.sharding", name = "enabled", havingValue = "true")
+public class ShardRebalancer {
+
+    static final int BATCH_SIZE = 500;
+
+    private static final String SELECT_BATCH = """
+            SELECT u.id, u.first_name, u.last_name, u.version, u.profile_id,
+                   p.unit, p.team, p.phone_number, p.created_at, p.version AS profile_version
+            FROM users u
+            LEFT JOIN user_profiles p ON p.id = u.profile_id
+            WHERE u.id > ?
+            ORDER BY u.id
+            LIMIT ?
+            """;
+
+    private static final String INSERT_PROFILE = """
+            INSERT INTO user_profiles (id, unit, team, phone_number, created_at, version)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_USER = """
+            INSERT INTO users (id, first_name, last_name, profile_id, version)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final Shards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ShardRebalancer(Shards shards, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param dryRun only count the users that would move
+     */
+    public synchronized Result rebalance(boolean dryRun) {
+        long scanned = 0;
+        Map<String, Long> moved = new TreeMap<>();
+        for (String source : shards.names()) {
+            int afterId = 0;
+            List<Row> batch;
+            do {
+                int from = afterId;
+                batch = shards.callOn(source, () -> transactionTemplate.execute(status ->
+                        jdbcTemplate.query(SELECT_BATCH, ShardRebalancer::mapRow, from, BATCH_SIZE)));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                scanned += batch.size();
+                afterId = batch.getLast().id();
+
+                Map<String, List<Row>> byTarget = batch.stream()
+                        .filter(row -> !shards.shardOf(row.id()).equals(source))
+                        .collect(Collectors.groupingBy(row -> shards.shardOf(row.id()), TreeMap::new,
+                                Collectors.toList()));
+                for (Map.Entry<String, List<Row>> target : byTarget.entrySet()) {
+                    if (!dryRun) {
+                        move(source, target.getKey(), target.getValue());
+                    }
+                    moved.merge(source + "->" + target.getKey(), (long) target.getValue().size(), Long::sum);
+                }
+            } while (batch.size() == BATCH_SIZE);
+        }
+        log.info("Rebalance {}: scanned {} users, moved {}", dryRun ? "dry run" : "done", scanned, moved);
+        return new Result(dryRun, scanned, moved);
+    }
+
+    private void move(String source, String target, List<Row> rows) {
+        shards.runOn(target, () -> transactionTemplate.executeWithoutResult(status -> {
+            Set<Integer> present = existingUserIds(rows.stream().map(Row::id).toList());
+            List<Row> missing = rows.stream().filter(row -> !present.contains(row.id())).toList();
+            List<Object[]> profiles = new ArrayList<>();
+            List<Object[]> users = new ArrayList<>();
+            for (Row row : missing) {
+                if (row.profileId() != null) {
+                    profiles.add(new Object[]{row.profileId(), row.unit(), row.team(), row.phoneNumber(),
+                            row.createdAt(), row.profileVersion()});
+                }
+                users.add(new Object[]{row.id(), row.firstName(), row.lastName(), row.profileId(), row.version()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_PROFILE, profiles);
+            jdbcTemplate.batchUpdate(INSERT_USER, users);
+        }));
+
+        shards.runOn(source, () -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("DELETE FROM users WHERE id = ?",
+                    rows.stream().map(row -> new Object[]{row.id()}).toList());
+            jdbcTemplate.batchUpdate("DELETE FROM user_profiles WHERE id = ?", rows.stream()
+                    .filter(row -> row.profileId() != null)
+                    .map(row -> new Object[]{row.profileId()})
+                    .toList());
+        }));
+    }
+
+    private Set<Integer> existingUserIds(List<Integer> ids) {
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", ", "(", ")"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE id IN " + placeholders, Integer.class, ids.toArray()));
+    }
+
+    private static Row mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return new Row(
+                resultSet.getInt("id"),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name"),
+                resultSet.getLong("version"),
+                resultSet.getObject("profile_id", Integer.class),
+                resultSet.getString("unit"),
+                resultSet.getString("team"),
+                resultSet.getString("phone_number"),
+                resultSet.getTimestamp("created_at"),
+                resultSet.getObject("profile_version", Long.class));
+    }
+
+    /**
+     * @param moved users moved, by {@code source->target}
+     */
+    public record Result(boolean dryRun, long scanned, Map<String, Long> moved) {
+    }
+
+    private record Row(int id, String firstName, String lastName, long version, Integer profileId,
+                       String unit, String team, String phoneNumber, Timestamp createdAt, Long profileVersion) {
+    }
+}
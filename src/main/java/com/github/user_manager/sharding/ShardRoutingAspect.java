@@ -0,0 +1,73 @@
+package com.github.user_manager.sharding;
+
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.repository.UserProfilesRepository;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs service methods with a {@link ShardKey} parameter on the shard that key belongs to.
+ * <p>
+ * Ordered after the concurrency limit and before the transaction advice, so the transaction, and with it the
+ * connection, is opened on the right shard. New users and standalone profiles get their id here, before the
+ * insert, because the id decides the shard; the id is reserved for the generator, which would otherwise draw
+ * a different one.
+ */
+@Aspect
+@Component
+@Order(1)
+@ConditionalOnProperty(prefix = "user-manager.sharding", name = "enabled", havingValue = "true")
+public class ShardRoutingAspect {
+
+    private final Shards shards;
+    private final UserProfilesRepository userProfilesRepository;
+
+    public ShardRoutingAspect(Shards shards, UserProfilesRepository userProfilesRepository) {
+        this.shards = shards;
+        this.userProfilesRepository = userProfilesRepository;
+    }
+
+    @Around("execution(* com.github.user_manager.service..*(@com.github.user_manager.sharding.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        ShardKey shardKey = ((MethodSignature) joinPoint.getSignature()).getMethod()
+                .getParameters()[0].getAnnotation(ShardKey.class);
+        String shard = switch (joinPoint.getArgs()[0]) {
+            case Users user when user.getId() == 0 -> reserve(Users.ID_SEQUENCE);
+            case Users user -> shards.shardOf(user.getId());
+            case UserProfiles profile when profile.getId() == 0 -> reserve(UserProfiles.ID_SEQUENCE);
+            case UserProfiles profile -> locateProfile(profile.getId());
+            case Integer id when shardKey.value() == ShardKey.Kind.PROFILE -> locateProfile(id);
+            case Integer id -> shards.shardOf(id);
+            case null, default -> throw new IllegalArgumentException(
+                    "Unsupported @ShardKey argument of " + joinPoint.getSignature().toShortString());
+        };
+
+        String previous = shards.enter(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+            GlobalIds.clearReserved();
+        }
+    }
+
+    private String reserve(String sequence) {
+        int id = shards.nextId(sequence);
+        GlobalIds.reserve(sequence, id);
+        return shards.shardOf(id);
+    }
+
+    /**
+     * A profile's id does not tell its user, so every shard is asked. An unknown id runs on the home shard,
+     * where the service reports it as not found.
+     */
+    private String locateProfile(int id) {
+        return shards.find(() -> userProfilesRepository.existsById(id)).orElse(shards.home());
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.user_manager.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Opens connections on the shard of the {@link ShardContext}, or on the home shard outside of one.
+ * <p>
+ * Sits behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so that a
+ * transaction only takes a connection once it runs its first statement, on whichever shard is current then.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final String home;
+
+    public ShardRoutingDataSource(String home) {
+        this.home = home;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current();
+        return shard != null ? shard : home;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.user_manager.sharding;
+
+import com.github.user_manager.datasource.RoutingDataSourceConfig;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Replaces the auto-configured datasource with one that routes to hash shards when
+ * {@code user-manager.sharding.enabled=true}.
+ * <p>
+ * Each shard is a Hikari pool bound from {@code user-manager.sharding.shards.<name>}, and all shards have
+ * the full schema. {@code users} and {@code user_profiles} are spread over them by {@link ConsistentHashRing},
+ * a user and its profile always on the same shard; everything else stays on the home shard. Cannot be
+ * combined with {@code user-manager.datasource.routing}: both replace the datasource.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "user-manager.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final String PREFIX = "user-manager.sharding";
+
+    @Bean(destroyMethod = "close")
+    public ShardPools shardPools(Environment environment, ShardingProperties properties, MeterRegistry meterRegistry) {
+        Map<String, HikariConfig> configs = Binder.get(environment)
+                .bind(PREFIX + ".shards", Bindable.mapOf(String.class, HikariConfig.class))
+                .orElseThrow(() -> new IllegalStateException(PREFIX + ".shards must be configured"));
+        SortedMap<String, HikariDataSource> pools = new TreeMap<>();
+        configs.forEach((name, config) -> pools.put(name,
+                RoutingDataSourceConfig.createPool(config, "shard-" + name, meterRegistry)));
+
+        String home = properties.getHome() != null ? properties.getHome() : pools.firstKey();
+        if (!pools.containsKey(home)) {
+            pools.values().forEach(HikariDataSource::close);
+            throw new IllegalStateException(PREFIX + ".home '" + home + "' is not one of " + pools.keySet());
+        }
+        return new ShardPools(Collections.unmodifiableSortedMap(pools), home);
+    }
+
+    @Bean(destroyMethod = "uninstall")
+    public GlobalIds globalIds(ShardPools shardPools, ShardingProperties properties) {
+        return GlobalIds.install(shardPools.homePool(), properties.getIdBlockSize());
+    }
+
+    /**
+     * Depends on {@link GlobalIds} so the id source is in place before Hibernate generates any id.
+     */
+    @Bean
+    @Primary
+    @DependsOn("globalIds")
+    public DataSource dataSource(ShardPools shardPools) {
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(shardPools.home());
+        routingDataSource.setTargetDataSources(new HashMap<>(shardPools.pools()));
+        routingDataSource.setDefaultTargetDataSource(shardPools.homePool());
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean(destroyMethod = "close")
+    public Shards shards(ShardPools shardPools,
+                         GlobalIds globalIds,
+                         ShardingProperties properties,
+                         PlatformTransactionManager transactionManager) {
+        return new Shards(shardPools, globalIds, properties, transactionManager);
+    }
+
+    /**
+     * The auto-configured Flyway only sees the routing datasource, i.e. the home shard; this migrates every
+     * shard with the same configuration instead.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrations(ShardPools shardPools) {
+        return flyway -> shardPools.pools().values().forEach(pool -> Flyway.configure()
+                .configuration(flyway.getConfiguration())
+                .dataSource(pool)
+                .load()
+                .migrate());
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.user_manager.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings of hash sharding, bound from {@code user-manager.sharding.*}.
+ * The pools themselves are bound from {@code shards.<name>} in {@link ShardingConfig}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Shard that keeps the unsharded tables (outbox, change feed, idempotency keys) and hands out ids;
+     * the first shard by name if not set.
+     */
+    private String home;
+
+    /**
+     * Points per shard on the hash ring; more points spread users more evenly.
+     */
+    private int virtualNodes = 128;
+
+    /**
+     * Ids taken from a home shard sequence at a time; must equal the sequences' {@code INCREMENT BY}.
+     */
+    private int idBlockSize = 50;
+
+    /**
+     * Threads running the per-shard queries of scatter-gather reads.
+     */
+    private int gatherThreads = 16;
+
+    private Duration gatherTimeout = Duration.ofSeconds(10);
+}
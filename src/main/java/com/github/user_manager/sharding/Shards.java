@@ -0,0 +1,215 @@
+package com.github.user_manager.sharding;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs work on one shard or on all of them.
+ * <p>
+ * {@link #callOn} runs on the current thread with the {@link ShardContext} set, so a transaction started
+ * inside uses that shard. {@link #gather} runs a query on every shard in parallel, each in its own
+ * read-only transaction, and {@link #gatherSorted} merges the per-shard results of a keyset query back into
+ * one ordered page.
+ */
+public class Shards implements AutoCloseable {
+
+    private final ShardPools pools;
+    private final ConsistentHashRing ring;
+    private final GlobalIds globalIds;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService gatherExecutor;
+    private final Duration gatherTimeout;
+
+    public Shards(ShardPools pools,
+                  GlobalIds globalIds,
+                  ShardingProperties properties,
+                  PlatformTransactionManager transactionManager) {
+        this.pools = pools;
+        this.ring = new ConsistentHashRing(pools.pools().keySet(), properties.getVirtualNodes());
+        this.globalIds = globalIds;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.gatherExecutor = Executors.newFixedThreadPool(properties.getGatherThreads(), Thread.ofPlatform()
+                .name("shard-gather-", 0)
+                .daemon(true)
+                .factory());
+        this.gatherTimeout = properties.getGatherTimeout();
+    }
+
+    public String home() {
+        return pools.home();
+    }
+
+    /**
+     * Shard names in order.
+     */
+    public Set<String> names() {
+        return pools.pools().keySet();
+    }
+
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    public String shardOf(int userId) {
+        return ring.shardFor(userId);
+    }
+
+    /**
+     * A new id from {@code sequence}, unique across shards.
+     */
+    public int nextId(String sequence) {
+        return Math.toIntExact(globalIds.next(sequence));
+    }
+
+    public <T> T callOn(String shard, Supplier<T> action) {
+        String previous = enter(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    public void runOn(String shard, Runnable action) {
+        callOn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Switches the current thread to {@code shard}; pass the result to {@link ShardContext#restore}.
+     *
+     * @throws IllegalStateException inside a transaction that may already hold a connection to another shard
+     */
+    String enter(String shard) {
+        if (!names().contains(shard)) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        String current = ShardContext.current() != null ? ShardContext.current() : home();
+        if (!current.equals(shard) && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot switch from shard " + current + " to " + shard
+                    + " inside a transaction");
+        }
+        return ShardContext.enter(shard);
+    }
+
+    /**
+     * Runs {@code query} on every shard in parallel, each in a read-only transaction.
+     *
+     * @return the results in shard name order
+     */
+    public <T> List<T> gather(Supplier<T> query) {
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        for (String shard : names()) {
+            results.add(CompletableFuture.supplyAsync(
+                    () -> callOn(shard, () -> readOnlyTransaction.execute(status -> query.get())), gatherExecutor));
+        }
+        long deadline = System.nanoTime() + gatherTimeout.toNanos();
+        List<T> values = new ArrayList<>(results.size());
+        for (CompletableFuture<T> result : results) {
+            values.add(await(result, deadline));
+        }
+        return values;
+    }
+
+    /**
+     * Runs a query that returns rows in {@code order} on every shard and merges the results into the first
+     * {@code limit} rows overall. For a keyset page each shard must return up to {@code limit} rows after the
+     * cursor; the merged page is then exactly the page an unsharded query would have returned.
+     */
+    public <T> List<T> gatherSorted(Supplier<List<T>> query, Comparator<? super T> order, int limit) {
+        return merge(gather(query), order, limit);
+    }
+
+    /**
+     * The first shard, in name order, on which {@code probe} is true.
+     */
+    public Optional<String> find(Supplier<Boolean> probe) {
+        List<Boolean> found = gather(probe);
+        List<String> shards = List.copyOf(names());
+        for (int i = 0; i < shards.size(); i++) {
+            if (Boolean.TRUE.equals(found.get(i))) {
+                return Optional.of(shards.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Runs {@code action} on each shard in turn, on the current thread.
+     */
+    public void forEach(Runnable action) {
+        for (String shard : names()) {
+            runOn(shard, action);
+        }
+    }
+
+    /**
+     * k-way merge of individually sorted lists into the first {@code limit} elements.
+     */
+    public static <T> List<T> merge(List<List<T>> sortedLists, Comparator<? super T> order, int limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.value(), b.value()));
+        for (List<T> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heads.add(new Head<>(list, 0));
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head<T> head = heads.poll();
+            merged.add(head.value());
+            if (head.index() + 1 < head.list().size()) {
+                heads.add(new Head<>(head.list(), head.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    private <T> T await(CompletableFuture<T> result, long deadline) {
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new QueryTimeoutException("A shard did not answer within " + gatherTimeout, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        gatherExecutor.shutdownNow();
+    }
+
+    private record Head<T>(List<T> list, int index) {
+
+        T value() {
+            return list.get(index);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.user_manager.sharding;
+
+import com.github.user_manager.repository.UsersRepository;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/shards}: shows the shards with their user counts and runs the {@link ShardRebalancer}.
+ * <pre>
+ * curl -X POST -H 'Content-Type: application/json' -d '{"dryRun":true}' \
+ *      localhost:8080/user-manager/v1/actuator/shards
+ * </pre>
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(prefix = "user-manager.sharding", name = "enabled", havingValue = "true")
+public class ShardsEndpoint {
+
+    private final Shards shards;
+    private final ShardRebalancer rebalancer;
+    private final UsersRepository usersRepository;
+    private final ShardingProperties properties;
+
+    public ShardsEndpoint(Shards shards,
+                          ShardRebalancer rebalancer,
+                          UsersRepository usersRepository,
+                          ShardingProperties properties) {
+        this.shards = shards;
+        this.rebalancer = rebalancer;
+        this.usersRepository = usersRepository;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        List<Long> counts = shards.gather(usersRepository::count);
+        Map<String, Long> users = new LinkedHashMap<>();
+        int i = 0;
+        for (String shard : shards.names()) {
+            users.put(shard, counts.get(i++));
+        }
+        return Map.of(
+                "home", shards.home(),
+                "virtualNodes", properties.getVirtualNodes(),
+                "users", users
+        );
+    }
+
+    @WriteOperation
+    public ShardRebalancer.Result rebalance(@Nullable Boolean dryRun) {
+        return rebalancer.rebalance(Boolean.TRUE.equals(dryRun));
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.user_manager.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Users with consecutive ids, stored as their comma-separated JSON objects in one direct buffer.
+ * <p>
+ * Immutable: a change builds a replacement chunk, while responses already writing this one finish with it.
+ */
+final class SnapshotChunk {
+
+    private final int[] ids;
+    // Entry i spans offsets[i] until the comma at offsets[i + 1] - 1; the last offset points past a virtual
+    // trailing comma.
+    private final int[] offsets;
+    private final ByteBuffer bytes;
+
+    private SnapshotChunk(int[] ids, int[] offsets, ByteBuffer bytes) {
+        this.ids = ids;
+        this.offsets = offsets;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @param entries at least one, in id order
+     */
+    static SnapshotChunk of(List<Entry> entries) {
+        int size = entries.size() - 1;
+        for (Entry entry : entries) {
+            size += entry.json().length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        int[] ids = new int[entries.size()];
+        int[] offsets = new int[entries.size() + 1];
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                buffer.put((byte) ',');
+            }
+            ids[i] = entries.get(i).id();
+            offsets[i] = buffer.position();
+            buffer.put(entries.get(i).json());
+        }
+        offsets[entries.size()] = buffer.position() + 1;
+        return new SnapshotChunk(ids, offsets, buffer.flip().asReadOnlyBuffer());
+    }
+
+    int firstId() {
+        return ids[0];
+    }
+
+    int users() {
+        return ids.length;
+    }
+
+    int byteSize() {
+        return bytes.limit();
+    }
+
+    /**
+     * The chunk's bytes, with a position of its own.
+     */
+    ByteBuffer bytes() {
+        return bytes.duplicate();
+    }
+
+    /**
+     * Copies the entries back to the heap, to build a patched chunk from.
+     */
+    List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            byte[] json = new byte[offsets[i + 1] - offsets[i] - 1];
+            bytes.get(offsets[i], json);
+            entries.add(new Entry(ids[i], json));
+        }
+        return entries;
+    }
+
+    record Entry(int id, byte[] json) {
+    }
+
+    /**
+     * Packs entries, added in id order, into chunks of about {@code chunkSize} bytes.
+     */
+    static final class Writer {
+
+        private final int chunkSize;
+        private final List<SnapshotChunk> chunks = new ArrayList<>();
+        private final List<Entry> pending = new ArrayList<>();
+        private int pendingSize;
+
+        Writer(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        void add(Entry entry) {
+            pending.add(entry);
+            pendingSize += entry.json().length + 1;
+            if (pendingSize >= chunkSize) {
+                flush();
+            }
+        }
+
+        List<SnapshotChunk> finish() {
+            flush();
+            return chunks;
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) {
+                chunks.add(of(pending));
+                pending.clear();
+                pendingSize = 0;
+            }
+        }
+    }
+}
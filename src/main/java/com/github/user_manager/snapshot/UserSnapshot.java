@@ -0,0 +1,338 @@
+package com.github.user_manager.snapshot;
+
+import com.github.user_manager.concurrency.ConcurrencyLimitAspect;
+import com.github.user_manager.dto.ChangeEventView;
+import com.github.user_manager.entity.ChangeEvent.Aggregate;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.service.ChangeFeedService;
+import com.github.user_manager.service.UserManagerService;
+import com.github.user_manager.snapshot.SnapshotChunk.Entry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every user, already serialized, for {@code GET /users/snapshot}.
+ * <p>
+ * The users' JSON objects are kept in id order in {@link SnapshotChunk}s of about {@code chunk-size} bytes,
+ * off-heap. A response writes the chunks as they are between the array brackets, so serving the directory
+ * costs no query, no entity and no serialization.
+ * <p>
+ * The snapshot follows the change feed rather than individual writes, which makes it cover every writer
+ * (batches, imports, other instances, other shards) the same way. It is built once from the user stream,
+ * starting at the current head of the feed; after that, each poll reloads only the users named by new
+ * changes, directly or through their profile, and re-encodes only the chunks holding them. The
+ * {@linkplain View#version() version} is the last feed position applied: the snapshot contains at least
+ * every change up to it.
+ * <p>
+ * The refresh thread reads {@link ConcurrencyLimitAspect#exempt exempt} from the data layer concurrency limit:
+ * the build streams every user in one call, and a rejected refresh would only leave the snapshot behind.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-manager.snapshot", name = "enabled", havingValue = "true")
+public class UserSnapshot implements SmartLifecycle {
+
+    public static final String VERSION_HEADER = "X-Snapshot-Version";
+
+    // Chunk key for changes to an empty snapshot; user ids are positive.
+    private static final int NO_CHUNK = Integer.MIN_VALUE;
+
+    private final UserManagerService userManagerService;
+    private final ChangeFeedService changeFeedService;
+    private final ObjectMapper objectMapper;
+    private final UserSnapshotProperties properties;
+    private final Counter rebuiltChunks;
+
+    // Only touched by the refresh thread; readers get immutable views.
+    private final NavigableMap<Integer, SnapshotChunk> chunks = new TreeMap<>();
+    private volatile View view;
+
+    private ScheduledExecutorService scheduler;
+
+    public UserSnapshot(UserManagerService userManagerService,
+                        ChangeFeedService changeFeedService,
+                        ObjectMapper objectMapper,
+                        UserSnapshotProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.userManagerService = userManagerService;
+        this.changeFeedService = changeFeedService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        Gauge.builder("user_manager.snapshot.users", this,
+                        snapshot -> snapshot.view == null ? 0 : snapshot.view.users)
+                .description("Users in the snapshot")
+                .register(meterRegistry);
+        Gauge.builder("user_manager.snapshot.bytes", this,
+                        snapshot -> snapshot.view == null ? 0 : snapshot.view.bytes)
+                .description("Off-heap bytes held by the snapshot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rebuiltChunks = Counter.builder("user_manager.snapshot.chunk_rebuilds")
+                .description("Chunks re-encoded to apply changes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the latest view, or {@code null} while the snapshot is first being built
+     */
+    public View current() {
+        return view;
+    }
+
+    /**
+     * Builds the snapshot if there is none yet, or if changes it has not applied were already pruned from the
+     * feed, then applies the changes published since the last run.
+     */
+    void refresh() {
+        if (view == null || view.version < changeFeedService.prunedPosition()) {
+            build();
+        }
+        List<ChangeEventView> changes;
+        do {
+            changes = changeFeedService.changesAfter(view.version, ChangeFeedService.MAX_PAGE_SIZE);
+            if (!changes.isEmpty()) {
+                apply(changes);
+            }
+        } while (changes.size() == ChangeFeedService.MAX_PAGE_SIZE);
+    }
+
+    private void build() {
+        // Read before the stream starts: every change up to here is visible to it, later ones are applied.
+        long version = changeFeedService.headPosition();
+        int chunkSize = chunkSize();
+        // Sharded, the stream is sorted per shard; each shard's users become a run that is merged below.
+        List<List<SnapshotChunk>> runs = new ArrayList<>();
+        SnapshotChunk.Writer[] writer = {new SnapshotChunk.Writer(chunkSize)};
+        int[] lastId = {0};
+        userManagerService.streamUsers(user -> {
+            if (user.getId() <= lastId[0]) {
+                runs.add(writer[0].finish());
+                writer[0] = new SnapshotChunk.Writer(chunkSize);
+            }
+            lastId[0] = user.getId();
+            writer[0].add(new Entry(user.getId(), objectMapper.writeValueAsBytes(user)));
+        });
+        runs.add(writer[0].finish());
+
+        chunks.clear();
+        for (SnapshotChunk chunk : runs.size() == 1 ? runs.getFirst() : merge(runs, chunkSize)) {
+            chunks.put(chunk.firstId(), chunk);
+        }
+        publish(version);
+        log.info("Built user snapshot at version {}: {} users in {} chunks, {} bytes",
+                version, view.users, chunks.size(), view.bytes);
+    }
+
+    private void apply(List<ChangeEventView> changes) {
+        Set<Integer> userIds = new TreeSet<>();
+        Set<Integer> profileIds = new HashSet<>();
+        for (ChangeEventView change : changes) {
+            (change.aggregate() == Aggregate.USER ? userIds : profileIds).add(change.aggregateId());
+        }
+        // A user that is not found any more was deleted.
+        SortedMap<Integer, byte[]> patches = new TreeMap<>();
+        userIds.forEach(id -> patches.put(id, null));
+        for (Users user : userManagerService.findUsers(userIds, profileIds)) {
+            patches.put(user.getId(), objectMapper.writeValueAsBytes(user));
+        }
+        patch(patches);
+        publish(changes.getLast().position());
+    }
+
+    /**
+     * Re-encodes each chunk holding a patched id once; a {@code null} value removes the user.
+     */
+    private void patch(SortedMap<Integer, byte[]> patches) {
+        Map<Integer, SortedMap<Integer, byte[]>> byChunk = new TreeMap<>();
+        patches.forEach((id, json) -> {
+            Integer key = chunks.floorKey(id);
+            if (key == null) {
+                key = chunks.isEmpty() ? NO_CHUNK : chunks.firstKey();
+            }
+            byChunk.computeIfAbsent(key, k -> new TreeMap<>()).put(id, json);
+        });
+
+        byChunk.forEach((key, chunkPatches) -> {
+            SnapshotChunk old = chunks.remove(key);
+            SortedMap<Integer, byte[]> entries = new TreeMap<>();
+            if (old != null) {
+                old.entries().forEach(entry -> entries.put(entry.id(), entry.json()));
+            }
+            chunkPatches.forEach((id, json) -> {
+                if (json == null) {
+                    entries.remove(id);
+                } else {
+                    entries.put(id, json);
+                }
+            });
+            SnapshotChunk.Writer writer = new SnapshotChunk.Writer(chunkSize());
+            entries.forEach((id, json) -> writer.add(new Entry(id, json)));
+            writer.finish().forEach(chunk -> chunks.put(chunk.firstId(), chunk));
+            rebuiltChunks.increment();
+        });
+    }
+
+    private void publish(long version) {
+        view = new View(version, List.copyOf(chunks.values()));
+    }
+
+    private int chunkSize() {
+        return (int) properties.getChunkSize().toBytes();
+    }
+
+    /**
+     * k-way merge of runs of chunks that are each in id order.
+     */
+    private static List<SnapshotChunk> merge(List<List<SnapshotChunk>> runs, int chunkSize) {
+        PriorityQueue<Run> heads = new PriorityQueue<>((a, b) -> Integer.compare(a.head.id(), b.head.id()));
+        for (List<SnapshotChunk> run : runs) {
+            Run cursor = new Run(run.iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        SnapshotChunk.Writer writer = new SnapshotChunk.Writer(chunkSize);
+        while (!heads.isEmpty()) {
+            Run run = heads.poll();
+            writer.add(run.head);
+            if (run.advance()) {
+                heads.add(run);
+            }
+        }
+        return writer.finish();
+    }
+
+    private void refreshSafely() {
+        try {
+            ConcurrencyLimitAspect.exempt(this::refresh);
+        } catch (RuntimeException e) {
+            log.error("Refreshing the user snapshot failed, retrying in {}", properties.getRefreshInterval(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("user-snapshot")
+                .daemon(true)
+                .factory());
+        long interval = properties.getRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshSafely, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        // Interrupts a build in progress; the snapshot is in memory only, so there is nothing to finish.
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Immutable state of the snapshot at one version.
+     */
+    public static final class View {
+
+        private final long version;
+        private final List<SnapshotChunk> chunks;
+        private final int users;
+        private final long bytes;
+
+        private View(long version, List<SnapshotChunk> chunks) {
+            this.version = version;
+            this.chunks = chunks;
+            this.users = chunks.stream().mapToInt(SnapshotChunk::users).sum();
+            this.bytes = chunks.stream().mapToLong(SnapshotChunk::byteSize).sum();
+        }
+
+        /**
+         * Position of the last change feed entry included.
+         */
+        public long version() {
+            return version;
+        }
+
+        public int users() {
+            return users;
+        }
+
+        /**
+         * Writes the users as one JSON array.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write('[');
+            for (int i = 0; i < chunks.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                write(out, chunks.get(i).bytes());
+            }
+            out.write(']');
+        }
+
+        /**
+         * The servlet container copies a direct buffer straight into its socket buffer; anything else
+         * goes through a channel adapter.
+         */
+        private static void write(OutputStream out, ByteBuffer buffer) throws IOException {
+            if (out instanceof ServletOutputStream servletOut) {
+                servletOut.write(buffer);
+            } else {
+                Channels.newChannel(out).write(buffer);
+            }
+        }
+    }
+
+    private static final class Run {
+
+        private final Iterator<SnapshotChunk> chunks;
+        private Iterator<Entry> entries = Collections.emptyIterator();
+        private Entry head;
+
+        Run(Iterator<SnapshotChunk> chunks) {
+            this.chunks = chunks;
+        }
+
+        boolean advance() {
+            while (!entries.hasNext()) {
+                if (!chunks.hasNext()) {
+                    return false;
+                }
+                entries = chunks.next().entries().iterator();
+            }
+            head = entries.next();
+            return true;
+        }
+    }
+}
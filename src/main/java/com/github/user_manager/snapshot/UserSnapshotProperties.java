@@ -0,0 +1,36 @@
+package com.github.user_manager.snapshot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link UserSnapshot} behind {@code GET /users/snapshot}, bound from
+ * {@code user-manager.snapshot.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.snapshot")
+public class UserSnapshotProperties {
+
+    /**
+     * Whether the snapshot is built and kept up to date; it holds every user, off-heap.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Pause between polls of the change feed once the snapshot has caught up.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(1);
+
+    /**
+     * Target size of one chunk. A change re-encodes the chunks of the users it touches, so smaller chunks
+     * make patches cheaper and larger ones make responses cheaper to write.
+     */
+    private DataSize chunkSize = DataSize.ofKilobytes(64);
+}
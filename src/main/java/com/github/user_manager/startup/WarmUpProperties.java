@@ -0,0 +1,30 @@
+package com.github.user_manager.startup;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings of {@link WarmUpRunner}, bound from {@code user-manager.warm-up.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.warm-up")
+public class WarmUpProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Rounds of read requests sent through the HTTP stack; each round hits every warmed endpoint once.
+     */
+    private int iterations = 50;
+
+    /**
+     * Warm-up stops after this long even if rounds are left, so a slow database cannot hold readiness back.
+     */
+    private Duration timeout = Duration.ofSeconds(20);
+}
@@ -0,0 +1,167 @@
+package com.github.user_manager.startup;
+
+import com.github.user_manager.datasource.ConnectionPools;
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.UserView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Warms the application up before it reports ready.
+ * <p>
+ * Runners finish before the readiness state turns to {@code ACCEPTING_TRAFFIC}, so a probe on
+ * {@code /actuator/health/readiness} keeps traffic away until this is done. The runner first opens the pool's
+ * idle connections in parallel (Hikari would otherwise fill the pool one connection at a time in the
+ * background). It then sends rounds of read-only requests to its own port, which loads and JIT-compiles the
+ * Tomcat, MVC, Jackson, service and Hibernate paths and prepares the hot statements on every connection.
+ * Nothing is written and failures are only logged: a cold start is slow, not broken.
+ * <p>
+ * The pools are the real Hikari pools behind the datasource ({@link ConnectionPools}), not the routing proxy in
+ * front of them. Without a web server, as in a {@code MOCK} web environment test, only the pools are primed.
+ * <p>
+ * {@code enabled} is checked at run time rather than as a bean condition, because conditions are fixed when
+ * the {@code aot} build processes the application.
+ */
+@Slf4j
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+
+    private final WarmUpProperties properties;
+    private final ObjectProvider<WebServerApplicationContext> context;
+    private final DataSource dataSource;
+    private final ConnectionPools connectionPools;
+    private final Environment environment;
+
+    public WarmUpRunner(WarmUpProperties properties,
+                        ObjectProvider<WebServerApplicationContext> context,
+                        DataSource dataSource,
+                        ConnectionPools connectionPools,
+                        Environment environment) {
+        this.properties = properties;
+        this.context = context;
+        this.dataSource = dataSource;
+        this.connectionPools = connectionPools;
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int connections = primePools();
+        WebServerApplicationContext webServer = context.getIfAvailable();
+        int requests = webServer == null || webServer.getWebServer() == null ? 0
+                : sendRequests(webServer.getWebServer().getPort(), start + properties.getTimeout().toNanos());
+        log.info("Warm-up finished in {}ms: {} pooled connections, {} requests",
+                (System.nanoTime() - start) / 1_000_000, connections, requests);
+    }
+
+    /**
+     * The pools to fill, each with its minimum idle connections; a datasource that is no Hikari pool gets one.
+     */
+    private Map<DataSource, Integer> pools() {
+        if (connectionPools.all().isEmpty()) {
+            return Map.of(dataSource, 1);
+        }
+        Map<DataSource, Integer> sizes = new LinkedHashMap<>();
+        connectionPools.all().forEach(pool -> sizes.put(pool, Math.max(pool.getMinimumIdle(), 1)));
+        return sizes;
+    }
+
+    private int primePools() {
+        Map<DataSource, Integer> pools = pools();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Connection>> opened = new ArrayList<>();
+            pools.forEach((pool, size) -> {
+                for (int i = 0; i < size; i++) {
+                    opened.add(CompletableFuture.supplyAsync(() -> openConnection(pool), executor));
+                }
+            });
+            // All borrows are in flight before any is returned, so each one creates a connection instead of
+            // reusing the previous one.
+            List<Connection> connections = new ArrayList<>(opened.size());
+            for (CompletableFuture<Connection> connection : opened) {
+                try {
+                    connections.add(connection.join());
+                } catch (RuntimeException e) {
+                    log.warn("Warm-up could not open a connection: {}", e.getMessage());
+                }
+            }
+            int open = 0;
+            for (Connection connection : connections) {
+                try (connection) {
+                    open++;
+                } catch (SQLException e) {
+                    log.warn("Warm-up could not return a connection: {}", e.getMessage());
+                }
+            }
+            return open;
+        }
+    }
+
+    private static Connection openConnection(DataSource pool) {
+        try {
+            return pool.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int sendRequests(int port, long deadline) {
+        String basePath = environment.getProperty("server.servlet.context-path",
+                environment.getProperty("spring.webflux.base-path", ""));
+        // Endpoints the reactive variant does not serve answer 404; skip those instead of ending the warm-up.
+        RestClient client = RestClient.builder()
+                .baseUrl("http://localhost:" + port + basePath)
+                .defaultStatusHandler(HttpStatusCode::is4xxClientError, (request, response) -> {})
+                .build();
+        int requests = 0;
+        try {
+            for (int i = 0; i < properties.getIterations() && System.nanoTime() < deadline; i++) {
+                CursorPage<UserView> page = client.get().uri("/users?limit=100")
+                        .retrieve()
+                        .body(new ParameterizedTypeReference<>() {});
+                client.get().uri("/users?limit=100&fields=id,firstName,userProfiles.team").retrieve().toBodilessEntity();
+                client.get().uri("/users/search?team=backend&limit=20").retrieve().toBodilessEntity();
+                client.get().uri("/users?limit=100").accept(MediaType.APPLICATION_CBOR)
+                        .retrieve().toBodilessEntity();
+                requests += 4;
+                if (page != null && !page.items().isEmpty()) {
+                    UserView user = page.items().getFirst();
+                    client.get().uri("/users/{id}", user.id()).retrieve().toBodilessEntity();
+                    requests++;
+                    if (user.userProfiles() != null) {
+                        client.get().uri("/profiles/{id}", user.userProfiles().id()).retrieve().toBodilessEntity();
+                        requests++;
+                    }
+                }
+            }
+        } catch (RestClientException e) {
+            log.warn("Warm-up request failed, continuing cold: {}", e.getMessage());
+        }
+        return requests;
+    }
+}
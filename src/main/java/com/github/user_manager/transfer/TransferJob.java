@@ -0,0 +1,120 @@
+package com.github.user_manager.transfer;
+
+import com.github.user_manager.dto.TransferJobView;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one import or export job, updated by its worker and read by status requests.
+ * <p>
+ * An import commits every chunk in its own transaction and is not rolled back as a whole: when it fails, the
+ * users counted in {@code processed} stay imported. Imported users always get new ids, so running the same
+ * file again creates them a second time; import only the rows after the failure instead. A failed export
+ * leaves nothing behind; its partial file is deleted.
+ */
+public class TransferJob {
+
+    public enum Kind {
+        IMPORT,
+        EXPORT
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Kind kind;
+    private final TransferFormat format;
+    private final Path file;
+    private final Instant createdAt = Instant.now();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Progress in whatever unit the job can measure cheaply: bytes read for imports, rows for exports.
+    private final AtomicLong done = new AtomicLong();
+    private volatile long total;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    public TransferJob(Kind kind, TransferFormat format, Path file) {
+        this.kind = kind;
+        this.format = format;
+        this.file = file;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public TransferFormat format() {
+        return format;
+    }
+
+    /**
+     * The staged upload of an import, or the output of an export.
+     */
+    public Path file() {
+        return file;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public Instant finishedAt() {
+        return finishedAt;
+    }
+
+    public void started(long total) {
+        this.total = total;
+        this.status = Status.RUNNING;
+    }
+
+    public void progress(long done) {
+        this.done.set(done);
+    }
+
+    public void processed(long succeeded, long failed, String error) {
+        this.processed.addAndGet(succeeded);
+        this.failed.addAndGet(failed);
+        if (error != null) {
+            this.error = error;
+        }
+    }
+
+    public void succeeded() {
+        done.set(total);
+        finish(Status.SUCCEEDED);
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    public TransferJobView view() {
+        long total = this.total;
+        Double progress = total > 0 ? Math.min(1.0, (double) done.get() / total) : null;
+        return new TransferJobView(id, kind, format, status, processed.get(), failed.get(), progress, error,
+                createdAt, finishedAt);
+    }
+}
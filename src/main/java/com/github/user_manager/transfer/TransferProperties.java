@@ -0,0 +1,49 @@
+package com.github.user_manager.transfer;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of import/export jobs, bound from {@code user-manager.transfer.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "user-manager.transfer")
+public class TransferProperties {
+
+    /**
+     * Jobs running at the same time; each holds one database connection while it runs.
+     */
+    private int workers = 2;
+
+    /**
+     * Jobs waiting for a worker; further submissions are rejected with 503.
+     */
+    private int queueCapacity = 10;
+
+    /**
+     * Longest CSV record or NDJSON line an import reads, in characters; a longer one fails the job.
+     */
+    private int maxRecordLength = 64 * 1024;
+
+    /**
+     * Longest CSV field an import reads, in characters; a longer one fails the job.
+     */
+    private int maxFieldLength = 4 * 1024;
+
+    /**
+     * Where uploads are staged and exports are written.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "user-manager-transfer");
+
+    /**
+     * How long finished jobs and their files are kept.
+     */
+    private Duration retention = Duration.ofHours(1);
+}
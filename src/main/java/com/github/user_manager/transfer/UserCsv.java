@@ -0,0 +1,235 @@
+package com.github.user_manager.transfer;
+
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV of users with their profile, one user per record.
+ * <p>
+ * Exports write {@link #HEADER}. Imports map columns by header name, so they may come in any order;
+ * {@code id}, {@code createdAt} and unknown columns are ignored. A user gets a profile when any of
+ * {@code unit}, {@code team} or {@code phoneNumber} is non-empty.
+ */
+public final class UserCsv {
+
+    public static final List<String> HEADER =
+            List.of("id", "firstName", "lastName", "unit", "team", "phoneNumber", "createdAt");
+
+    private UserCsv() {
+    }
+
+    public static void writeHeader(Writer writer) throws IOException {
+        writeRecord(writer, HEADER);
+    }
+
+    public static void write(Writer writer, Users user) throws IOException {
+        UserProfiles profile = user.getUserProfiles();
+        List<String> values = new ArrayList<>(HEADER.size());
+        values.add(String.valueOf(user.getId()));
+        values.add(user.getFirstName());
+        values.add(user.getLastName());
+        values.add(profile == null ? null : profile.getUnit());
+        values.add(profile == null ? null : profile.getTeam());
+        values.add(profile == null ? null : profile.getPhoneNumber());
+        values.add(profile == null || profile.getCreatedAt() == null
+                ? null : profile.getCreatedAt().toInstant().toString());
+        writeRecord(writer, values);
+    }
+
+    private static void writeRecord(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Reads users one record at a time; only the current record is held in memory, and no more than
+     * {@code maxRecordLength} characters of it.
+     */
+    public static class UserReader {
+
+        private final Reader reader;
+        private final int maxRecordLength;
+        private final int maxFieldLength;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private final StringBuilder field = new StringBuilder();
+        private int pushedBack = -2;
+        private long line = 1;
+
+        /**
+         * @throws IllegalArgumentException if the header lacks {@code firstName} or {@code lastName}
+         * @throws IllegalStateException if the header is longer than the limits
+         */
+        public UserReader(Reader reader, int maxRecordLength, int maxFieldLength) {
+            this.reader = reader;
+            this.maxRecordLength = maxRecordLength;
+            this.maxFieldLength = maxFieldLength;
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).strip(), i);
+            }
+            if (!columns.containsKey("firstName") || !columns.containsKey("lastName")) {
+                throw new IllegalArgumentException("CSV header must contain firstName and lastName");
+            }
+        }
+
+        /**
+         * Line of the next record, for error messages.
+         */
+        public long line() {
+            return line;
+        }
+
+        /**
+         * @return the next user, or {@code null} at the end of the file
+         * @throws IllegalArgumentException if the record is malformed; reading can continue with the next one
+         * @throws IllegalStateException if the record or one of its fields is longer than the limits; the rest of
+         *                               the file cannot be read reliably
+         */
+        public Users next() {
+            List<String> record = readRecord();
+            if (record == null) {
+                return null;
+            }
+            Users user = new Users();
+            user.setFirstName(value(record, "firstName"));
+            user.setLastName(value(record, "lastName"));
+            String unit = value(record, "unit");
+            String team = value(record, "team");
+            String phoneNumber = value(record, "phoneNumber");
+            if (unit != null || team != null || phoneNumber != null) {
+                UserProfiles profile = new UserProfiles();
+                profile.setUnit(unit);
+                profile.setTeam(team);
+                profile.setPhoneNumber(phoneNumber);
+                user.setUserProfiles(profile);
+            }
+            return user;
+        }
+
+        private String value(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+                return null;
+            }
+            return record.get(index);
+        }
+
+        private List<String> readRecord() {
+            int c = read();
+            while (c == '\r' || c == '\n') {
+                countLine(c);
+                c = read();
+            }
+            if (c == -1) {
+                return null;
+            }
+            long recordLine = line;
+            int recordLength = 0;
+            List<String> record = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            while (true) {
+                if (++recordLength > maxRecordLength) {
+                    throw new IllegalStateException("Record at line " + recordLine + " is longer than "
+                            + maxRecordLength + " characters");
+                }
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field at line " + line);
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            append(c, recordLine);
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        countLine(c);
+                        append(c, recordLine);
+                    }
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    record.add(field.toString());
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            pushedBack = next;
+                        }
+                    }
+                    if (c != -1) {
+                        line++;
+                    }
+                    return record;
+                } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else {
+                    append(c, recordLine);
+                }
+                c = read();
+            }
+        }
+
+        private void append(int c, long recordLine) {
+            if (field.length() == maxFieldLength) {
+                throw new IllegalStateException("Field in the record at line " + recordLine + " is longer than "
+                        + maxFieldLength + " characters");
+            }
+            field.append((char) c);
+        }
+
+        private void countLine(int c) {
+            if (c == '\n') {
+                line++;
+            }
+        }
+
+        private int read() {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            try {
+                return reader.read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.user_manager.web;
+
+import com.github.user_manager.dto.PageRevision;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import org.springframework.http.CacheControl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Strong ETags derived from the {@code @Version} columns, and the {@code If-None-Match} / {@code If-Match}
+ * comparisons for them.
+ */
+public final class ETags {
+
+    /**
+     * Clients may keep the response but must revalidate it with the ETag before reuse.
+     */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ETags() {
+    }
+
+    public static String of(Users user) {
+        UserProfiles profile = user.getUserProfiles();
+        return "\"u" + user.getId() + "v" + user.getVersion()
+                + (profile != null ? "p" + profile.getVersion() : "") + "\"";
+    }
+
+    public static String of(UserProfiles profile) {
+        return "\"p" + profile.getId() + "v" + profile.getVersion() + "\"";
+    }
+
+    /**
+     * ETag of a {@code GET /users} page: a digest of its {@linkplain PageRevision revision} and the selected
+     * fields. The same for a loaded page and for the aggregate query that revalidates one.
+     *
+     * @param fields the {@code ?fields=} parameter, which selects a different representation of the same data
+     */
+    public static String of(PageRevision page, String fields) {
+        String content = normalizeFields(fields) + '|' + page.rowCount() + ':' + page.idSum() + ':' + page.lastId()
+                + ':' + page.versionSum() + ':' + page.profileIdSum() + ':' + page.profileVersionSum()
+                + ':' + page.hasNext();
+        return "\"users-" + digest(content) + "\"";
+    }
+
+    /**
+     * The same fields in another order or repeated select the same representation.
+     */
+    private static String normalizeFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return "";
+        }
+        Set<String> normalized = new TreeSet<>();
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) {
+                normalized.add(field.trim());
+            }
+        }
+        return String.join(",", normalized);
+    }
+
+    /**
+     * The first 96 bits of the SHA-256 of {@code value}, base64url-encoded, which only uses characters
+     * allowed in an ETag.
+     */
+    static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Weak: snapshots at the same position on different instances may already hold different later changes,
+     * so they are equivalent but not byte-identical.
+     *
+     * @param snapshotVersion the change feed position the user snapshot includes
+     */
+    public static String ofSnapshot(long snapshotVersion) {
+        return "W/\"snapshot-" + snapshotVersion + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches, i.e. the client's copy is current. Uses the weak
+     * comparison RFC 9110 prescribes for this header.
+     */
+    public static boolean isNotModified(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && matchesAny(ifNoneMatch, etag, true);
+    }
+
+    /**
+     * Whether an {@code If-Match} header is satisfied; an absent header always is.
+     */
+    public static boolean isPreconditionMet(String ifMatch, String etag) {
+        return ifMatch == null || matchesAny(ifMatch, etag, false);
+    }
+
+    private static boolean matchesAny(String header, String etag, boolean weak) {
+        if (weak && etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (weak && tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+-- Users and their one-to-one profiles; H2 counterpart of db/migration/postgresql/V1.
+-- H2 has no INCLUDE columns, so the covering indexes are plain ones.
+
+CREATE SEQUENCE user_profiles_seq INCREMENT BY 50;
+CREATE SEQUENCE users_seq INCREMENT BY 50;
+
+CREATE TABLE user_profiles (
+    id INTEGER DEFAULT NEXT VALUE FOR user_profiles_seq PRIMARY KEY,
+    unit VARCHAR(25) NOT NULL,
+    team VARCHAR(25) NOT NULL,
+    phone_number VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE users (
+    id INTEGER DEFAULT NEXT VALUE FOR users_seq PRIMARY KEY,
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    profile_id INTEGER,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT FK_USER_TO_PROFILE FOREIGN KEY (profile_id) REFERENCES user_profiles (id)
+);
+
+CREATE UNIQUE INDEX idx_users_profile_id ON users (profile_id);
+CREATE INDEX idx_users_first_name_id ON users (first_name, id);
+CREATE INDEX idx_users_last_name_id ON users (last_name, id);
+CREATE INDEX idx_user_profiles_team_unit ON user_profiles (team, unit);
@@ -0,0 +1,23 @@
+-- Transactional outbox; H2 counterpart of db/migration/postgresql/V2.
+
+CREATE SEQUENCE change_events_seq INCREMENT BY 50;
+
+CREATE TABLE change_events (
+    id BIGINT DEFAULT NEXT VALUE FOR change_events_seq PRIMARY KEY,
+    position BIGINT,
+    aggregate VARCHAR(10) NOT NULL,
+    aggregate_id INTEGER NOT NULL,
+    type VARCHAR(10) NOT NULL,
+    payload VARCHAR,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP
+);
+
+CREATE UNIQUE INDEX idx_change_events_position ON change_events (position);
+CREATE INDEX idx_change_events_unpublished ON change_events (published_at, id);
+
+CREATE TABLE change_relay_state (
+    id INTEGER PRIMARY KEY,
+    last_position BIGINT NOT NULL
+);
+INSERT INTO change_relay_state (id, last_position) VALUES (1, 0);
@@ -0,0 +1,8 @@
+-- Publication order of the outbox; H2 counterpart of db/migration/postgresql/V4.
+
+CREATE SEQUENCE change_events_order_seq;
+
+ALTER TABLE change_events ADD COLUMN insert_order BIGINT DEFAULT NEXT VALUE FOR change_events_order_seq NOT NULL;
+
+DROP INDEX idx_change_events_unpublished;
+CREATE INDEX idx_change_events_unpublished ON change_events (published_at, insert_order);
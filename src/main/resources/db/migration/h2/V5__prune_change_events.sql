@@ -0,0 +1,3 @@
+-- Last pruned change feed position; H2 counterpart of db/migration/postgresql/V5.
+
+ALTER TABLE change_relay_state ADD COLUMN pruned_position BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,3 @@
+-- Pending Idempotency-Key claims have no body yet; H2 counterpart of db/migration/postgresql/V6.
+
+ALTER TABLE idempotency_keys ALTER COLUMN body SET NULL;
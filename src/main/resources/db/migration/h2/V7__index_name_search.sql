@@ -0,0 +1,2 @@
+-- H2 counterpart of db/migration/postgresql/V7: H2 has no expression indexes, text_pattern_ops or pg_trgm, so
+-- there is nothing to create. Kept so both vendors stay at the same schema version.
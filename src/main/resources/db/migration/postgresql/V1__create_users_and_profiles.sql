@@ -0,0 +1,60 @@
+-- Users and their one-to-one profiles.
+-- Idempotent throughout, so a database created by hand from the earlier README schema (SERIAL ids, no version
+-- columns, UNIQUE (profile_id)) is brought up to date instead of failing: Flyway baselines it at version 0 and
+-- then runs this script.
+
+-- allocationSize = 50 on the entities: Hibernate reserves 50 ids per nextval() so inserts can be batched.
+CREATE SEQUENCE IF NOT EXISTS user_profiles_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS user_profiles (
+    id INTEGER PRIMARY KEY DEFAULT nextval('user_profiles_seq'),
+    unit VARCHAR(25) NOT NULL,
+    team VARCHAR(25) NOT NULL,
+    phone_number VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id INTEGER PRIMARY KEY DEFAULT nextval('users_seq'),
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    profile_id INTEGER,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT FK_USER_TO_PROFILE FOREIGN KEY (profile_id) REFERENCES user_profiles (id)
+);
+
+-- Hand-made schema: optimistic locking columns, and ids from the pooled sequences. These start after the
+-- existing rows (the next nextval() returns MAX(id) + 1), so the first block Hibernate reserves is free.
+ALTER TABLE user_profiles ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_profiles ALTER COLUMN id SET DEFAULT nextval('user_profiles_seq');
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+SELECT setval('user_profiles_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM user_profiles), false);
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM users), false);
+
+-- One profile per user, and the index behind the FK check on profile deletes and the
+-- UserProfiles.user (mappedBy) lookup. A hand-made schema already has one from its UNIQUE (profile_id).
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM pg_index i
+        JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+        WHERE i.indrelid = 'users'::regclass AND i.indisunique AND i.indnatts = 1 AND a.attname = 'profile_id'
+    ) THEN
+        CREATE UNIQUE INDEX idx_users_profile_id ON users (profile_id);
+    END IF;
+END $$;
+
+-- GET /users and the read models page by id; INCLUDE makes the page an index-only scan.
+CREATE INDEX IF NOT EXISTS idx_users_id_covering ON users (id) INCLUDE (first_name, last_name, version, profile_id);
+
+-- Keyset order of GET /users/search?sort=firstName|lastName; (value, id) matches the cursor predicate and
+-- the included columns are the rest of the search result, fetched without touching the heap.
+CREATE INDEX IF NOT EXISTS idx_users_first_name_id ON users (first_name, id) INCLUDE (last_name, profile_id);
+CREATE INDEX IF NOT EXISTS idx_users_last_name_id ON users (last_name, id) INCLUDE (first_name, profile_id);
+
+-- Team/unit filters of GET /users/search; team first since it is the more selective filter.
+CREATE INDEX IF NOT EXISTS idx_user_profiles_team_unit ON user_profiles (team, unit);
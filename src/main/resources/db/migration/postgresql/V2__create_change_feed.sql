@@ -0,0 +1,26 @@
+-- Transactional outbox of user and profile changes, published by ChangeEventRelay.
+
+CREATE SEQUENCE IF NOT EXISTS change_events_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS change_events (
+    id BIGINT PRIMARY KEY DEFAULT nextval('change_events_seq'),
+    position BIGINT,
+    aggregate VARCHAR(10) NOT NULL,
+    aggregate_id INTEGER NOT NULL,
+    type VARCHAR(10) NOT NULL,
+    payload TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP
+);
+
+-- Change feed reads by position; unique so a cursor identifies exactly one event.
+CREATE UNIQUE INDEX IF NOT EXISTS idx_change_events_position ON change_events (position);
+
+-- The relay polls unpublished events in id order.
+CREATE INDEX IF NOT EXISTS idx_change_events_unpublished ON change_events (published_at, id);
+
+CREATE TABLE IF NOT EXISTS change_relay_state (
+    id INTEGER PRIMARY KEY,
+    last_position BIGINT NOT NULL
+);
+INSERT INTO change_relay_state (id, last_position) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,19 @@
+-- Publication order of the outbox. Event ids come in pooled blocks per instance, so a later commit can carry
+-- a lower id; insert_order is drawn one at a time from a plain sequence when the row is inserted, which the
+-- writers do while holding the row lock of the user or profile the event describes.
+
+CREATE SEQUENCE IF NOT EXISTS change_events_order_seq;
+
+ALTER TABLE change_events ADD COLUMN IF NOT EXISTS insert_order BIGINT;
+
+-- Events already in the table keep the id order they were published in so far.
+UPDATE change_events SET insert_order = id WHERE insert_order IS NULL;
+SELECT setval('change_events_order_seq', (SELECT COALESCE(MAX(insert_order), 0) + 1 FROM change_events), false);
+
+ALTER TABLE change_events
+    ALTER COLUMN insert_order SET DEFAULT nextval('change_events_order_seq'),
+    ALTER COLUMN insert_order SET NOT NULL;
+
+-- The relay polls unpublished events in insert order.
+DROP INDEX IF EXISTS idx_change_events_unpublished;
+CREATE INDEX idx_change_events_unpublished ON change_events (published_at, insert_order);
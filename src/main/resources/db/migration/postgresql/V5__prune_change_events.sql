@@ -0,0 +1,4 @@
+-- Published events older than user-manager.changes.retention are deleted by ChangeEventRelay; this records the
+-- last position removed, so cursors before it are answered with 410 Gone.
+
+ALTER TABLE change_relay_state ADD COLUMN IF NOT EXISTS pruned_position BIGINT NOT NULL DEFAULT 0;
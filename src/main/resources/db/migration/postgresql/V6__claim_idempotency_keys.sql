@@ -0,0 +1,4 @@
+-- A request claims its Idempotency-Key before it runs: a PENDING row, status 0 and no body yet, that other
+-- instances wait on instead of running the request too. The response replaces it once the request completes.
+
+ALTER TABLE idempotency_keys ALTER COLUMN body DROP NOT NULL;
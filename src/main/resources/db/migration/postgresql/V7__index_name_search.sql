@@ -0,0 +1,28 @@
+-- Indexes for the case-insensitive name filter of GET /users/search, lower(first_name|last_name) LIKE 'abc%'.
+
+-- Prefix match: text_pattern_ops compares character by character, so LIKE 'abc%' becomes a range scan
+-- whatever the database collation.
+CREATE INDEX IF NOT EXISTS idx_users_first_name_prefix ON users (lower(first_name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_last_name_prefix ON users (lower(last_name) text_pattern_ops);
+
+-- Substring and fuzzy matching: trigram GIN indexes. pg_trgm ships with PostgreSQL's contrib package, but
+-- creating it needs that package installed and CREATE privilege on the database; without either the
+-- migration skips the trigram indexes instead of failing, and the prefix indexes above still serve the search.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        IF NOT EXISTS (SELECT 1 FROM pg_available_extensions WHERE name = 'pg_trgm') THEN
+            RAISE NOTICE 'pg_trgm is not available, skipping the trigram name indexes';
+            RETURN;
+        END IF;
+        BEGIN
+            CREATE EXTENSION IF NOT EXISTS pg_trgm;
+        EXCEPTION WHEN insufficient_privilege THEN
+            RAISE NOTICE 'Not allowed to create pg_trgm, skipping the trigram name indexes';
+            RETURN;
+        END;
+    END IF;
+    CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm ON users USING gin (lower(first_name) gin_trgm_ops);
+    CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm ON users USING gin (lower(last_name) gin_trgm_ops);
+END
+$$;
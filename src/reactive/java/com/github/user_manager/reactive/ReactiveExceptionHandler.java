@@ -0,0 +1,56 @@
+package com.github.user_manager.reactive;
+
+import com.github.user_manager.error.ApiExceptionHandler;
+import com.github.user_manager.error.ErrorReporter;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * The WebFlux counterpart of {@link ApiExceptionHandler}: the same problem bodies, counters and error log.
+ */
+@RestControllerAdvice
+@Profile("reactive")
+public class ReactiveExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final ErrorReporter errorReporter;
+
+    public ReactiveExceptionHandler(ErrorReporter errorReporter) {
+        this.errorReporter = errorReporter;
+    }
+
+    /**
+     * The version-checked updates of {@link ReactiveUserRepository} found a newer version.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Mono<ResponseEntity<Object>> handleOptimisticLock(OptimisticLockingFailureException ex,
+                                                             ServerWebExchange exchange) {
+        ProblemDetail body = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "The resource was modified concurrently, retry with its current state");
+        return handleExceptionInternal(ex, body, null, HttpStatus.CONFLICT, exchange);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public Mono<ResponseEntity<Object>> handleUnexpected(Exception ex, ServerWebExchange exchange) {
+        ProblemDetail body = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Unexpected error");
+        return handleExceptionInternal(ex, body, null, HttpStatus.INTERNAL_SERVER_ERROR, exchange);
+    }
+
+    @Override
+    protected Mono<ResponseEntity<Object>> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+                                                                   HttpStatusCode status,
+                                                                   ServerWebExchange exchange) {
+        errorReporter.report(ex, status.value());
+        return super.handleExceptionInternal(ex, body, headers, status, exchange);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.user_manager.reactive;
+
+import com.github.user_manager.dto.ProfileView;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.web.ETags;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@code /profiles} endpoints of {@code UserProfilesApi} on WebFlux, except {@code PATCH}.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveProfileController {
+
+    private final ReactiveUserService userService;
+
+    public ReactiveProfileController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * All profiles; encoded as a JSON array (or NDJSON) element by element as rows arrive.
+     */
+    @GetMapping("/profiles")
+    public Flux<ProfileView> getProfiles(@RequestParam(required = false) String fields) {
+        return userService.getProfiles(fields);
+    }
+
+    @GetMapping("/profiles/{id}")
+    public Mono<ResponseEntity<UserProfiles>> getProfileById(@PathVariable Integer id,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                     required = false) String ifNoneMatch) {
+        return userService.getProfileById(id).map(profile -> {
+            String eTag = ETags.of(profile);
+            if (ETags.isNotModified(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                    .body(profile);
+        });
+    }
+
+    @PostMapping("/profiles")
+    public Mono<ResponseEntity<UserProfiles>> createProfile(@RequestBody UserProfiles profile) {
+        return userService.saveProfile(profile)
+                .map(savedProfile -> ResponseEntity.status(HttpStatus.CREATED).body(savedProfile));
+    }
+
+    @PutMapping("/profiles/{id}")
+    public Mono<ResponseEntity<UserProfiles>> updateProfile(@PathVariable Integer id,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH,
+                                                                    required = false) String ifMatch,
+                                                            @RequestBody UserProfiles profile) {
+        return userService.updateProfile(id, profile, ifMatch)
+                .map(updatedProfile -> ResponseEntity.ok().eTag(ETags.of(updatedProfile)).body(updatedProfile));
+    }
+
+    @DeleteMapping("/profiles/{id}")
+    public Mono<ResponseEntity<Void>> deleteProfile(@PathVariable Integer id,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH,
+                                                            required = false) String ifMatch) {
+        return userService.deleteProfile(id, ifMatch)
+                .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+}
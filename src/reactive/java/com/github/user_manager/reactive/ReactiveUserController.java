@@ -0,0 +1,83 @@
+package com.github.user_manager.reactive;
+
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.UserView;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.web.ETags;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@code /users} endpoints of {@code UserManagerApi} on WebFlux. Paths, parameters, status codes and
+ * ETags are the same; search, {@code PATCH}, batch and idempotent creates stay on the MVC stack.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CursorPage<UserView>> getUsers(@RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) Integer after,
+                                               @RequestParam(required = false) String fields) {
+        return userService.getUsers(limit, after, fields);
+    }
+
+    /**
+     * Every user as NDJSON; the database cursor advances only as fast as the client reads.
+     */
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Users> streamUsers() {
+        return userService.streamUsers();
+    }
+
+    @GetMapping("/users/{id}")
+    public Mono<ResponseEntity<Users>> getUserById(@PathVariable Integer id,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                   String ifNoneMatch) {
+        return userService.getUserById(id).map(user -> {
+            String eTag = ETags.of(user);
+            if (ETags.isNotModified(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag).cacheControl(ETags.REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                    .body(user);
+        });
+    }
+
+    @PostMapping("/users")
+    public Mono<ResponseEntity<Users>> createUser(@RequestBody Users user) {
+        return userService.saveUser(user)
+                .map(savedUser -> ResponseEntity.status(HttpStatus.CREATED).body(savedUser));
+    }
+
+    @PutMapping("/users/{id}")
+    public Mono<ResponseEntity<Users>> updateUser(@PathVariable Integer id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                  String ifMatch,
+                                                  @RequestBody Users user) {
+        return userService.updateUser(id, user, ifMatch)
+                .map(updatedUser -> ResponseEntity.ok().eTag(ETags.of(updatedUser)).body(updatedUser));
+    }
+
+    @DeleteMapping("/users/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable Integer id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                 String ifMatch) {
+        return userService.deleteUser(id, ifMatch).then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.user_manager.reactive;
+
+import com.github.user_manager.entity.ChangeEvent;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC access to the tables the JPA entities map, returning the same {@link Users} and {@link UserProfiles}
+ * classes as plain objects.
+ * <p>
+ * Ids come from the column defaults ({@code nextval} of the entity sequences); with the {@code pooled-lo}
+ * optimizer the JPA side never hands out those values. Updates check and increment {@code version} like
+ * Hibernate's optimistic locking, so ETags stay comparable between the two stacks.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveUserRepository {
+
+    private static final String SELECT_USERS = """
+            SELECT u.id, u.first_name, u.last_name, u.version,
+                   p.id AS p_id, p.unit, p.team, p.phone_number, p.created_at, p.version AS p_version
+            FROM users u LEFT JOIN user_profiles p ON p.id = u.profile_id
+            """;
+
+    private static final String SELECT_PROFILES = """
+            SELECT id AS p_id, unit, team, phone_number, created_at, version AS p_version
+            FROM user_profiles
+            """;
+
+    private final DatabaseClient client;
+
+    public ReactiveUserRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Up to {@code limit} users with ids above {@code after}, in id order.
+     */
+    public Flux<Users> findPage(int after, int limit) {
+        return client.sql(SELECT_USERS + "WHERE u.id > :after ORDER BY u.id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::user)
+                .all();
+    }
+
+    /**
+     * Every user in id order; rows are pulled from the driver as the subscriber requests them.
+     */
+    public Flux<Users> findAll() {
+        return client.sql(SELECT_USERS + "ORDER BY u.id")
+                .map(ReactiveUserRepository::user)
+                .all();
+    }
+
+    public Mono<Users> findById(int id) {
+        return client.sql(SELECT_USERS + "WHERE u.id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::user)
+                .one();
+    }
+
+    public Flux<UserProfiles> findAllProfiles() {
+        return client.sql(SELECT_PROFILES + "ORDER BY id")
+                .map(ReactiveUserRepository::profile)
+                .all();
+    }
+
+    public Mono<UserProfiles> findProfileById(int id) {
+        return client.sql(SELECT_PROFILES + "WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::profile)
+                .one();
+    }
+
+    /**
+     * Inserts the user and returns it with its new id; its profile, if any, must already be inserted.
+     */
+    public Mono<Users> insertUser(Users user) {
+        return client.sql("""
+                        INSERT INTO users (first_name, last_name, profile_id, version)
+                        VALUES (:firstName, :lastName, :profileId, 0)
+                        """)
+                .bind("firstName", user.getFirstName())
+                .bind("lastName", user.getLastName())
+                .bind("profileId", profileId(user))
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Integer.class))
+                .one()
+                .map(id -> {
+                    user.setId(id);
+                    user.setVersion(0);
+                    return user;
+                });
+    }
+
+    public Mono<UserProfiles> insertProfile(UserProfiles profile) {
+        return client.sql("""
+                        INSERT INTO user_profiles (unit, team, phone_number, version)
+                        VALUES (:unit, :team, :phoneNumber, 0)
+                        """)
+                .bind("unit", profile.getUnit())
+                .bind("team", profile.getTeam())
+                .bind("phoneNumber", profile.getPhoneNumber())
+                .filter(statement -> statement.returnGeneratedValues("id", "created_at"))
+                .map(row -> {
+                    profile.setId(row.get("id", Integer.class));
+                    profile.setCreatedAt(timestamp(row));
+                    profile.setVersion(0);
+                    return profile;
+                })
+                .one();
+    }
+
+    /**
+     * Writes the user's names and profile link if its version is still the one it was read with.
+     *
+     * @throws OptimisticLockingFailureException (as error signal) if the row changed or disappeared meanwhile
+     */
+    public Mono<Users> updateUser(Users user) {
+        return client.sql("""
+                        UPDATE users SET first_name = :firstName, last_name = :lastName, profile_id = :profileId,
+                                         version = version + 1
+                        WHERE id = :id AND version = :version
+                        """)
+                .bind("firstName", user.getFirstName())
+                .bind("lastName", user.getLastName())
+                .bind("profileId", profileId(user))
+                .bind("id", user.getId())
+                .bind("version", user.getVersion())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> checkUpdated(rows, "User", user.getId()))
+                .map(updated -> {
+                    user.setVersion(user.getVersion() + 1);
+                    return user;
+                });
+    }
+
+    /**
+     * Writes the profile's attributes if its version is still the one it was read with.
+     *
+     * @throws OptimisticLockingFailureException (as error signal) if the row changed or disappeared meanwhile
+     */
+    public Mono<UserProfiles> updateProfile(UserProfiles profile) {
+        return client.sql("""
+                        UPDATE user_profiles SET unit = :unit, team = :team, phone_number = :phoneNumber,
+                                                 version = version + 1
+                        WHERE id = :id AND version = :version
+                        """)
+                .bind("unit", profile.getUnit())
+                .bind("team", profile.getTeam())
+                .bind("phoneNumber", profile.getPhoneNumber())
+                .bind("id", profile.getId())
+                .bind("version", profile.getVersion())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> checkUpdated(rows, "Profile", profile.getId()))
+                .map(updated -> {
+                    profile.setVersion(profile.getVersion() + 1);
+                    return profile;
+                });
+    }
+
+    public Mono<Long> deleteUser(int id) {
+        return client.sql("DELETE FROM users WHERE id = :id").bind("id", id).fetch().rowsUpdated();
+    }
+
+    public Mono<Long> deleteProfile(int id) {
+        return client.sql("DELETE FROM user_profiles WHERE id = :id").bind("id", id).fetch().rowsUpdated();
+    }
+
+    /**
+     * Appends an outbox row; the relay publishes it like one written through JPA.
+     */
+    public Mono<Void> appendChangeEvent(ChangeEvent.Aggregate aggregate, int aggregateId,
+                                        ChangeEvent.Type type, String payload) {
+        return client.sql("""
+                        INSERT INTO change_events (aggregate, aggregate_id, type, payload)
+                        VALUES (:aggregate, :aggregateId, :type, :payload)
+                        """)
+                .bind("aggregate", aggregate.name())
+                .bind("aggregateId", aggregateId)
+                .bind("type", type.name())
+                .bind("payload", Parameter.fromOrEmpty(payload, String.class))
+                .then();
+    }
+
+    private static Mono<Long> checkUpdated(long rows, String kind, int id) {
+        if (rows == 0) {
+            return Mono.error(new OptimisticLockingFailureException(
+                    kind + " " + id + " was updated or deleted by another transaction"));
+        }
+        return Mono.just(rows);
+    }
+
+    private static Parameter profileId(Users user) {
+        UserProfiles profile = user.getUserProfiles();
+        return Parameter.fromOrEmpty(profile != null ? profile.getId() : null, Integer.class);
+    }
+
+    private static Users user(Readable row) {
+        Users user = new Users();
+        user.setId(row.get("id", Integer.class));
+        user.setFirstName(row.get("first_name", String.class));
+        user.setLastName(row.get("last_name", String.class));
+        user.setVersion(row.get("version", Long.class));
+        if (row.get("p_id", Integer.class) != null) {
+            user.setUserProfiles(profile(row));
+        }
+        return user;
+    }
+
+    private static UserProfiles profile(Readable row) {
+        UserProfiles profile = new UserProfiles();
+        profile.setId(row.get("p_id", Integer.class));
+        profile.setUnit(row.get("unit", String.class));
+        profile.setTeam(row.get("team", String.class));
+        profile.setPhoneNumber(row.get("phone_number", String.class));
+        profile.setCreatedAt(timestamp(row));
+        profile.setVersion(row.get("p_version", Long.class));
+        return profile;
+    }
+
+    private static Timestamp timestamp(Readable row) {
+        LocalDateTime createdAt = row.get("created_at", LocalDateTime.class);
+        return createdAt != null ? Timestamp.valueOf(createdAt) : null;
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.user_manager.reactive;
+
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.ProfileView;
+import com.github.user_manager.dto.UserView;
+import com.github.user_manager.entity.ChangeEvent.Aggregate;
+import com.github.user_manager.entity.ChangeEvent.Type;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.error.ProfileNotFoundException;
+import com.github.user_manager.error.UserNotFoundException;
+import com.github.user_manager.service.UserManagerService;
+import com.github.user_manager.web.ETags;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link UserManagerService} and {@code UserProfilesService} for the user and
+ * profile endpoints: same paging limits, not-found and {@code If-Match} errors, and the same outbox events
+ * written in the transaction of each write.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+
+    private final ReactiveUserRepository repository;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveUserService(ReactiveUserRepository repository,
+                               TransactionalOperator transactionalOperator,
+                               ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.transactionalOperator = transactionalOperator;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * One keyset page of users ordered by id, like {@link UserManagerService#getUsers}.
+     */
+    public Mono<CursorPage<UserView>> getUsers(Integer limit, Integer after, String fields) {
+        FieldSet fieldSet = parseFields(fields, FieldSet.USER_FIELDS);
+        int pageSize = limit == null
+                ? UserManagerService.DEFAULT_PAGE_SIZE
+                : Math.clamp(limit, 1, UserManagerService.MAX_PAGE_SIZE);
+        return repository.findPage(after == null ? 0 : after, pageSize + 1)
+                .map(user -> view(user, fieldSet))
+                .collectList()
+                .map(users -> {
+                    if (users.size() <= pageSize) {
+                        return new CursorPage<>(users, null);
+                    }
+                    List<UserView> page = List.copyOf(users.subList(0, pageSize));
+                    return new CursorPage<>(page, String.valueOf(page.getLast().id()));
+                });
+    }
+
+    public Flux<Users> streamUsers() {
+        return repository.findAll();
+    }
+
+    public Mono<Users> getUserById(Integer id) {
+        return repository.findById(id).switchIfEmpty(userNotFound(id));
+    }
+
+    public Mono<Users> saveUser(Users user) {
+        Mono<Users> save = Mono.defer(() -> {
+            UserProfiles profile = user.getUserProfiles();
+            Mono<Users> withProfile = profile == null
+                    ? Mono.just(user)
+                    : repository.insertProfile(profile).thenReturn(user);
+            return withProfile.flatMap(repository::insertUser);
+        }).flatMap(saved -> userChanged(Type.CREATED, saved)
+                .then(profileChanged(Type.CREATED, saved.getUserProfiles()))
+                .thenReturn(saved));
+        return transactionalOperator.transactional(save);
+    }
+
+    /**
+     * Updates the user, attaching the given profile if it has none yet; {@code ifMatch} is the client's
+     * {@code If-Match} header, or {@code null} to skip the check.
+     */
+    public Mono<Users> updateUser(Integer id, Users user, String ifMatch) {
+        Mono<Users> update = getUserById(id).flatMap(existing -> {
+            checkPrecondition("User", ifMatch, ETags.of(existing));
+            existing.setFirstName(user.getFirstName());
+            existing.setLastName(user.getLastName());
+
+            UserProfiles changes = user.getUserProfiles();
+            UserProfiles profile = existing.getUserProfiles();
+            if (changes == null) {
+                return repository.updateUser(existing).flatMap(updated ->
+                        userChanged(Type.UPDATED, updated).thenReturn(updated));
+            }
+            if (profile == null) {
+                return repository.insertProfile(changes)
+                        .doOnNext(existing::setUserProfiles)
+                        .then(Mono.defer(() -> repository.updateUser(existing)))
+                        .flatMap(updated -> userChanged(Type.UPDATED, updated)
+                                .then(profileChanged(Type.CREATED, updated.getUserProfiles()))
+                                .thenReturn(updated));
+            }
+            profile.setUnit(changes.getUnit());
+            profile.setTeam(changes.getTeam());
+            profile.setPhoneNumber(changes.getPhoneNumber());
+            return repository.updateProfile(profile)
+                    .then(Mono.defer(() -> repository.updateUser(existing)))
+                    .flatMap(updated -> userChanged(Type.UPDATED, updated)
+                            .then(profileChanged(Type.UPDATED, updated.getUserProfiles()))
+                            .thenReturn(updated));
+        });
+        return transactionalOperator.transactional(update);
+    }
+
+    /**
+     * Deletes the user and, like the JPA {@code orphanRemoval}, its profile.
+     */
+    public Mono<Void> deleteUser(Integer id, String ifMatch) {
+        Mono<Void> delete = getUserById(id).flatMap(user -> {
+            checkPrecondition("User", ifMatch, ETags.of(user));
+            UserProfiles profile = user.getUserProfiles();
+            Mono<Long> deleteProfile = profile == null ? Mono.empty() : repository.deleteProfile(profile.getId());
+            return repository.deleteUser(user.getId())
+                    .then(deleteProfile)
+                    .then(userChanged(Type.DELETED, user))
+                    .then(profileChanged(Type.DELETED, profile));
+        });
+        return transactionalOperator.transactional(delete);
+    }
+
+    /**
+     * All profiles in id order as views with the attributes selected by {@code fields}.
+     */
+    public Flux<ProfileView> getProfiles(String fields) {
+        FieldSet fieldSet = parseFields(fields, FieldSet.PROFILE_FIELDS);
+        return repository.findAllProfiles().map(profile -> view(profile, fieldSet, ""));
+    }
+
+    public Mono<UserProfiles> getProfileById(Integer id) {
+        return repository.findProfileById(id).switchIfEmpty(profileNotFound(id));
+    }
+
+    public Mono<UserProfiles> saveProfile(UserProfiles profile) {
+        Mono<UserProfiles> save = Mono.defer(() -> repository.insertProfile(profile))
+                .flatMap(saved -> profileChanged(Type.CREATED, saved).thenReturn(saved));
+        return transactionalOperator.transactional(save);
+    }
+
+    public Mono<UserProfiles> updateProfile(Integer id, UserProfiles profile, String ifMatch) {
+        Mono<UserProfiles> update = getProfileById(id).flatMap(existing -> {
+            checkPrecondition("Profile", ifMatch, ETags.of(existing));
+            existing.setUnit(profile.getUnit());
+            existing.setTeam(profile.getTeam());
+            existing.setPhoneNumber(profile.getPhoneNumber());
+            return repository.updateProfile(existing);
+        }).flatMap(updated -> profileChanged(Type.UPDATED, updated).thenReturn(updated));
+        return transactionalOperator.transactional(update);
+    }
+
+    public Mono<Void> deleteProfile(Integer id, String ifMatch) {
+        Mono<Void> delete = getProfileById(id).flatMap(profile -> {
+            checkPrecondition("Profile", ifMatch, ETags.of(profile));
+            return repository.deleteProfile(profile.getId()).then(profileChanged(Type.DELETED, profile));
+        });
+        return transactionalOperator.transactional(delete);
+    }
+
+    private Mono<Void> userChanged(Type type, Users user) {
+        return repository.appendChangeEvent(Aggregate.USER, user.getId(), type,
+                type == Type.DELETED ? null : objectMapper.writeValueAsString(user));
+    }
+
+    private Mono<Void> profileChanged(Type type, UserProfiles profile) {
+        if (profile == null) {
+            return Mono.empty();
+        }
+        return repository.appendChangeEvent(Aggregate.PROFILE, profile.getId(), type,
+                type == Type.DELETED ? null : objectMapper.writeValueAsString(profile));
+    }
+
+    private static <T> Mono<T> userNotFound(Integer id) {
+        return Mono.error(() -> new UserNotFoundException(id));
+    }
+
+    private static <T> Mono<T> profileNotFound(Integer id) {
+        return Mono.error(() -> new ProfileNotFoundException(id));
+    }
+
+    private static void checkPrecondition(String kind, String ifMatch, String currentETag) {
+        if (!ETags.isPreconditionMet(ifMatch, currentETag)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    kind + " was modified, current ETag is " + currentETag);
+        }
+    }
+
+    private static FieldSet parseFields(String fields, List<String> allowed) {
+        try {
+            return FieldSet.parse(fields, allowed);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private static UserView view(Users user, FieldSet fields) {
+        UserProfiles profile = user.getUserProfiles();
+        return new UserView(
+                fields.includes("id") ? user.getId() : null,
+                fields.includes("firstName") ? user.getFirstName() : null,
+                fields.includes("lastName") ? user.getLastName() : null,
+                fields.includes("version") ? user.getVersion() : null,
+                profile != null && fields.includesAnyOf("userProfiles")
+                        ? view(profile, fields, "userProfiles.")
+                        : null,
+                new UserView.Revision(user.getVersion(),
+                        profile != null ? profile.getId() : null, profile != null ? profile.getVersion() : null));
+    }
+
+    private static ProfileView view(UserProfiles profile, FieldSet fields, String prefix) {
+        return new ProfileView(
+                fields.includes(prefix + "id") ? profile.getId() : null,
+                fields.includes(prefix + "unit") ? profile.getUnit() : null,
+                fields.includes(prefix + "team") ? profile.getTeam() : null,
+                fields.includes(prefix + "phoneNumber") ? profile.getPhoneNumber() : null,
+                fields.includes(prefix + "createdAt") ? profile.getCreatedAt() : null,
+                fields.includes(prefix + "version") ? profile.getVersion() : null);
+    }
+}
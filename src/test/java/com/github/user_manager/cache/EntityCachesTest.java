@@ -0,0 +1,159 @@
+package com.github.user_manager.cache;
+
+import com.github.user_manager.config.CacheConfig;
+import com.github.user_manager.entity.Users;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A {@code @Cacheable} read that loaded a row before a write must not put it back after the write's eviction.
+ */
+@SpringJUnitConfig
+class EntityCachesTest {
+
+    @Configuration
+    @Import({CacheConfig.class, EntityCaches.class})
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(EntityCaches.USERS, EntityCaches.PROFILES);
+        }
+
+        @Bean
+        Row row() {
+            return new Row();
+        }
+
+        @Bean
+        Reader reader(Row row) {
+            return new Reader(row);
+        }
+    }
+
+    /**
+     * The stored row, and latches to pause a read between loading and returning it.
+     */
+    static class Row {
+
+        volatile String value = "old";
+        volatile CountDownLatch loaded = new CountDownLatch(0);
+        volatile CountDownLatch resume = new CountDownLatch(0);
+        final AtomicInteger loads = new AtomicInteger();
+    }
+
+    /**
+     * Stands in for the service.
+     */
+    static class Reader {
+
+        private final Row row;
+
+        Reader(Row row) {
+            this.row = row;
+        }
+
+        @Cacheable(cacheNames = EntityCaches.USERS, key = "#id")
+        public String read(int id) throws InterruptedException {
+            row.loads.incrementAndGet();
+            String current = row.value;
+            row.loaded.countDown();
+            row.resume.await(5, TimeUnit.SECONDS);
+            return current;
+        }
+    }
+
+    @Autowired
+    private Reader reader;
+
+    @Autowired
+    private Row row;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(EntityCaches.USERS).clear();
+        row.value = "old";
+        row.loaded = new CountDownLatch(0);
+        row.resume = new CountDownLatch(0);
+        row.loads.set(0);
+    }
+
+    @Test
+    void readsAreCached() throws InterruptedException {
+        assertThat(reader.read(1)).isEqualTo("old");
+        assertThat(reader.read(1)).isEqualTo("old");
+
+        assertThat(row.loads).hasValue(1);
+    }
+
+    @Test
+    void readLoadedBeforeAnEvictionIsNotCached() throws Exception {
+        row.loaded = new CountDownLatch(1);
+        row.resume = new CountDownLatch(1);
+        CompletableFuture<String> staleRead = CompletableFuture.supplyAsync(() -> {
+            try {
+                return reader.read(1);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(row.loaded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        row.value = "new";
+        entityCaches.evictUser(user(1));
+        row.resume.countDown();
+
+        assertThat(staleRead.get(5, TimeUnit.SECONDS)).isEqualTo("old");
+        assertThat(reader.read(1)).isEqualTo("new");
+        assertThat(reader.read(1)).isEqualTo("new");
+        assertThat(row.loads).hasValue(2);
+    }
+
+    @Test
+    void evictionOfAnotherKeyDoesNotBlockThePut() throws Exception {
+        row.loaded = new CountDownLatch(1);
+        row.resume = new CountDownLatch(1);
+        CompletableFuture<String> read = CompletableFuture.supplyAsync(() -> {
+            try {
+                return reader.read(1);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(row.loaded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        entityCaches.evictUser(user(2));
+        row.resume.countDown();
+
+        assertThat(read.get(5, TimeUnit.SECONDS)).isEqualTo("old");
+        assertThat(reader.read(1)).isEqualTo("old");
+        assertThat(row.loads).hasValue(1);
+    }
+
+    private static Users user(int id) {
+        Users user = new Users();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.user_manager.changes;
+
+import com.github.user_manager.dto.ChangeEventView;
+import com.github.user_manager.entity.ChangeEvent;
+import com.github.user_manager.entity.ChangeRelayState;
+import com.github.user_manager.repository.ChangeEventRepository;
+import com.github.user_manager.repository.ChangeRelayStateRepository;
+import com.github.user_manager.sharding.Shards;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Publication order and positions of the outbox relay, and pruning of the published feed. The relay is
+ * driven by hand; its scheduler is never started.
+ */
+@DataJpaTest
+class ChangeEventRelayTest {
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO change_events (id, aggregate, aggregate_id, type, payload, created_at)
+            VALUES (?, 'USER', ?, 'UPDATED', NULL, CURRENT_TIMESTAMP)
+            """;
+
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+
+    @Autowired
+    private ChangeRelayStateRepository relayStateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<List<ChangeEventView>> batches = new CopyOnWriteArrayList<>();
+    private ChangeEventProperties properties;
+    private ChangeEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChangeEventProperties();
+        relay = new ChangeEventRelay(changeEventRepository, relayStateRepository, List.of(batches::add), properties,
+                transactionManager, jdbcTemplate, new StaticListableBeanFactory().getBeanProvider(Shards.class));
+    }
+
+    @Test
+    void publishesInInsertOrderNotIdOrder() {
+        // Ids come in blocks per instance, so a later write can carry a lower id.
+        insertEvents(1_000, 5, 500);
+
+        assertThat(relay.relay()).isEqualTo(3);
+
+        assertThat(published()).extracting(ChangeEventView::eventId).containsExactly(1_000L, 5L, 500L);
+        assertThat(published()).extracting(ChangeEventView::position).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void positionsStayContiguousAcrossBatchesAndRuns() {
+        properties.setBatchSize(2);
+        insertEvents(1, 2, 3, 4, 5);
+        assertThat(relay.relay()).isEqualTo(5);
+        insertEvents(6);
+        assertThat(relay.relay()).isEqualTo(1);
+        assertThat(relay.relay()).isZero();
+
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+        assertThat(published()).extracting(ChangeEventView::position).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(published()).extracting(ChangeEventView::eventId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(relayState().getLastPosition()).isEqualTo(6);
+    }
+
+    @Test
+    void pruneDeletesOnlyEventsOlderThanRetentionInPositionOrder() {
+        properties.setRetention(Duration.ofDays(1));
+        insertEvents(1, 2, 3, 4);
+        relay.relay();
+        entityManager.flush();
+        // Positions 1, 2 and 4 are past the retention; 3 is not, so pruning stops before it.
+        jdbcTemplate.update("UPDATE change_events SET published_at = DATEADD('DAY', -2, published_at) "
+                + "WHERE position IN (1, 2, 4)");
+        entityManager.clear();
+
+        assertThat(relay.prune()).isEqualTo(2);
+
+        assertThat(relayState().getPrunedPosition()).isEqualTo(2);
+        assertThat(changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(0, Limit.of(10)))
+                .extracting(ChangeEvent::getPosition).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void pruneContinuesFromThePrunedPosition() {
+        properties.setRetention(Duration.ofDays(1));
+        properties.setBatchSize(2);
+        insertEvents(1, 2, 3, 4, 5);
+        relay.relay();
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE change_events SET published_at = DATEADD('DAY', -2, published_at)");
+        entityManager.clear();
+
+        assertThat(relay.prune()).isEqualTo(5);
+        assertThat(relay.prune()).isZero();
+
+        assertThat(relayState().getPrunedPosition()).isEqualTo(5);
+        assertThat(changeEventRepository.count()).isZero();
+    }
+
+    private void insertEvents(long... ids) {
+        for (long id : ids) {
+            jdbcTemplate.update(INSERT_EVENT, id, (int) id);
+        }
+    }
+
+    private List<ChangeEventView> published() {
+        return batches.stream().flatMap(List::stream).toList();
+    }
+
+    private ChangeRelayState relayState() {
+        entityManager.flush();
+        entityManager.clear();
+        return relayStateRepository.findById(ChangeRelayState.ID).orElseThrow();
+    }
+}
@@ -0,0 +1,254 @@
+package com.github.user_manager.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Replay, coalescing and conflict handling of {@link IdempotentRequests} over the in-memory store. Two
+ * instances sharing one store stand in for two application instances sharing the {@code jdbc} store.
+ */
+class IdempotentRequestsTest {
+
+    record Created(int id, String name) {
+    }
+
+    private static final Map<String, String> BODY = Map.of("name", "Alice");
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private IdempotencyProperties properties;
+    private IdempotencyStore store;
+    private MeterRegistry meterRegistry;
+    private IdempotentRequests requests;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        properties.setInFlightTimeout(Duration.ofSeconds(5));
+        store = new InMemoryIdempotencyStore(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        requests = new IdempotentRequests(store, objectMapper, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void replaysCompletedResponse() {
+        ResponseEntity<Created> first = requests.execute("key", BODY, Created.class, created(1));
+        ResponseEntity<Created> second = requests.execute("key", BODY, Created.class, created(2));
+
+        assertThat(first.getHeaders().containsHeader(IdempotentRequests.REPLAYED_HEADER)).isFalse();
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(second.getBody()).isEqualTo(new Created(1, "Alice"));
+        assertThat(second.getHeaders().getFirst(IdempotentRequests.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void requestsWithoutKeyAlwaysRun() {
+        requests.execute(null, BODY, Created.class, created(1));
+        requests.execute(null, BODY, Created.class, created(2));
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void rejectsKeyReusedWithDifferentBody() {
+        requests.execute("key", BODY, Created.class, created(1));
+
+        assertThatThrownBy(() -> requests.execute("key", Map.of("name", "Bob"), Created.class, created(2)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void rejectsKeyReusedWithDifferentBodyWhileInFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<ResponseEntity<Created>> first = executor.submit(
+                () -> requests.execute("key", BODY, Created.class, blocked(1, release)));
+        awaitRuns(1);
+
+        Future<ResponseEntity<Created>> reused = executor.submit(
+                () -> requests.execute("key", Map.of("name", "Bob"), Created.class, created(2)));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(new Created(1, "Alice"));
+        assertThatThrownBy(() -> reused.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(ResponseStatusException.class)
+                .cause().satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                        .isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<ResponseEntity<Created>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int id = i;
+            responses.add(executor.submit(() -> requests.execute("key", BODY, Created.class, blocked(id, release))));
+        }
+        awaitRuns(1);
+        awaitCoalesced(7);
+        release.countDown();
+
+        int replays = 0;
+        Created winner = null;
+        for (Future<ResponseEntity<Created>> response : responses) {
+            ResponseEntity<Created> entity = response.get(5, TimeUnit.SECONDS);
+            assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            if (winner == null) {
+                winner = entity.getBody();
+            }
+            assertThat(entity.getBody()).isEqualTo(winner);
+            if (entity.getHeaders().containsHeader(IdempotentRequests.REPLAYED_HEADER)) {
+                replays++;
+            }
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(replays).isEqualTo(7);
+    }
+
+    @Test
+    void duplicateOnAnotherInstanceWaitsForTheClaim() throws Exception {
+        IdempotentRequests otherInstance = new IdempotentRequests(store, objectMapper, properties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<ResponseEntity<Created>> first = executor.submit(
+                () -> requests.execute("key", BODY, Created.class, blocked(1, release)));
+        awaitRuns(1);
+
+        Future<ResponseEntity<Created>> duplicate = executor.submit(
+                () -> otherInstance.execute("key", BODY, Created.class, created(2)));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(new Created(1, "Alice"));
+        ResponseEntity<Created> replayed = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(replayed.getBody()).isEqualTo(new Created(1, "Alice"));
+        assertThat(replayed.getHeaders().getFirst(IdempotentRequests.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void duplicateGivesUpWith409AfterInFlightTimeout() throws Exception {
+        properties.setInFlightTimeout(Duration.ofMillis(100));
+        requests = new IdempotentRequests(store, objectMapper, properties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<ResponseEntity<Created>> first = executor.submit(
+                () -> requests.execute("key", BODY, Created.class, blocked(1, release)));
+        awaitRuns(1);
+
+        try {
+            assertThatThrownBy(() -> requests.execute("key", BODY, Created.class, created(2)))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        } finally {
+            release.countDown();
+        }
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failureReleasesTheKey() {
+        assertThatThrownBy(() -> requests.execute("key", BODY, Created.class, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        ResponseEntity<Created> retry = requests.execute("key", BODY, Created.class, created(2));
+
+        assertThat(retry.getBody()).isEqualTo(new Created(2, "Alice"));
+        assertThat(retry.getHeaders().containsHeader(IdempotentRequests.REPLAYED_HEADER)).isFalse();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void unsuccessfulResponseIsNotReplayed() {
+        requests.execute("key", BODY, Created.class, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.badRequest().build();
+        });
+
+        ResponseEntity<Created> retry = requests.execute("key", BODY, Created.class, created(2));
+
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void rejectsBlankKey() {
+        assertThatThrownBy(() -> requests.execute(" ", BODY, Created.class, created(1)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThat(runs).hasValue(0);
+    }
+
+    private Supplier<ResponseEntity<Created>> created(int id) {
+        return () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CREATED).body(new Created(id, "Alice"));
+        };
+    }
+
+    /**
+     * Like {@link #created} but holds the request in flight until {@code release} opens.
+     */
+    private Supplier<ResponseEntity<Created>> blocked(int id, CountDownLatch release) {
+        return () -> {
+            runs.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(new Created(id, "Alice"));
+        };
+    }
+
+    private void awaitRuns(int count) throws InterruptedException {
+        awaitUntil(() -> runs.get() >= count);
+    }
+
+    private void awaitCoalesced(int count) throws InterruptedException {
+        awaitUntil(() -> meterRegistry.counter("user_manager.idempotency.coalesced").count() >= count);
+    }
+
+    private static void awaitUntil(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.get()) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            Thread.sleep(5);
+        }
+    }
+}
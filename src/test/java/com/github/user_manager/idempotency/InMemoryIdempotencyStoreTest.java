@@ -0,0 +1,97 @@
+package com.github.user_manager.idempotency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryIdempotencyStoreTest {
+
+    private static final String FINGERPRINT = "a".repeat(64);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private IdempotencyProperties properties;
+    private InMemoryIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        store = new InMemoryIdempotencyStore(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentClaimsHaveOneWinner() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> claims = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            claims.add(executor.submit(() -> {
+                start.await();
+                return store.claim("key", FINGERPRINT);
+            }));
+        }
+        start.countDown();
+
+        int won = 0;
+        for (Future<Boolean> claim : claims) {
+            if (claim.get()) {
+                won++;
+            }
+        }
+        assertThat(won).isEqualTo(1);
+        assertThat(store.find("key")).hasValueSatisfying(stored -> assertThat(stored.isPending()).isTrue());
+    }
+
+    @Test
+    void savedResponseReplacesTheClaim() {
+        store.claim("key", FINGERPRINT);
+        store.save("key", completed());
+
+        assertThat(store.find("key")).hasValue(completed());
+        assertThat(store.claim("key", FINGERPRINT)).isFalse();
+    }
+
+    @Test
+    void releaseFreesAClaimButKeepsAResponse() {
+        store.claim("released", FINGERPRINT);
+        store.release("released");
+        store.claim("completed", FINGERPRINT);
+        store.save("completed", completed());
+        store.release("completed");
+
+        assertThat(store.find("released")).isEmpty();
+        assertThat(store.claim("released", FINGERPRINT)).isTrue();
+        assertThat(store.find("completed")).hasValue(completed());
+    }
+
+    @Test
+    void pendingClaimExpiresAfterTtl() throws InterruptedException {
+        properties.setTtl(Duration.ofMillis(100));
+        store = new InMemoryIdempotencyStore(properties);
+        store.claim("key", FINGERPRINT);
+
+        Thread.sleep(200);
+
+        assertThat(store.find("key")).isEmpty();
+        assertThat(store.claim("key", FINGERPRINT)).isTrue();
+    }
+
+    private static StoredResponse completed() {
+        return new StoredResponse(FINGERPRINT, 201, "{\"id\":1}", Instant.EPOCH);
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.user_manager.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.JdbcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Claims, completion and expiry in the {@code idempotency_keys} table. Not transactional: concurrent claims
+ * have to see each other's committed rows.
+ */
+@JdbcTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JdbcIdempotencyStoreTest {
+
+    record Created(int id) {
+    }
+
+    private static final String FINGERPRINT = "a".repeat(64);
+    private static final String OTHER_FINGERPRINT = "b".repeat(64);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private IdempotencyProperties properties;
+    private JdbcIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+        properties = new IdempotencyProperties();
+        store = new JdbcIdempotencyStore(jdbcTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void keyIsClaimedOnce() {
+        assertThat(store.claim("key", FINGERPRINT)).isTrue();
+        assertThat(store.claim("key", FINGERPRINT)).isFalse();
+
+        StoredResponse pending = store.find("key").orElseThrow();
+        assertThat(pending.isPending()).isTrue();
+        assertThat(pending.fingerprint()).isEqualTo(FINGERPRINT);
+    }
+
+    @Test
+    void concurrentClaimsHaveOneWinner() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> claims = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            claims.add(executor.submit(() -> {
+                start.await();
+                return store.claim("key", FINGERPRINT);
+            }));
+        }
+        start.countDown();
+
+        int won = 0;
+        for (Future<Boolean> claim : claims) {
+            if (claim.get()) {
+                won++;
+            }
+        }
+        assertThat(won).isEqualTo(1);
+    }
+
+    @Test
+    void savedResponseReplacesTheClaim() {
+        store.claim("key", FINGERPRINT);
+        store.save("key", completed(FINGERPRINT));
+
+        StoredResponse stored = store.find("key").orElseThrow();
+        assertThat(stored.isPending()).isFalse();
+        assertThat(stored.status()).isEqualTo(201);
+        assertThat(stored.body()).isEqualTo("{\"id\":1}");
+        assertThat(store.claim("key", FINGERPRINT)).isFalse();
+    }
+
+    @Test
+    void releaseFreesAClaimButKeepsAResponse() {
+        store.claim("released", FINGERPRINT);
+        store.release("released");
+        store.claim("completed", FINGERPRINT);
+        store.save("completed", completed(FINGERPRINT));
+        store.release("completed");
+
+        assertThat(store.find("released")).isEmpty();
+        assertThat(store.claim("released", FINGERPRINT)).isTrue();
+        assertThat(store.find("completed")).hasValueSatisfying(stored -> assertThat(stored.isPending()).isFalse());
+    }
+
+    @Test
+    void pendingClaimExpiresAfterClaimTimeout() throws InterruptedException {
+        properties.setClaimTimeout(Duration.ofMillis(100));
+        store = new JdbcIdempotencyStore(jdbcTemplate, properties);
+        store.claim("key", FINGERPRINT);
+
+        Thread.sleep(200);
+
+        assertThat(store.find("key")).isEmpty();
+        assertThat(store.claim("key", OTHER_FINGERPRINT)).isTrue();
+        assertThat(store.find("key")).hasValueSatisfying(
+                stored -> assertThat(stored.fingerprint()).isEqualTo(OTHER_FINGERPRINT));
+    }
+
+    @Test
+    void completedResponseOutlivesClaimTimeoutButNotTtl() throws InterruptedException {
+        properties.setClaimTimeout(Duration.ofMillis(100));
+        properties.setTtl(Duration.ofMillis(400));
+        store = new JdbcIdempotencyStore(jdbcTemplate, properties);
+        store.claim("key", FINGERPRINT);
+        store.save("key", completed(FINGERPRINT));
+
+        Thread.sleep(200);
+        assertThat(store.find("key")).isPresent();
+        assertThat(store.claim("key", FINGERPRINT)).isFalse();
+
+        Thread.sleep(300);
+        assertThat(store.find("key")).isEmpty();
+        assertThat(store.claim("key", FINGERPRINT)).isTrue();
+    }
+
+    @Test
+    void lateCompletionDoesNotOverwriteTheNewClaim() throws InterruptedException {
+        properties.setClaimTimeout(Duration.ofMillis(100));
+        store = new JdbcIdempotencyStore(jdbcTemplate, properties);
+        store.claim("key", FINGERPRINT);
+        Thread.sleep(200);
+        store.claim("key", OTHER_FINGERPRINT);
+
+        store.save("key", completed(FINGERPRINT));
+
+        assertThat(store.find("key")).hasValueSatisfying(stored -> {
+            assertThat(stored.isPending()).isTrue();
+            assertThat(stored.fingerprint()).isEqualTo(OTHER_FINGERPRINT);
+        });
+    }
+
+    @Test
+    void waitingRequestTakesOverAnAbandonedClaim() throws NoSuchAlgorithmException {
+        properties.setClaimTimeout(Duration.ofMillis(200));
+        store = new JdbcIdempotencyStore(jdbcTemplate, properties);
+        ObjectMapper objectMapper = JsonMapper.builder().build();
+        IdempotentRequests requests = new IdempotentRequests(store, objectMapper, properties,
+                new SimpleMeterRegistry());
+        Map<String, String> body = Map.of("name", "Alice");
+        // Claimed for the same request by an instance that died before completing it; the retry polls until the
+        // claim expires.
+        store.claim("key", HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body))));
+
+        ResponseEntity<Created> response = requests.execute("key", body, Created.class,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(new Created(1)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getHeaders().containsHeader(IdempotentRequests.REPLAYED_HEADER)).isFalse();
+        assertThat(store.find("key")).hasValueSatisfying(stored -> assertThat(stored.status()).isEqualTo(201));
+    }
+
+    private static StoredResponse completed(String fingerprint) {
+        return new StoredResponse(fingerprint, 201, "{\"id\":1}", Instant.now());
+    }
+}
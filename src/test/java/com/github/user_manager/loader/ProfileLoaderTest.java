@@ -0,0 +1,231 @@
+package com.github.user_manager.loader;
+
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.repository.UserProfilesRepository;
+import com.github.user_manager.sharding.Shards;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Coalescing, batching and the wait bound of {@link ProfileLoader}, against a repository that records each
+ * query and can be held until the test releases it.
+ */
+class ProfileLoaderTest {
+
+    private static final int MISSING_ID = 404;
+
+    private final UserProfilesRepository repository = mock(UserProfilesRepository.class);
+    private final List<List<Integer>> queries = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ProfileLoaderProperties properties;
+    private ProfileLoader loader;
+    private volatile CountDownLatch queried = new CountDownLatch(0);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProfileLoaderProperties();
+        when(repository.findAllWithUserByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            queries.add(List.copyOf(ids));
+            queried.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ids.stream().filter(id -> id != MISSING_ID).map(ProfileLoaderTest::profile).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+        if (loader != null) {
+            loader.close();
+        }
+    }
+
+    @Test
+    void loadsProfileOrEmpty() {
+        startLoader();
+
+        assertThat(loader.load(1)).hasValueSatisfying(profile -> assertThat(profile.getId()).isEqualTo(1));
+        assertThat(loader.load(MISSING_ID)).isEmpty();
+    }
+
+    @Test
+    void concurrentLoadsOfTheSameIdShareOneQuery() throws Exception {
+        startLoader();
+        holdQueries();
+        Future<Optional<UserProfiles>> first = executor.submit(() -> loader.load(1));
+        assertThat(queried.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<Optional<UserProfiles>>> joined = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            joined.add(executor.submit(() -> loader.load(1)));
+        }
+        awaitCoalesced(4);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isPresent();
+        for (Future<Optional<UserProfiles>> load : joined) {
+            assertThat(load.get(5, TimeUnit.SECONDS)).hasValueSatisfying(p -> assertThat(p.getId()).isEqualTo(1));
+        }
+        assertThat(queries).containsExactly(List.of(1));
+    }
+
+    @Test
+    void completedLoadIsNotShared() {
+        startLoader();
+
+        loader.load(1);
+        loader.load(1);
+
+        assertThat(queries).containsExactly(List.of(1), List.of(1));
+    }
+
+    @Test
+    void distinctIdsWithinTheWindowShareOneQuery() throws Exception {
+        properties.setWindow(Duration.ofSeconds(1));
+        startLoader();
+
+        List<Future<Optional<UserProfiles>>> loads = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            int profileId = id;
+            loads.add(executor.submit(() -> loader.load(profileId)));
+        }
+        for (Future<Optional<UserProfiles>> load : loads) {
+            assertThat(load.get(5, TimeUnit.SECONDS)).isPresent();
+        }
+
+        assertThat(queries).hasSize(1);
+        assertThat(queries.getFirst()).containsExactlyInAnyOrder(1, 2, 3);
+    }
+
+    @Test
+    void batchesAreSplitAtMaxBatchSize() throws Exception {
+        properties.setWindow(Duration.ofSeconds(1));
+        properties.setMaxBatchSize(2);
+        startLoader();
+
+        List<Future<Optional<UserProfiles>>> loads = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            int profileId = id;
+            loads.add(executor.submit(() -> loader.load(profileId)));
+        }
+        for (int i = 0; i < loads.size(); i++) {
+            int id = i + 1;
+            assertThat(loads.get(i).get(5, TimeUnit.SECONDS))
+                    .hasValueSatisfying(profile -> assertThat(profile.getId()).isEqualTo(id));
+        }
+
+        assertThat(queries).hasSize(3).allSatisfy(ids -> assertThat(ids).hasSizeLessThanOrEqualTo(2));
+        assertThat(queries.stream().flatMap(List::stream)).containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void fullBatchIsSentBeforeTheWindowEnds() throws Exception {
+        properties.setWindow(Duration.ofSeconds(30));
+        properties.setMaxBatchSize(2);
+        startLoader();
+
+        Future<Optional<UserProfiles>> first = executor.submit(() -> loader.load(1));
+        Future<Optional<UserProfiles>> second = executor.submit(() -> loader.load(2));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(queries).hasSize(1);
+        assertThat(queries.getFirst()).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void zeroWindowQueriesEachIdOnItsOwn() throws Exception {
+        properties.setWindow(Duration.ZERO);
+        startLoader();
+
+        List<Future<Optional<UserProfiles>>> loads = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            int profileId = id;
+            loads.add(executor.submit(() -> loader.load(profileId)));
+        }
+        for (Future<Optional<UserProfiles>> load : loads) {
+            assertThat(load.get(5, TimeUnit.SECONDS)).isPresent();
+        }
+
+        assertThat(queries).hasSize(3).allSatisfy(ids -> assertThat(ids).hasSize(1));
+    }
+
+    @Test
+    void waitIsBoundedByTimeout() {
+        properties.setTimeout(Duration.ofMillis(100));
+        startLoader();
+        holdQueries();
+
+        assertThatThrownBy(() -> loader.load(1))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    void failedQueryFailsEveryWaiterAndIsRetried() {
+        startLoader();
+        when(repository.findAllWithUserByIdIn(anyCollection()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of(profile(1)));
+
+        assertThatThrownBy(() -> loader.load(1)).isInstanceOf(IllegalStateException.class);
+        assertThat(loader.load(1)).isPresent();
+    }
+
+    private void startLoader() {
+        loader = new ProfileLoader(repository, mock(PlatformTransactionManager.class), properties, meterRegistry,
+                new StaticListableBeanFactory().getBeanProvider(Shards.class));
+    }
+
+    /**
+     * Makes queries wait for {@link #release} and lets the test wait for the first one to start.
+     */
+    private void holdQueries() {
+        queried = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    private void awaitCoalesced(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("user_manager.profile_loader.coalesced").count() < count) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            Thread.sleep(5);
+        }
+    }
+
+    private static UserProfiles profile(int id) {
+        UserProfiles profile = new UserProfiles();
+        profile.setId(id);
+        return profile;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The listings load users with their profiles in a fixed number of statements, however many rows a page has.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ListingStatementCountTest {
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private UserProfilesRepository userProfilesRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void userPageTakesOneStatementForOneOrFiftyUsers() {
+        createUsers(1);
+        long one = statementsFor(() -> assertThat(usersRepository.findViews(0, 100, FieldSet.ALL)).hasSize(1));
+
+        createUsers(49);
+        long fifty = statementsFor(() -> assertThat(usersRepository.findViews(0, 100, FieldSet.ALL)).hasSize(50));
+
+        assertThat(one).isEqualTo(1);
+        assertThat(fifty).isEqualTo(one);
+    }
+
+    @Test
+    void profileListingTakesOneStatementForOneOrFiftyProfiles() {
+        createUsers(1);
+        long one = statementsFor(() -> assertThat(userProfilesRepository.findAllViews(FieldSet.ALL)).hasSize(1));
+
+        createUsers(49);
+        long fifty = statementsFor(() -> assertThat(userProfilesRepository.findAllViews(FieldSet.ALL)).hasSize(50));
+
+        assertThat(one).isEqualTo(1);
+        assertThat(fifty).isEqualTo(one);
+    }
+
+    @Test
+    void entityPageJoinsProfilesInsteadOfSelectingThemPerRow() {
+        createUsers(1);
+        long one = statementsFor(() -> touchProfiles(usersRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(100))));
+
+        createUsers(49);
+        long fifty = statementsFor(() -> touchProfiles(usersRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(100))));
+
+        assertThat(one).isEqualTo(1);
+        assertThat(fifty).isEqualTo(one);
+    }
+
+    /**
+     * Statements prepared by {@code listing}, run against an empty persistence context.
+     */
+    private long statementsFor(Runnable listing) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static void touchProfiles(List<Users> users) {
+        users.forEach(user -> assertThat(user.getUserProfiles().getTeam()).isNotNull());
+    }
+
+    private void createUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            UserProfiles profile = new UserProfiles();
+            profile.setUnit("unit");
+            profile.setTeam("team-" + i % 5);
+            profile.setPhoneNumber("555-0100");
+
+            Users user = new Users();
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setUserProfiles(profile);
+            usersRepository.save(user);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.user_manager.repository;
+
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.FieldSet;
+import com.github.user_manager.dto.PageRevision;
+import com.github.user_manager.dto.UserView;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The aggregate that revalidates a {@code GET /users} page agrees with the revision of the page as loaded, and
+ * moves exactly when the page does.
+ */
+@DataJpaTest
+@Import(UsersJdbcRepository.class)
+class PageRevisionQueryTest {
+
+    private static final FieldSet NAMES_ONLY = FieldSet.parse("id,firstName", FieldSet.USER_FIELDS);
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private UsersJdbcRepository usersJdbcRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Users> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Users user = new Users();
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            if (i % 2 == 0) {
+                UserProfiles profile = new UserProfiles();
+                profile.setUnit("unit");
+                profile.setTeam("team");
+                profile.setPhoneNumber("555-0100");
+                user.setUserProfiles(profile);
+            }
+            users.add(usersRepository.save(user));
+        }
+        flushAndClear();
+    }
+
+    @Test
+    void aggregateMatchesLoadedPage() {
+        int first = users.getFirst().getId();
+        for (int after : new int[]{0, first, users.get(3).getId(), users.getLast().getId()}) {
+            for (int limit : new int[]{1, 2, 5, 10}) {
+                assertThat(usersJdbcRepository.findPageRevision(after, limit, true))
+                        .as("after %d, limit %d, with profiles", after, limit)
+                        .isEqualTo(loaded(after, limit, FieldSet.ALL));
+                assertThat(usersJdbcRepository.findPageRevision(after, limit, false))
+                        .as("after %d, limit %d, without profiles", after, limit)
+                        .isEqualTo(loaded(after, limit, NAMES_ONLY));
+            }
+        }
+    }
+
+    @Test
+    void emptyPageHasNoNextPage() {
+        PageRevision revision = usersJdbcRepository.findPageRevision(users.getLast().getId(), 10, true);
+
+        assertThat(revision.rowCount()).isZero();
+        assertThat(revision.hasNext()).isFalse();
+    }
+
+    @Test
+    void profileChangeMovesOnlyPagesShowingProfiles() {
+        PageRevision withProfiles = usersJdbcRepository.findPageRevision(0, 2, true);
+        PageRevision withoutProfiles = usersJdbcRepository.findPageRevision(0, 2, false);
+
+        Users user = usersRepository.findWithProfileById(users.getFirst().getId()).orElseThrow();
+        user.getUserProfiles().setTeam("other");
+        flushAndClear();
+
+        assertThat(usersJdbcRepository.findPageRevision(0, 2, true)).isNotEqualTo(withProfiles);
+        assertThat(usersJdbcRepository.findPageRevision(0, 2, false)).isEqualTo(withoutProfiles);
+    }
+
+    @Test
+    void changesOutsideThePageLeaveItsRevision() {
+        PageRevision page = usersJdbcRepository.findPageRevision(0, 2, true);
+
+        usersRepository.findById(users.get(3).getId()).orElseThrow().setFirstName("Changed");
+        flushAndClear();
+        assertThat(usersJdbcRepository.findPageRevision(0, 2, true)).isEqualTo(page);
+
+        usersRepository.findById(users.get(1).getId()).orElseThrow().setFirstName("Changed");
+        flushAndClear();
+        assertThat(usersJdbcRepository.findPageRevision(0, 2, true)).isNotEqualTo(page);
+    }
+
+    @Test
+    void deletingARowMovesThePage() {
+        PageRevision page = usersJdbcRepository.findPageRevision(0, 2, true);
+
+        usersRepository.deleteById(users.get(1).getId());
+        flushAndClear();
+
+        assertThat(usersJdbcRepository.findPageRevision(0, 2, true)).isNotEqualTo(page);
+    }
+
+    /**
+     * The revision of the page as the service builds it: one extra row tells whether a next page exists.
+     */
+    private PageRevision loaded(int after, int limit, FieldSet fields) {
+        List<UserView> views = usersRepository.findViews(after, limit + 1, fields);
+        CursorPage<UserView> page = views.size() <= limit
+                ? new CursorPage<>(views, null)
+                : new CursorPage<>(views.subList(0, limit), String.valueOf(views.get(limit - 1).id()));
+        return PageRevision.of(page);
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.user_manager.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Users spread evenly over the shards, and a new shard only takes users over, it never reshuffles the rest.
+ */
+class ConsistentHashRingTest {
+
+    private static final List<String> SHARDS = List.of("shard-0", "shard-1", "shard-2");
+    private static final int USERS = 30_000;
+
+    @Test
+    void sequentialIdsSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(SHARDS, 128);
+
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int id = 1; id <= USERS; id++) {
+            counts.merge(ring.shardFor(id), 1, Integer::sum);
+        }
+
+        assertThat(counts).containsOnlyKeys(SHARDS);
+        counts.values().forEach(count -> assertThat((double) count / USERS).isBetween(0.25, 0.42));
+    }
+
+    @Test
+    void addedShardOnlyTakesUsersOver() {
+        ConsistentHashRing before = new ConsistentHashRing(SHARDS, 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 128);
+
+        int moved = 0;
+        for (int id = 1; id <= USERS; id++) {
+            String shard = after.shardFor(id);
+            if (!shard.equals(before.shardFor(id))) {
+                assertThat(shard).isEqualTo("shard-3");
+                moved++;
+            }
+        }
+        assertThat((double) moved / USERS).isBetween(0.15, 0.35);
+    }
+
+    @Test
+    void placementDependsOnlyOnShardNames() {
+        ConsistentHashRing ring = new ConsistentHashRing(SHARDS, 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("shard-2", "shard-0", "shard-1"), 128);
+
+        for (int id = 1; id <= 1_000; id++) {
+            assertThat(reordered.shardFor(id)).isEqualTo(ring.shardFor(id));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.github.user_manager.sharding;
+
+import com.github.user_manager.dto.BatchResult;
+import com.github.user_manager.dto.BatchItemResult;
+import com.github.user_manager.dto.CursorPage;
+import com.github.user_manager.dto.UserView;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.service.UserBatchService;
+import com.github.user_manager.service.UserManagerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The {@code sharded} profile on its three in-memory H2 databases: placement, id allocation, merged reads and
+ * rebalancing against real shards.
+ */
+@SpringBootTest(properties = {
+        "spring.profiles.active=sharded",
+        "user-manager.warm-up.enabled=false"
+})
+class ShardingTest {
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private UserManagerService userManagerService;
+
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clearShards() {
+        for (String shard : shards.names()) {
+            onShard(shard, () -> {
+                jdbcTemplate.update("DELETE FROM users");
+                return jdbcTemplate.update("DELETE FROM user_profiles");
+            });
+        }
+    }
+
+    @Test
+    void runsOnThreeShards() {
+        assertThat(shards.names()).containsExactly("shard-0", "shard-1", "shard-2");
+        assertThat(shards.home()).isEqualTo("shard-0");
+    }
+
+    @Test
+    void userAndProfileAreWrittenTogetherToTheUsersShard() {
+        List<Users> saved = IntStream.range(0, 30)
+                .mapToObj(i -> userManagerService.saveUser(newUser("co-" + i, true)))
+                .toList();
+
+        for (Users user : saved) {
+            String home = shards.shardOf(user.getId());
+            for (String shard : shards.names()) {
+                int expected = shard.equals(home) ? 1 : 0;
+                assertThat(count(shard, "users", user.getId())).as("user %d on %s", user.getId(), shard)
+                        .isEqualTo(expected);
+                assertThat(count(shard, "user_profiles", user.getUserProfiles().getId()))
+                        .as("profile of user %d on %s", user.getId(), shard)
+                        .isEqualTo(expected);
+            }
+        }
+        assertThat(saved).extracting(user -> shards.shardOf(user.getId())).containsAll(shards.names());
+    }
+
+    @Test
+    void idsAreUniqueAcrossShardsAndThreads() throws Exception {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < 500; j++) {
+                    assertThat(ids.add(shards.nextId(Users.ID_SEQUENCE))).isTrue();
+                }
+                return null;
+            });
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        }
+        assertThat(ids).hasSize(8 * 500);
+    }
+
+    @Test
+    void batchCreatedUsersGetDistinctIdsOnTheirShards() {
+        BatchResult result = userBatchService.createUsers(newUsers(150));
+        assertThat(result.failed()).isZero();
+
+        List<Integer> created = result.items().stream().map(BatchItemResult::id).toList();
+        List<Integer> stored = new ArrayList<>();
+        for (String shard : shards.names()) {
+            List<Integer> ids = onShard(shard, () -> jdbcTemplate.queryForList("SELECT id FROM users", Integer.class));
+            ids.forEach(id -> assertThat(shards.shardOf(id)).isEqualTo(shard));
+            stored.addAll(ids);
+        }
+        assertThat(stored).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(created);
+    }
+
+    @Test
+    void gatherSortedMergesKeysetPagesInIdOrder() {
+        List<Integer> created = userBatchService.createUsers(newUsers(120)).items().stream()
+                .map(BatchItemResult::id)
+                .sorted()
+                .toList();
+
+        List<Integer> merged = new ArrayList<>();
+        int after = 0;
+        List<Integer> page;
+        do {
+            int from = after;
+            page = shards.gatherSorted(() -> jdbcTemplate.queryForList(
+                            "SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?", Integer.class, from, 25),
+                    Comparator.naturalOrder(), 25);
+            merged.addAll(page);
+            if (!page.isEmpty()) {
+                after = page.getLast();
+            }
+        } while (page.size() == 25);
+
+        assertThat(merged).isEqualTo(created);
+    }
+
+    @Test
+    void usersPagesAreTheUnshardedPages() {
+        List<Integer> created = userBatchService.createUsers(newUsers(60)).items().stream()
+                .map(BatchItemResult::id)
+                .sorted()
+                .toList();
+
+        List<Integer> paged = new ArrayList<>();
+        Integer after = null;
+        do {
+            CursorPage<UserView> page = userManagerService.getUsers(7, after, null);
+            page.items().forEach(user -> paged.add(user.id()));
+            after = page.nextCursor() == null ? null : Integer.valueOf(page.nextCursor());
+        } while (after != null);
+
+        assertThat(paged).isEqualTo(created);
+    }
+
+    @Test
+    void rebalanceCopiesMisplacedUsersThenDeletesThem() {
+        int userId = shards.nextId(Users.ID_SEQUENCE);
+        int profileId = shards.nextId(UserProfiles.ID_SEQUENCE);
+        String target = shards.shardOf(userId);
+        String source = otherShardThan(target);
+        insertUser(source, userId, profileId, "moved", 3);
+
+        ShardRebalancer.Result result = shardRebalancer.rebalance(false);
+
+        assertThat(result.moved()).containsEntry(source + "->" + target, 1L);
+        assertThat(count(source, "users", userId)).isZero();
+        assertThat(count(source, "user_profiles", profileId)).isZero();
+        assertThat(count(target, "user_profiles", profileId)).isOne();
+        assertThat(onShard(target, () -> jdbcTemplate.queryForMap(
+                "SELECT first_name, profile_id, version FROM users WHERE id = ?", userId)))
+                .containsEntry("FIRST_NAME", "moved")
+                .containsEntry("PROFILE_ID", profileId)
+                .containsEntry("VERSION", 3L);
+    }
+
+    @Test
+    void rebalanceInterruptedAfterTheCopyKeepsTheTargetRow() {
+        int userId = shards.nextId(Users.ID_SEQUENCE);
+        int profileId = shards.nextId(UserProfiles.ID_SEQUENCE);
+        String target = shards.shardOf(userId);
+        String source = otherShardThan(target);
+        insertUser(source, userId, profileId, "stale", 1);
+        // Copied by the interrupted run, then updated through the new ring.
+        insertUser(target, userId, profileId, "current", 2);
+
+        shardRebalancer.rebalance(false);
+
+        assertThat(count(source, "users", userId)).isZero();
+        assertThat(count(source, "user_profiles", profileId)).isZero();
+        assertThat(onShard(target, () -> jdbcTemplate.queryForObject(
+                "SELECT first_name FROM users WHERE id = ?", String.class, userId)))
+                .isEqualTo("current");
+    }
+
+    @Test
+    void dryRunOnlyCounts() {
+        int userId = shards.nextId(Users.ID_SEQUENCE);
+        String source = otherShardThan(shards.shardOf(userId));
+        insertUser(source, userId, shards.nextId(UserProfiles.ID_SEQUENCE), "stays", 0);
+
+        ShardRebalancer.Result result = shardRebalancer.rebalance(true);
+
+        assertThat(result.moved()).containsEntry(source + "->" + shards.shardOf(userId), 1L);
+        assertThat(count(source, "users", userId)).isOne();
+    }
+
+    private String otherShardThan(String shard) {
+        return shards.names().stream().filter(name -> !name.equals(shard)).findFirst().orElseThrow();
+    }
+
+    private void insertUser(String shard, int userId, int profileId, String firstName, long version) {
+        onShard(shard, () -> {
+            jdbcTemplate.update("INSERT INTO user_profiles (id, unit, team, phone_number, version) "
+                    + "VALUES (?, 'unit', 'team', '0123456789', ?)", profileId, version);
+            return jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, profile_id, version) "
+                    + "VALUES (?, ?, 'doe', ?, ?)", userId, firstName, profileId, version);
+        });
+    }
+
+    private int count(String shard, String table, int id) {
+        return onShard(shard, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE id = ?", Integer.class, id));
+    }
+
+    private <T> T onShard(String shard, Supplier<T> action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return shards.callOn(shard, () -> transaction.execute(status -> action.get()));
+    }
+
+    private static List<Users> newUsers(int count) {
+        return IntStream.range(0, count).mapToObj(i -> newUser("batch-" + i, i % 2 == 0)).toList();
+    }
+
+    private static Users newUser(String firstName, boolean withProfile) {
+        Users user = new Users();
+        user.setFirstName(firstName);
+        user.setLastName("doe");
+        if (withProfile) {
+            UserProfiles profile = new UserProfiles();
+            profile.setUnit("unit");
+            profile.setTeam("team");
+            profile.setPhoneNumber("0123456789");
+            user.setUserProfiles(profile);
+        }
+        return user;
+    }
+}
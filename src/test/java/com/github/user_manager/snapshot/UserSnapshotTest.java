@@ -0,0 +1,319 @@
+package com.github.user_manager.snapshot;
+
+import com.github.user_manager.dto.ChangeEventView;
+import com.github.user_manager.entity.ChangeEvent.Aggregate;
+import com.github.user_manager.entity.ChangeEvent.Type;
+import com.github.user_manager.entity.UserProfiles;
+import com.github.user_manager.entity.Users;
+import com.github.user_manager.service.ChangeFeedService;
+import com.github.user_manager.service.UserManagerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds and patches of {@link UserSnapshot} against an in-memory user table and change feed. After every
+ * patch the snapshot must serialize exactly like one built from scratch, however its chunks were split.
+ */
+class UserSnapshotTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final UserManagerService userManagerService = mock(UserManagerService.class);
+    private final ChangeFeedService changeFeedService = mock(ChangeFeedService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final NavigableMap<Integer, Users> table = new TreeMap<>();
+    private final List<ChangeEventView> feed = new ArrayList<>();
+    private long prunedPosition;
+    // Each list is streamed as one sorted run, like one shard; the whole table in id order when empty.
+    private List<List<Integer>> shardRuns = List.of();
+
+    private UserSnapshotProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new UserSnapshotProperties();
+        // A few users per chunk, so patches touch, split and empty chunks.
+        properties.setChunkSize(DataSize.ofBytes(300));
+
+        doAnswer(invocation -> {
+            Consumer<Users> consumer = invocation.getArgument(0);
+            if (shardRuns.isEmpty()) {
+                table.values().forEach(consumer);
+            } else {
+                shardRuns.forEach(run -> run.forEach(id -> consumer.accept(table.get(id))));
+            }
+            return null;
+        }).when(userManagerService).streamUsers(any());
+        when(userManagerService.findUsers(anyCollection(), anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            Collection<Integer> profileIds = invocation.getArgument(1);
+            return table.values().stream()
+                    .filter(user -> ids.contains(user.getId()) || (user.getUserProfiles() != null
+                            && profileIds.contains(user.getUserProfiles().getId())))
+                    .toList();
+        });
+        when(changeFeedService.headPosition()).thenAnswer(invocation -> prunedPosition + feed.size());
+        when(changeFeedService.prunedPosition()).thenAnswer(invocation -> prunedPosition);
+        when(changeFeedService.changesAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long position = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return feed.stream().filter(change -> change.position() > position).limit(limit).toList();
+        });
+    }
+
+    @Test
+    void buildsFromTheUserStream() throws IOException {
+        for (int id = 1; id <= 20; id++) {
+            insert(id, "First" + id);
+        }
+        UserSnapshot snapshot = refreshed();
+
+        assertThat(ids(snapshot)).hasSize(20).isSorted();
+        assertThat(snapshot.current().version()).isEqualTo(20);
+        assertThat(snapshot.current().users()).isEqualTo(20);
+    }
+
+    @Test
+    void mergesShardRunsIntoIdOrder() throws IOException {
+        for (int id = 1; id <= 12; id++) {
+            table.put(id, user(id, "First" + id));
+        }
+        shardRuns = List.of(List.of(1, 4, 7, 10), List.of(2, 5, 8, 11), List.of(3, 6, 9, 12));
+        UserSnapshot snapshot = refreshed();
+
+        assertThat(ids(snapshot)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+    }
+
+    @Test
+    void patchesInsertsDeletesAndUpdates() throws IOException {
+        for (int id = 10; id <= 30; id += 2) {
+            insert(id, "First" + id);
+        }
+        UserSnapshot snapshot = refreshed();
+
+        insert(5, "Before every chunk");
+        insert(21, "Between chunks");
+        insert(40, "After every chunk");
+        delete(14);
+        update(20, "Renamed");
+        snapshot.refresh();
+
+        assertThat(ids(snapshot)).containsExactly(5, 10, 12, 16, 18, 20, 21, 22, 24, 26, 28, 30, 40);
+        assertThat(names(snapshot)).containsEntry(20, "Renamed");
+        assertThat(snapshot.current().version()).isEqualTo(feed.size());
+        assertMatchesFreshBuild(snapshot);
+    }
+
+    @Test
+    void profileChangeUpdatesItsUser() throws IOException {
+        for (int id = 1; id <= 10; id++) {
+            insert(id, "First" + id);
+        }
+        UserSnapshot snapshot = refreshed();
+
+        UserProfiles profile = table.get(7).getUserProfiles();
+        profile.setTeam("platform");
+        append(Aggregate.PROFILE, profile.getId(), Type.UPDATED);
+        snapshot.refresh();
+
+        assertThat(teams(snapshot)).containsEntry(7, "platform");
+        assertMatchesFreshBuild(snapshot);
+    }
+
+    @Test
+    void growingUserSplitsItsChunkAndLaterPatchesFindTheNewChunks() throws IOException {
+        for (int id = 1; id <= 20; id++) {
+            insert(id, "First" + id);
+        }
+        UserSnapshot snapshot = refreshed();
+        double rebuilds = chunkRebuilds();
+
+        update(5, "x".repeat(1_000));
+        snapshot.refresh();
+        assertThat(chunkRebuilds() - rebuilds).isEqualTo(1);
+        assertMatchesFreshBuild(snapshot);
+
+        // Each part of the split chunk is keyed by its own first id now.
+        update(6, "After the split");
+        update(4, "Before the split");
+        snapshot.refresh();
+
+        assertThat(names(snapshot)).containsEntry(4, "Before the split").containsEntry(6, "After the split");
+        assertMatchesFreshBuild(snapshot);
+    }
+
+    @Test
+    void deletingEveryUserOfAChunkDropsIt() throws IOException {
+        for (int id = 1; id <= 20; id++) {
+            insert(id, "First" + id);
+        }
+        UserSnapshot snapshot = refreshed();
+        double bytes = snapshotBytes();
+
+        for (int id = 1; id <= 10; id++) {
+            delete(id);
+        }
+        snapshot.refresh();
+
+        assertThat(ids(snapshot)).containsExactly(11, 12, 13, 14, 15, 16, 17, 18, 19, 20);
+        assertThat(snapshotBytes()).isLessThan(bytes);
+        assertMatchesFreshBuild(snapshot);
+    }
+
+    @Test
+    void firstUserOfAnEmptySnapshotIsPatchedIn() throws IOException {
+        UserSnapshot snapshot = refreshed();
+        assertThat(ids(snapshot)).isEmpty();
+
+        insert(3, "First");
+        snapshot.refresh();
+
+        assertThat(ids(snapshot)).containsExactly(3);
+        assertMatchesFreshBuild(snapshot);
+    }
+
+    @Test
+    void rebuildsWhenUnappliedChangesWerePruned() throws IOException {
+        for (int id = 1; id <= 5; id++) {
+            insert(id, "First" + id);
+        }
+        UserSnapshot snapshot = refreshed();
+        verify(userManagerService, times(1)).streamUsers(any());
+
+        // Changes the snapshot never applied are gone from the feed; only a rebuild picks them up.
+        table.get(2).setFirstName("Renamed while pruned");
+        append(Aggregate.USER, 2, Type.UPDATED);
+        feed.clear();
+        prunedPosition = 6;
+        snapshot.refresh();
+
+        verify(userManagerService, times(2)).streamUsers(any());
+        assertThat(names(snapshot)).containsEntry(2, "Renamed while pruned");
+
+        // Pruning changes that were already applied does not.
+        prunedPosition = snapshot.current().version();
+        snapshot.refresh();
+        verify(userManagerService, times(2)).streamUsers(any());
+    }
+
+    private UserSnapshot refreshed() {
+        UserSnapshot snapshot = new UserSnapshot(userManagerService, changeFeedService, objectMapper, properties,
+                meterRegistry);
+        snapshot.refresh();
+        return snapshot;
+    }
+
+    private void assertMatchesFreshBuild(UserSnapshot snapshot) throws IOException {
+        UserSnapshot fresh = new UserSnapshot(userManagerService, changeFeedService, objectMapper, properties,
+                new SimpleMeterRegistry());
+        fresh.refresh();
+
+        assertThat(json(snapshot)).isEqualTo(json(fresh));
+        assertThat(snapshot.current().users()).isEqualTo(table.size());
+    }
+
+    private void insert(int id, String firstName) {
+        table.put(id, user(id, firstName));
+        append(Aggregate.USER, id, Type.CREATED);
+    }
+
+    private void update(int id, String firstName) {
+        table.get(id).setFirstName(firstName);
+        append(Aggregate.USER, id, Type.UPDATED);
+    }
+
+    private void delete(int id) {
+        table.remove(id);
+        append(Aggregate.USER, id, Type.DELETED);
+    }
+
+    private void append(Aggregate aggregate, int id, Type type) {
+        long position = prunedPosition + feed.size() + 1;
+        feed.add(new ChangeEventView(position, position, aggregate, id, type,
+                new Timestamp(System.currentTimeMillis()), null));
+    }
+
+    private static Users user(int id, String firstName) {
+        UserProfiles profile = new UserProfiles();
+        profile.setId(1_000 + id);
+        profile.setUnit("unit");
+        profile.setTeam("team");
+        profile.setPhoneNumber("555-0100");
+
+        Users user = new Users();
+        user.setId(id);
+        user.setFirstName(firstName);
+        user.setLastName("Last" + id);
+        user.setUserProfiles(profile);
+        return user;
+    }
+
+    private double chunkRebuilds() {
+        return meterRegistry.get("user_manager.snapshot.chunk_rebuilds").counter().count();
+    }
+
+    private double snapshotBytes() {
+        return meterRegistry.get("user_manager.snapshot.bytes").gauge().value();
+    }
+
+    private static String json(UserSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.current().writeTo(out);
+        return out.toString();
+    }
+
+    private List<Integer> ids(UserSnapshot snapshot) throws IOException {
+        return List.copyOf(names(snapshot).keySet());
+    }
+
+    private NavigableMap<Integer, String> names(UserSnapshot snapshot) throws IOException {
+        return field(snapshot, user -> user.get("firstName").asString());
+    }
+
+    private NavigableMap<Integer, String> teams(UserSnapshot snapshot) throws IOException {
+        return field(snapshot, user -> user.get("userProfiles").get("team").asString());
+    }
+
+    /**
+     * One attribute of every user in the snapshot by id, after checking the ids come in order.
+     */
+    private NavigableMap<Integer, String> field(UserSnapshot snapshot, Function<JsonNode, String> attribute)
+            throws IOException {
+        NavigableMap<Integer, String> values = new TreeMap<>();
+        List<Integer> order = new ArrayList<>();
+        for (JsonNode user : objectMapper.readTree(json(snapshot))) {
+            order.add(user.get("id").asInt());
+            values.put(user.get("id").asInt(), attribute.apply(user));
+        }
+        assertThat(order).isSorted().doesNotHaveDuplicates();
+        return values;
+    }
+}